@@ -22,6 +22,7 @@ import ivorius.reccomplex.world.gen.feature.decoration.RCBiomeDecorator;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
 import ivorius.reccomplex.world.gen.feature.structure.generic.StructureSaveHandler;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.MazeSolver;
 import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.TransformerMulti;
 import ivorius.reccomplex.world.storage.loot.GenericItemCollectionRegistry;
 import net.minecraft.command.ICommandSender;
@@ -79,6 +80,9 @@ public class RCConfig
 
     public static boolean memorizeDecoration;
     public static boolean memorizeSaplings;
+    public static boolean countDecoration;
+
+    public static boolean cacheStructureFiles;
 
     public static int[] blockSelectorModifierKeys;
 
@@ -100,6 +104,10 @@ public class RCConfig
 
     public static float mazePlacementReversesPerRoom;
     public static long mazeTimeout;
+    public static int mazeSolverThreads;
+    public static int retrogenTickBudget;
+
+    public static boolean bulkBlockPlacement;
 
     public static final Map<String, Boolean> globalToggles = new HashMap<>();
 
@@ -126,6 +134,9 @@ public class RCConfig
 
             memorizeDecoration = config.getBoolean("memorizeDecoration", CATEGORY_GENERAL, false, "Memorize decoration spawns like trees or mushrooms (for /#whatisthis). Since decoration is so common, it is recommended to use this only for debugging / balancing purposes.");
             memorizeSaplings = config.getBoolean("memorizeSaplings", CATEGORY_GENERAL, false, "Memorize sapling spawns (for /#whatisthis). Since saplings are so common, it is recommended to use this only for debugging / balancing purposes.");
+            countDecoration = config.getBoolean("countDecoration", CATEGORY_GENERAL, true, "Count decoration spawns that aren't memorized, per chunk (for /#whatisthis). Costs a few bytes per chunk.");
+
+            cacheStructureFiles = config.getBoolean("cacheStructureFiles", CATEGORY_GENERAL, false, "Keep parsed copies of structure files in a cache folder, so that unchanged structures load faster on the next start. Takes a few times the disk space of the structures themselves; entries unused for 30 days are removed.");
         }
 
         if (configID == null || configID.equals(CATEGORY_BALANCING))
@@ -173,6 +184,10 @@ public class RCConfig
 
             mazePlacementReversesPerRoom = config.getFloat("mazePlacementReversesPerRoom", CATEGORY_BALANCING, 3, -1, 100, "Maximum number of reverses per room the maze generator can do. A higher number results in a better generation success rate, but may freeze the server temporarily.");
             mazeTimeout = config.getInt("mazeTimeout", CATEGORY_BALANCING, 20000, -1, 600000, "Maze generation timeout, in milliseconds. After the time is over, the maze generation will just give up.");
+            mazeSolverThreads = config.getInt("mazeSolverThreads", CATEGORY_BALANCING, 2, 1, 64, "Number of threads solving mazes. Mazes that don't get a thread wait for one, which counts towards their timeout.");
+            retrogenTickBudget = config.getInt("retrogenTickBudget", CATEGORY_BALANCING, 10, 1, 1000, "Time a running retrogen (/#rc retro) may spend per tick and dimension, in milliseconds. A chunk that is already generating finishes regardless.");
+
+            bulkBlockPlacement = config.getBoolean("bulkBlockPlacement", CATEGORY_BALANCING, false, "Write structure blocks per chunk section instead of one by one, and redo lighting once per chunk afterwards. Much faster for big structures, but transformers won't see the structure's own blocks in the world while it is being placed.");
 
             universalTransformer = null;
             Collections.addAll(universalTransformerPresets, config.getStringList("universalTransformerPresets", CATEGORY_BALANCING, new String[0], "Transformer preset names that are gonna be applied to every single generating structure. Use this if you need to enforce specific rules (e.g. \"don't ever spawn wood blocks\" (with a replace transformer)."));
@@ -180,6 +195,7 @@ public class RCConfig
             globalToggles.clear();
             ConfigUtil.parseMap(config.getStringList("globalToggles", CATEGORY_BALANCING, new String[]{"treeLeavesDecay: true"}, "Global toggles that can be used in expressions. You can also add your own. Ex: 'treeLeavesDecay: true'."),
                     null, Function.identity(), "global toggle boolean", Boolean::valueOf, globalToggles::put);
+            MazeSolver.clearSolutions(); // Solutions may depend on global toggles
         }
         if (configID == null || configID.equals(CATEGORY_DECORATION))
         {
@@ -33,8 +33,13 @@ import ivorius.reccomplex.utils.presets.PresetRegistry;
 import ivorius.reccomplex.world.gen.feature.GenerationSanityChecker;
 import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
 import ivorius.reccomplex.world.gen.feature.selector.NaturalStructureSelector;
+import ivorius.reccomplex.world.gen.feature.sapling.SaplingIndex;
+import ivorius.reccomplex.world.gen.feature.structure.StructureContentIndex;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
 import ivorius.reccomplex.world.gen.feature.structure.generic.StructureSaveHandler;
+import ivorius.reccomplex.world.gen.feature.structure.generic.StructureWorldDataCache;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.MazeCatalog;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.MazeSolver;
 import ivorius.reccomplex.world.gen.feature.structure.generic.generation.*;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.MazeRuleRegistry;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.saved.MazeRuleConnect;
@@ -311,6 +316,13 @@ public class RCRegistryHandler
         StructureRegistry.INSTANCE.registerModule(new NaturalGeneration.Cache());
         StructureRegistry.INSTANCE.registerModule(new VanillaDecorationGeneration.Cache());
         StructureRegistry.INSTANCE.registerModule(new VanillaGeneration.Cache());
+        StructureRegistry.INSTANCE.registerModule(new StructureWorldDataCache());
+        StructureRegistry.INSTANCE.registerModule(new MazeSolver.Cache());
+        StructureRegistry.INSTANCE.registerModule(new MazeCatalog.Cache());
+        StructureRegistry.INSTANCE.registerModule(new SaplingIndex());
+        StructureRegistry.INSTANCE.registerModule(new StructureContentIndex());
+
+        Poem.THEME_REGISTRY.registerModule(new Poem.CompiledThemes());
 
         SerializableStringTypeRegistry<GenericPlacer.Factor> placerFactorRegistry = FactorRegistry.INSTANCE.getTypeRegistry();
         placerFactorRegistry.registerType("limit", FactorLimit.class, new FactorLimit.Serializer());
@@ -353,6 +365,7 @@ public class RCRegistryHandler
     {
         registerClientPackets();
         registerServerPackets();
+        registerChunkedTransfers();
     }
 
     protected static void registerServerPackets()
@@ -369,6 +382,9 @@ public class RCRegistryHandler
         network.registerMessage(PacketWorldDataHandler.class, PacketWorldData.class, 20, Side.SERVER);
 
         network.registerMessage(PacketSpawnTweaksHandler.class, PacketSpawnTweaks.class, 21, Side.SERVER);
+
+        network.registerMessage(PacketTransferHandler.class, PacketTransfer.class, 23, Side.SERVER);
+        network.registerMessage(PacketTransferAckHandler.class, PacketTransferAck.class, 25, Side.SERVER);
     }
 
     protected static void registerClientPackets()
@@ -386,6 +402,18 @@ public class RCRegistryHandler
         network.registerMessage(PacketWorldDataHandler.class, PacketWorldData.class, 19, Side.CLIENT);
 
         network.registerMessage(PacketSpawnTweaksHandler.class, PacketSpawnTweaks.class, 22, Side.CLIENT);
+
+        network.registerMessage(PacketTransferHandler.class, PacketTransfer.class, 24, Side.CLIENT);
+        network.registerMessage(PacketTransferAckHandler.class, PacketTransferAck.class, 26, Side.CLIENT);
+    }
+
+    protected static void registerChunkedTransfers()
+    {
+        // Same order on both sides
+        ChunkedTransfers.register(PacketWorldData.class, new PacketWorldDataHandler(), RecurrentComplex::canHandleSaving);
+        // Only ever sent to clients
+        ChunkedTransfers.register(PacketEditStructure.class, new PacketEditStructureHandler(), player -> false);
+        ChunkedTransfers.register(PacketSaveStructure.class, new PacketSaveStructureHandler(), RecurrentComplex::canHandleSaving);
     }
 
 }
@@ -21,6 +21,8 @@ import ivorius.mcopts.translation.ServerTranslations;
 import ivorius.reccomplex.world.gen.feature.structure.registry.MCRegistrySpecial;
 import ivorius.reccomplex.world.gen.feature.structure.schematics.SchematicLoader;
 import ivorius.reccomplex.utils.*;
+import ivorius.reccomplex.utils.expression.BiomeExpression;
+import ivorius.reccomplex.utils.expression.BlockExpression;
 import net.minecraft.entity.player.EntityPlayer;
 import net.minecraftforge.common.config.Configuration;
 import net.minecraftforge.event.RegistryEvent;
@@ -170,10 +172,20 @@ public class RecurrentComplex
         SchematicLoader.initializeFolder();
     }
 
+    @EventHandler
+    public void onIDMapping(FMLModIdMappingEvent event)
+    {
+        BlockExpression.invalidateCompiledStates();
+        BiomeExpression.invalidateCompiledBiomes();
+    }
+
     @EventHandler
     public void onServerStart(FMLServerStartingEvent event)
     {
         RCCommands.onServerStart(event);
+
+        // Mods may have added biome types up until now
+        BiomeExpression.invalidateCompiledBiomes();
     }
 
     @EventHandler
@@ -24,6 +24,7 @@ import net.minecraft.util.EnumFacing;
 import net.minecraft.util.EnumHand;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
 
 /**
  * Created by lukas on 07.10.16.
@@ -108,5 +109,11 @@ public class BlockLegacyScript extends Block implements UnstableBlock
         {
             script.generate(context, transformer, instanceData, pos);
         }
+
+        @Override
+        public StructureBoundingBox generationBounds(StructurePrepareContext context, I instanceData)
+        {
+            return script.generationBounds(context, instanceData, pos);
+        }
     }
 }
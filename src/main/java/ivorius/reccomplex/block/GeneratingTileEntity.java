@@ -10,6 +10,9 @@ import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareCo
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
 import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.RunTransformer;
 import net.minecraft.nbt.NBTBase;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+
+import javax.annotation.Nullable;
 
 /**
  * Created by lukas on 06.06.14.
@@ -25,4 +28,12 @@ public interface GeneratingTileEntity<S>
     default boolean shouldPlaceInWorld(StructurePrepareContext context, S instanceData) {
         return false;
     }
+
+    /**
+     * @return The box enclosing everything generate may touch, in world coordinates, or null if unknown.
+     */
+    @Nullable
+    default StructureBoundingBox generationBounds(StructurePrepareContext context, S instanceData) {
+        return null;
+    }
 }
@@ -19,6 +19,7 @@ import net.minecraft.client.Minecraft;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.tileentity.TileEntity;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
 
 /**
  * Created by lukas on 06.06.14.
@@ -72,6 +73,12 @@ public class TileEntityBlockScript extends TileEntity implements GeneratingTileE
         script.generate(context, transformer, instanceData, pos);
     }
 
+    @Override
+    public StructureBoundingBox generationBounds(StructurePrepareContext context, WorldScriptMulti.InstanceData instanceData)
+    {
+        return script.generationBounds(context, instanceData, pos);
+    }
+
     @Override
     public boolean shouldPlaceInWorld(StructurePrepareContext context, WorldScriptMulti.InstanceData instanceData)
     {
@@ -21,6 +21,7 @@ import ivorius.reccomplex.commands.files.CommandWrite;
 import ivorius.reccomplex.commands.former.*;
 import ivorius.reccomplex.commands.info.CommandBiomeDict;
 import ivorius.reccomplex.commands.info.CommandDimensionDict;
+import ivorius.reccomplex.commands.info.CommandStatistics;
 import ivorius.reccomplex.commands.preview.CommandCancel;
 import ivorius.reccomplex.commands.preview.CommandConfirm;
 import ivorius.reccomplex.commands.preview.CommandPreview;
@@ -129,6 +130,7 @@ public class RCCommands
 
         event.registerServerCommand(biomeDict = new CommandBiomeDict());
         event.registerServerCommand(dimensionDict = new CommandDimensionDict());
+        event.registerServerCommand(new CommandStatistics());
 
         event.registerServerCommand(new CommandSplit(RCConfig.commandPrefix + "schematic",
                 new CommandImportSchematic(),
@@ -6,8 +6,6 @@
 package ivorius.reccomplex.commands.former;
 
 import ivorius.ivtoolkit.blocks.BlockArea;
-import ivorius.ivtoolkit.blocks.BlockSurfaceArea;
-import ivorius.ivtoolkit.blocks.BlockSurfacePos;
 import ivorius.ivtoolkit.world.MockWorld;
 import ivorius.reccomplex.block.RCBlocks;
 import ivorius.reccomplex.commands.CommandVirtual;
@@ -23,70 +21,126 @@ import net.minecraft.command.ICommandSender;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.Arrays;
+import java.util.BitSet;
 
 /**
  * Created by lukas on 09.06.14.
  */
 public class CommandNaturalFloor extends CommandExpecting implements CommandVirtual
 {
+    public static final int SOLID = 1;
+    public static final int TRIGGER = 2;
+
     public static void placeNaturalFloor(MockWorld world, BlockArea area, double lowerExpansion)
     {
-        lowerExpansion += 0.01; // Rounding and stuff
+        SelectionSnapshot snapshot = snapshot(world, area);
+        BitSet floor = findNaturalFloor(snapshot, lowerExpansion);
+
+        IBlockState floorBlock = RCBlocks.genericSolid.getDefaultState();
 
+        // Apply as one batch, without block updates in between
+        for (int index = floor.nextSetBit(0); index >= 0; index = floor.nextSetBit(index + 1))
+            world.setBlockState(snapshot.pos(index), floorBlock, 2);
+    }
+
+    public static SelectionSnapshot snapshot(MockWorld world, BlockArea area)
+    {
         IBlockState floorBlock = RCBlocks.genericSolid.getDefaultState();
         Block airBlock1 = RCBlocks.genericSpace;
 
-        BlockPos lowerPoint = area.getLowerCorner();
-        BlockPos higherPoint = area.getHigherCorner();
+        return SelectionSnapshot.of(world, area, (state, pos) ->
+        {
+            if (state.getMaterial() == Material.AIR || state.getBlock() == airBlock1)
+                return 0;
+            // Check for ifOpaque to not consider leaves and similar 'floor' blocks
+            return state != floorBlock && state.getMaterial().isOpaque() ? SOLID | TRIGGER : SOLID;
+        });
+    }
 
-        Set<BlockSurfacePos> stopped = new HashSet<>();
-        Set<BlockSurfacePos> stopping = new HashSet<>();
+    /**
+     * @return The blocks to turn into floor, by snapshot index.
+     */
+    public static BitSet findNaturalFloor(SelectionSnapshot snapshot, double lowerExpansion)
+    {
+        lowerExpansion += 0.01; // Rounding and stuff
 
-        for (int y = lowerPoint.getY() + 1; y <= higherPoint.getY(); y++)
+        int width = snapshot.width, height = snapshot.height, length = snapshot.length;
+        int columns = width * length;
+
+        // Columns stop at their first solid block above the bottom layer, or when a floor is spread over them
+        int[] stoppedAt = new int[columns];
+        Arrays.fill(stoppedAt, Integer.MAX_VALUE);
+
+        // Bucket columns by the layer they hit first, so every layer only visits its own candidates
+        int[] firstHit = new int[columns];
+        int[] layerCounts = new int[height + 1];
+        for (int column = 0; column < columns; column++)
         {
-            for (BlockSurfacePos surfaceCoord : (Iterable<BlockSurfacePos>) BlockSurfaceArea.from(area).stream().filter((o) -> !stopped.contains(o))::iterator)
+            int y = 1;
+            while (y < height && !snapshot.has(column + y * columns, SOLID))
+                y++;
+            firstHit[column] = y;
+            layerCounts[y]++;
+        }
+
+        int[] layerStarts = new int[height + 2];
+        for (int y = 0; y <= height; y++)
+            layerStarts[y + 1] = layerStarts[y] + layerCounts[y];
+        int[] byLayer = new int[columns];
+        int[] fill = Arrays.copyOf(layerStarts, height + 1);
+        for (int column = 0; column < columns; column++)
+            byLayer[fill[firstHit[column]]++] = column;
+
+        BitSet placed = new BitSet(snapshot.volume());
+
+        for (int y = 1; y < height; y++)
+        {
+            for (int i = layerStarts[y]; i < layerStarts[y + 1]; i++)
             {
-                IBlockState block = world.getBlockState(surfaceCoord.blockPos(y));
+                int column = byLayer[i];
+                if (stoppedAt[column] < y)
+                    continue;
 
-                if ((block.getMaterial() != Material.AIR && block.getBlock() != airBlock1))
-                {
-                    stopping.add(surfaceCoord);
+                stoppedAt[column] = y;
 
-                    // Check for ifOpaque to not consider leaves and similar 'floor' blocks
-                    if (block != floorBlock && block.getMaterial().isOpaque())
-                    {
-                        setBlockIfAirInArea(world, surfaceCoord.blockPos(y - 1), floorBlock, area);
+                if (snapshot.has(column + y * columns, TRIGGER))
+                {
+                    int x = column % width, z = column / width;
 
-                        fillSurface(world, area, lowerExpansion, floorBlock, surfaceCoord.blockPos(y), stopping);
-                    }
+                    setFloorIfAir(snapshot, placed, x, y - 1, z);
+                    fillSurface(snapshot, placed, lowerExpansion, x, y, z, stoppedAt);
                 }
             }
-
-            stopped.addAll(stopping);
-            stopping.clear();
         }
+
+        return placed;
     }
 
-    private static void fillSurface(MockWorld world, BlockArea area, double expansion, IBlockState floorBlock, BlockPos pos, Set<BlockSurfacePos> coords)
+    private static void fillSurface(SelectionSnapshot snapshot, BitSet placed, double expansion, int x, int y, int z, int[] stoppedAt)
     {
-        BlockSurfacePos surfacePos = BlockSurfacePos.from(pos);
-
         for (int expX = MathHelper.ceil(-expansion); expX <= expansion; expX++)
         {
             for (int expZ = MathHelper.ceil(-expansion); expZ <= expansion; expZ++)
             {
-                if (expX * expX + expZ * expZ <= expansion * expansion)
+                if (expX * expX + expZ * expZ <= expansion * expansion && snapshot.contains(x + expX, y, z + expZ))
                 {
-                    BlockSurfacePos scoord = surfacePos.add(expX, expZ);
-                    setBlockIfAirInArea(world, scoord.blockPos(pos.getY()), floorBlock, area);
-                    coords.add(scoord);
+                    setFloorIfAir(snapshot, placed, x + expX, y, z + expZ);
+
+                    int column = (z + expZ) * snapshot.width + x + expX;
+                    stoppedAt[column] = Math.min(stoppedAt[column], y);
                 }
             }
         }
     }
 
+    protected static void setFloorIfAir(SelectionSnapshot snapshot, BitSet placed, int x, int y, int z)
+    {
+        int index = snapshot.index(x, y, z);
+        if (!snapshot.has(index, SOLID))
+            placed.set(index);
+    }
+
     public static void setBlockIfAirInArea(MockWorld world, BlockPos coord, IBlockState block, BlockArea area)
     {
         if (area.contains(coord))
@@ -6,8 +6,6 @@
 package ivorius.reccomplex.commands.former;
 
 import ivorius.ivtoolkit.blocks.BlockArea;
-import ivorius.ivtoolkit.blocks.BlockSurfaceArea;
-import ivorius.ivtoolkit.blocks.BlockSurfacePos;
 import ivorius.ivtoolkit.world.MockWorld;
 import ivorius.reccomplex.block.BlockGenericSpace;
 import ivorius.reccomplex.block.RCBlocks;
@@ -22,107 +20,176 @@ import net.minecraft.block.state.IBlockState;
 import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Vec3i;
 
-import java.util.HashSet;
-import java.util.Set;
+import java.util.BitSet;
 
 /**
  * Created by lukas on 09.06.14.
  */
 public class CommandNaturalSpace extends CommandExpecting implements CommandVirtual
 {
-    public static int sidesClosed(MockWorld world, BlockPos coord, BlockArea area)
+    public static final int BLOCKED = 1;
+    public static final int REPLACEABLE = 2;
+    public static final int FLOOR = 4;
+
+    /**
+     * Counts, for every block, the horizontal directions in which a non-replaceable block lies somewhere between it
+     * and the edge of the selection. One forward and one backward scan per row, instead of walking to the edge from
+     * every block.
+     */
+    public static byte[] closedSides(SelectionSnapshot snapshot)
     {
-        int sides = 0;
+        byte[] closed = new byte[snapshot.volume()];
 
-        BlockPos lower = area.getLowerCorner();
-        BlockPos higher = area.getHigherCorner();
+        for (int y = 0; y < snapshot.height; y++)
+        {
+            for (int z = 0; z < snapshot.length; z++)
+            {
+                scanClosed(snapshot, closed, snapshot.index(0, y, z), 1, snapshot.width);
+                scanClosed(snapshot, closed, snapshot.index(snapshot.width - 1, y, z), -1, snapshot.width);
+            }
 
-        if (sideClosed(world, new BlockPos(lower.getX(), coord.getY(), coord.getZ()), coord.getX() - lower.getX(), 1, 0, 0))
-            sides++;
-        if (sideClosed(world, new BlockPos(higher.getX(), coord.getY(), coord.getZ()), higher.getX() - coord.getX(), -1, 0, 0))
-            sides++;
-        if (sideClosed(world, new BlockPos(coord.getX(), coord.getY(), lower.getZ()), coord.getZ() - lower.getZ(), 0, 0, 1))
-            sides++;
-        if (sideClosed(world, new BlockPos(coord.getX(), coord.getY(), higher.getZ()), higher.getZ() - coord.getZ(), 0, 0, -1))
-            sides++;
+            for (int x = 0; x < snapshot.width; x++)
+            {
+                scanClosed(snapshot, closed, snapshot.index(x, y, 0), snapshot.width, snapshot.length);
+                scanClosed(snapshot, closed, snapshot.index(x, y, snapshot.length - 1), -snapshot.width, snapshot.length);
+            }
+        }
 
-        return sides;
+        return closed;
     }
 
-    public static boolean sideClosed(MockWorld world, BlockPos coord, int iterations, int xP, int yP, int zP)
+    protected static void scanClosed(SelectionSnapshot snapshot, byte[] closed, int index, int step, int count)
     {
-        for (int i = 0; i < iterations; i++)
+        boolean seen = false;
+        for (int i = 0; i < count; i++, index += step)
         {
-            BlockPos pos = coord.add(xP * i, yP * i, zP * i);
-            IBlockState blockState = world.getBlockState(pos);
-
-            if (!blockState.getBlock().isReplaceable(world, pos))
-                return true;
+            if (seen)
+                closed[index]++;
+            else if (!snapshot.has(index, REPLACEABLE))
+                seen = true;
         }
-
-        return false;
     }
 
     public static void placeNaturalAir(MockWorld world, BlockArea area, int floorDistance, int maxClosedSides)
+    {
+        SelectionSnapshot snapshot = snapshot(world, area);
+        BitSet space = findNaturalAir(snapshot, floorDistance, maxClosedSides);
+        BitSet open = findOpenSpace(world, snapshot, space);
+
+        IBlockState spaceState = RCBlocks.genericSpace.getDefaultState();
+        IBlockState openSpaceState = spaceState.withProperty(BlockGenericSpace.TYPE, 1);
+
+        // Apply as one batch, without block updates in between
+        for (int index = space.nextSetBit(0); index >= 0; index = space.nextSetBit(index + 1))
+            world.setBlockState(snapshot.pos(index), open.get(index) ? openSpaceState : spaceState, 2);
+    }
+
+    public static SelectionSnapshot snapshot(MockWorld world, BlockArea area)
     {
         BlockGenericSpace spaceBlock = RCBlocks.genericSpace;
+        IBlockState floorState = RCBlocks.genericSolid.getDefaultState();
 
-        BlockPos lowerPoint = area.getLowerCorner();
-        BlockPos higherPoint = area.getHigherCorner();
+        return SelectionSnapshot.of(world, area, (state, pos) ->
+                ((state.getMaterial() != Material.AIR && state.getBlock() != spaceBlock) ? BLOCKED : 0)
+                        | (state.getBlock().isReplaceable(world, pos) ? REPLACEABLE : 0)
+                        | (state == floorState ? FLOOR : 0));
+    }
 
-        Set<BlockPos> set = new HashSet<>();
+    /**
+     * @return The blocks to turn into space, by snapshot index.
+     */
+    public static BitSet findNaturalAir(SelectionSnapshot snapshot, int floorDistance, int maxClosedSides)
+    {
+        byte[] closed = closedSides(snapshot);
 
-        for (BlockSurfacePos surfaceCoord : BlockSurfaceArea.from(area))
-        {
-            int safePoint = lowerPoint.getY();
+        int width = snapshot.width, height = snapshot.height, length = snapshot.length;
+        BitSet space = new BitSet(snapshot.volume());
 
-            for (int y = higherPoint.getY(); y >= lowerPoint.getY(); y--)
+        for (int x = 0; x < width; x++)
+        {
+            for (int z = 0; z < length; z++)
             {
-                IBlockState blockState = world.getBlockState(surfaceCoord.blockPos(y));
+                int safePoint = 0;
 
-                if ((blockState.getMaterial() != Material.AIR && blockState.getBlock() != spaceBlock) || sidesClosed(world, surfaceCoord.blockPos(y), area) >= maxClosedSides)
+                for (int y = height - 1; y >= 0; y--)
                 {
-                    boolean isFloor = blockState == RCBlocks.genericSolid.getDefaultState();
-                    safePoint = y + (isFloor ? 1 : floorDistance);
-                    break;
+                    int index = snapshot.index(x, y, z);
+                    if (snapshot.has(index, BLOCKED) || closed[index] >= maxClosedSides)
+                    {
+                        safePoint = y + (snapshot.has(index, FLOOR) ? 1 : floorDistance);
+                        break;
+                    }
                 }
-            }
 
-            for (int y = safePoint; y <= higherPoint.getY(); y++)
-                set.add(surfaceCoord.blockPos(y));
+                for (int y = safePoint; y < height; y++)
+                    space.set(snapshot.index(x, y, z));
 
-            if (safePoint > lowerPoint.getY())
-            {
-                for (int y = lowerPoint.getY(); y <= higherPoint.getY(); y++)
+                if (safePoint > 0)
                 {
-                    IBlockState blockState = world.getBlockState(surfaceCoord.blockPos(y));
-
-                    if ((blockState.getMaterial() != Material.AIR && blockState.getBlock() != spaceBlock) || sidesClosed(world, surfaceCoord.blockPos(y), area) >= maxClosedSides)
+                    for (int y = 0; y < height; y++)
                     {
-                        safePoint = y - 1;
-                        break;
+                        int index = snapshot.index(x, y, z);
+                        if (snapshot.has(index, BLOCKED) || closed[index] >= maxClosedSides)
+                        {
+                            safePoint = y - 1;
+                            break;
+                        }
                     }
                 }
+
+                for (int y = 0; y <= Math.min(safePoint, height - 1); y++)
+                    space.set(snapshot.index(x, y, z));
             }
+        }
 
-            for (int y = lowerPoint.getY(); y <= safePoint; y++)
-                set.add(surfaceCoord.blockPos(y));
+        return space;
+    }
+
+    /**
+     * @return The space blocks that should be open space, by snapshot index.
+     */
+    public static BitSet findOpenSpace(MockWorld world, SelectionSnapshot snapshot, BitSet space)
+    {
+        BitSet open = new BitSet(snapshot.volume());
+
+        for (int index = space.nextSetBit(0); index >= 0; index = space.nextSetBit(index + 1))
+        {
+            int x = snapshot.x(index), y = snapshot.y(index), z = snapshot.z(index);
+            if (isOpen(world, snapshot, space, x, y, z))
+                open.set(index);
         }
 
-        set.forEach(pos ->
+        return open;
+    }
+
+    protected static boolean isOpen(MockWorld world, SelectionSnapshot snapshot, BitSet space, int x, int y, int z)
+    {
+        if (y <= 0)
+            return false;
+
+        int down = snapshot.index(x, y - 1, z);
+        if (space.get(down) || !snapshot.has(down, REPLACEABLE))
+            return false;
+
+        if (y >= 2)
         {
-            BlockPos down = pos.down();
-            BlockPos down2 = pos.down(2);
-            world.setBlockState(pos,
-                    pos.getY() > lowerPoint.getY() && !set.contains(down)
-                            && world.getBlockState(down).getBlock().isReplaceable(world, down) && world.getBlockState(down2).getBlock().isReplaceable(world, down2)
-                            && new BlockArea(pos.subtract(new Vec3i(2, 0, 2)), pos.add(new Vec3i(2, 0, 2))).stream().allMatch(set::contains)
-                            ? spaceBlock.getDefaultState().withProperty(BlockGenericSpace.TYPE, 1)
-                            : spaceBlock.getDefaultState()
-            );
-        });
+            if (!snapshot.has(snapshot.index(x, y - 2, z), REPLACEABLE))
+                return false;
+        }
+        else
+        {
+            BlockPos down2 = snapshot.pos(x, y - 2, z);
+            if (!world.getBlockState(down2).getBlock().isReplaceable(world, down2))
+                return false;
+        }
+
+        for (int sx = x - 2; sx <= x + 2; sx++)
+            for (int sz = z - 2; sz <= z + 2; sz++)
+                if (!snapshot.contains(sx, y, sz) || !space.get(snapshot.index(sx, y, sz)))
+                    return false;
+
+        return true;
     }
 
     @Override
@@ -0,0 +1,106 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.commands.former;
+
+import ivorius.ivtoolkit.blocks.BlockArea;
+import ivorius.ivtoolkit.world.MockWorld;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.function.ToIntBiFunction;
+
+/**
+ * Per-block flags of a selection, read from the world once, so formers can scan them as often as they like.
+ * Coordinates are relative to the selection's lower corner; x runs fastest, then z, then y.
+ */
+public class SelectionSnapshot
+{
+    public final BlockPos lower;
+    public final int width, height, length;
+
+    protected final byte[] flags;
+
+    protected SelectionSnapshot(BlockPos lower, int width, int height, int length)
+    {
+        this.lower = lower;
+        this.width = width;
+        this.height = height;
+        this.length = length;
+        this.flags = new byte[width * height * length];
+    }
+
+    /**
+     * @param flagger Returns the flags of a block; only the lowest 8 bits are kept.
+     */
+    public static SelectionSnapshot of(MockWorld world, BlockArea area, ToIntBiFunction<IBlockState, BlockPos> flagger)
+    {
+        BlockPos lower = area.getLowerCorner();
+        int[] size = area.areaSize();
+        SelectionSnapshot snapshot = new SelectionSnapshot(lower, size[0], size[1], size[2]);
+
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        int index = 0;
+        for (int y = 0; y < snapshot.height; y++)
+            for (int z = 0; z < snapshot.length; z++)
+                for (int x = 0; x < snapshot.width; x++)
+                {
+                    pos.setPos(lower.getX() + x, lower.getY() + y, lower.getZ() + z);
+                    snapshot.flags[index++] = (byte) flagger.applyAsInt(world.getBlockState(pos), pos);
+                }
+
+        return snapshot;
+    }
+
+    public int volume()
+    {
+        return flags.length;
+    }
+
+    public boolean contains(int x, int y, int z)
+    {
+        return x >= 0 && y >= 0 && z >= 0 && x < width && y < height && z < length;
+    }
+
+    public int index(int x, int y, int z)
+    {
+        return (y * length + z) * width + x;
+    }
+
+    public boolean has(int index, int flag)
+    {
+        return (flags[index] & flag) != 0;
+    }
+
+    public boolean has(int x, int y, int z, int flag)
+    {
+        return has(index(x, y, z), flag);
+    }
+
+    public int x(int index)
+    {
+        return index % width;
+    }
+
+    public int y(int index)
+    {
+        return index / (width * length);
+    }
+
+    public int z(int index)
+    {
+        return (index / width) % length;
+    }
+
+    public BlockPos pos(int x, int y, int z)
+    {
+        return lower.add(x, y, z);
+    }
+
+    public BlockPos pos(int index)
+    {
+        return pos(x(index), y(index), z(index));
+    }
+}
@@ -26,7 +26,7 @@ import net.minecraftforge.common.BiomeDictionary;
 import javax.annotation.Nonnull;
 import java.util.Arrays;
 import java.util.Collection;
-import java.util.List;
+import java.util.regex.Pattern;
 
 /**
  * Created by lukas on 03.08.14.
@@ -44,7 +44,7 @@ public class CommandBiomeDict extends CommandSplit
             {
                 Parameters parameters = Parameters.of(args, expect()::declare);
 
-                List<String> terms = parameters.get(0).varargsList().require();
+                Pattern terms = StructureSearch.queryPattern(parameters.get(0).varargsList().require());
 
                 CommandSearchStructure.postResultMessage("Biomes:", sender,
                         RCTextStyle::biome,
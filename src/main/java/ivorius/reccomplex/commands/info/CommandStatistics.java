@@ -0,0 +1,524 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.commands.info;
+
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import ivorius.ivtoolkit.blocks.BlockArea;
+import ivorius.ivtoolkit.blocks.IvBlockCollection;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.ivtoolkit.transform.PosTransformer;
+import ivorius.ivtoolkit.world.MockWorld;
+import ivorius.mcopts.commands.CommandSplit;
+import ivorius.mcopts.commands.SimpleCommand;
+import ivorius.mcopts.commands.parameters.NaP;
+import ivorius.mcopts.commands.parameters.MCP;
+import ivorius.mcopts.commands.parameters.Parameters;
+import ivorius.mcopts.commands.parameters.expect.MCE;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.capability.SelectionOwner;
+import ivorius.reccomplex.commands.RCCommands;
+import ivorius.reccomplex.commands.former.CommandNaturalFloor;
+import ivorius.reccomplex.commands.former.CommandNaturalSpace;
+import ivorius.reccomplex.commands.former.SelectionSnapshot;
+import ivorius.reccomplex.commands.parameters.RCP;
+import ivorius.reccomplex.commands.parameters.expect.RCE;
+import ivorius.reccomplex.nbt.NBTStorable;
+import ivorius.reccomplex.random.item.Book;
+import ivorius.reccomplex.utils.RollingHistogram;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
+import ivorius.reccomplex.world.gen.feature.StructureGenerator;
+import ivorius.reccomplex.world.gen.feature.WorldStructureGenerationData;
+import ivorius.reccomplex.world.gen.feature.sapling.RCSaplingGenerator;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.DecodedWorldData;
+import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
+import ivorius.reccomplex.world.gen.feature.structure.generic.StructureWorldDataCache;
+import ivorius.reccomplex.world.gen.feature.structure.generic.TransformedPalette;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.MazeSolver;
+import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.Transformer;
+import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.TransformerAbstractCloud;
+import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.TransformerMulti;
+import net.minecraft.command.CommandException;
+import net.minecraft.command.ICommandSender;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTBase;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.server.MinecraftServer;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.WorldServer;
+import org.apache.commons.lang3.tuple.Pair;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.function.Function;
+
+public class CommandStatistics extends CommandSplit
+{
+    public static final String DUMP_FILE_NAME = "reccomplex-worldgen-statistics.txt";
+    public static final int BOOK_BENCHMARK_COUNT = 100;
+    public static final int MAX_BOOK_BENCHMARK_COUNT = 10000;
+    public static final int FORMER_BENCHMARK_COUNT = 10;
+    public static final int MAX_FORMER_BENCHMARK_COUNT = 100;
+    public static final int SAPLING_BENCHMARK_COUNT = 1000;
+    public static final int MAX_SAPLING_BENCHMARK_COUNT = 10000;
+    public static final int CLOUD_BENCHMARK_COUNT = 100;
+    public static final int MAX_CLOUD_BENCHMARK_COUNT = 10000;
+    public static final int CLOUD_BUILD_BENCHMARK_COUNT = 10;
+    public static final int MAX_CLOUD_BUILD_BENCHMARK_COUNT = 100;
+    public static final int PALETTE_BENCHMARK_COUNT = 10;
+    public static final int MAX_PALETTE_BENCHMARK_COUNT = 1000;
+
+    public CommandStatistics()
+    {
+        super(RCConfig.commandPrefix + "stats");
+
+        add(new SimpleCommand("worlddata")
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                StructureWorldDataCache cache = StructureRegistry.INSTANCE.module(StructureWorldDataCache.class);
+
+                long hits = cache.hits(), misses = cache.misses();
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.worlddata",
+                        cache.size(), hits, misses, percent(hits, hits + misses), cache.memoryEstimate() / 1024));
+            }
+        });
+
+        add(new CommandSplit("worldgen",
+                new SimpleCommand("show")
+                {
+                    @Override
+                    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+                    {
+                        sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.worldgen.cascading",
+                                RCWorldgenMonitor.cascadingGenerations(), RCWorldgenMonitor.cascadingLoads()));
+                        sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.worldgen.children",
+                                RCWorldgenMonitor.complementedChildren(), RCWorldgenMonitor.skippedChildren()));
+
+                        for (RCWorldgenMonitor.Phase phase : RCWorldgenMonitor.Phase.values())
+                        {
+                            RollingHistogram.Snapshot snapshot = RCWorldgenMonitor.phase(phase);
+                            if (snapshot.count() > 0)
+                                sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.worldgen.phase",
+                                        phase.id, snapshot.count(), millis(snapshot.totalNanos()),
+                                        millis(snapshot.quantileNanos(0.5)), millis(snapshot.quantileNanos(0.99))));
+                        }
+
+                        for (Map.Entry<String, RCWorldgenMonitor.StructureStatistics> entry : RCWorldgenMonitor.mostExpensive(5))
+                        {
+                            RCWorldgenMonitor.StructureStatistics statistics = entry.getValue();
+                            sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.worldgen.structure",
+                                    entry.getKey(), millis(statistics.selfNanos.get()),
+                                    RCWorldgenMonitor.measuresAllocations()
+                                            ? RecurrentComplex.translations.format("commands.rcstats.worldgen.allocated", statistics.allocatedBytes.get() / (1024 * 1024))
+                                            : RecurrentComplex.translations.get("commands.rcstats.worldgen.allocated.unsupported"),
+                                    statistics.cascadingGenerations.get()));
+                        }
+                    }
+                },
+                new SimpleCommand("dump")
+                {
+                    @Override
+                    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+                    {
+                        File file = new File(RecurrentComplex.proxy.getDataDirectory(), DUMP_FILE_NAME);
+
+                        try
+                        {
+                            RCWorldgenMonitor.dump(file);
+                        }
+                        catch (IOException e)
+                        {
+                            RecurrentComplex.logger.error("Error dumping world generation statistics", e);
+                            throw RecurrentComplex.translations.commandException("commands.rcstats.worldgen.dump.failure", file.getName());
+                        }
+
+                        sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.worldgen.dump", file.getName()));
+                    }
+                },
+                new SimpleCommand("reset")
+                {
+                    @Override
+                    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+                    {
+                        RCWorldgenMonitor.reset();
+                        sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.worldgen.reset"));
+                    }
+                }
+        ));
+
+        add(new CommandSplit("mazes",
+                new SimpleCommand("show")
+                {
+                    @Override
+                    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+                    {
+                        sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.mazes",
+                                MazeSolver.busyThreads(), MazeSolver.maxThreads()));
+
+                        for (Map.Entry<String, MazeSolver.MazeStatistics> entry : MazeSolver.mostExpensive(5))
+                        {
+                            MazeSolver.MazeStatistics statistics = entry.getValue();
+                            RollingHistogram.Snapshot snapshot = statistics.solveTimes.snapshot();
+                            sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.mazes.maze",
+                                    entry.getKey(), snapshot.count(), millis(snapshot.quantileNanos(0.5)), millis(snapshot.quantileNanos(0.99)),
+                                    millis(snapshot.maxNanos()), statistics.reused.get(), statistics.timeouts.get(), statistics.failures.get()));
+                        }
+                    }
+                },
+                new SimpleCommand("reset")
+                {
+                    @Override
+                    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+                    {
+                        MazeSolver.resetStatistics();
+                        sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.mazes.reset"));
+                    }
+                }
+        ));
+
+        add(new SimpleCommand("books", expect -> expect.any(100, 1000, 10000).descriptionU("count"))
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                Parameters parameters = Parameters.of(args, expect()::declare);
+
+                int count = MathHelper.clamp(parameters.get(0).to(NaP::asInt).optional().orElse(BOOK_BENCHMARK_COUNT), 1, MAX_BOOK_BENCHMARK_COUNT);
+                Random random = new Random();
+
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++)
+                    Book.poem(random);
+                long nanos = System.nanoTime() - start;
+
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.books",
+                        count, millis(nanos), String.format("%.1f", count / (Math.max(1, nanos) / 1_000_000_000.0))));
+            }
+        });
+
+        add(new SimpleCommand("formers", expect -> expect.any(1, 10, 100).descriptionU("count"))
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                Parameters parameters = Parameters.of(args, expect()::declare);
+
+                SelectionOwner selectionOwner = RCCommands.getSelectionOwner(sender, null, true);
+                RCCommands.assertSize(sender, selectionOwner);
+                BlockArea area = selectionOwner.getSelection();
+                int[] size = area.areaSize();
+
+                int count = MathHelper.clamp(parameters.get(0).to(NaP::asInt).optional().orElse(FORMER_BENCHMARK_COUNT), 1, MAX_FORMER_BENCHMARK_COUNT);
+                MockWorld world = new MockWorld.Real(sender.getEntityWorld());
+
+                // Everything but writing the result, so the world stays as it is
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++)
+                {
+                    SelectionSnapshot snapshot = CommandNaturalSpace.snapshot(world, area);
+                    CommandNaturalSpace.findOpenSpace(world, snapshot, CommandNaturalSpace.findNaturalAir(snapshot, 1, 3));
+                }
+                long spaceNanos = System.nanoTime() - start;
+
+                start = System.nanoTime();
+                for (int i = 0; i < count; i++)
+                    CommandNaturalFloor.findNaturalFloor(CommandNaturalFloor.snapshot(world, area), 1);
+                long floorNanos = System.nanoTime() - start;
+
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.formers",
+                        (long) size[0] * size[1] * size[2], count, millis(spaceNanos / count), millis(floorNanos / count)));
+            }
+        });
+
+        add(new SimpleCommand("saplings", expect -> expect.then(MCE.pos("x", "y", "z"))
+                .named("count", "c").any("100", "1000", "10000"))
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                Parameters parameters = Parameters.of(args, expect()::declare);
+
+                BlockPos pos = parameters.get(MCP.pos("x", "y", "z", sender.getPosition(), false)).require();
+                int count = MathHelper.clamp(parameters.get("count").to(NaP::asInt).optional().orElse(SAPLING_BENCHMARK_COUNT), 1, MAX_SAPLING_BENCHMARK_COUNT);
+                WorldServer world = server.getWorld(sender.getEntityWorld().provider.getDimension());
+                Random random = new Random();
+
+                // Only the lookup; growing would replace the sapling
+                int found = 0;
+                long start = System.nanoTime();
+                for (int i = 0; i < count; i++)
+                {
+                    if (RCSaplingGenerator.findRandomSapling(world, pos, random, true) != null)
+                        found++;
+                }
+                long nanos = System.nanoTime() - start;
+
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.saplings",
+                        count, millis(nanos), String.format("%.1f", count / (Math.max(1, nanos) / 1_000_000_000.0)), found));
+            }
+        });
+
+        add(new CommandSplit("clouds",
+                new SimpleCommand("saved", expect -> expect.any(10, 100, 1000).descriptionU("count"))
+                {
+                    @Override
+                    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+                    {
+                        Parameters parameters = Parameters.of(args, expect()::declare);
+
+                        int count = MathHelper.clamp(parameters.get(0).to(NaP::asInt).optional().orElse(CLOUD_BENCHMARK_COUNT), 1, MAX_CLOUD_BENCHMARK_COUNT);
+                        WorldServer world = server.getWorld(sender.getEntityWorld().provider.getDimension());
+
+                        List<TransformerAbstractCloud.InstanceData> clouds = savedClouds(world, count);
+                        if (clouds.isEmpty())
+                            throw RecurrentComplex.translations.commandException("commands.rcstats.clouds.saved.none");
+
+                        long blocks = clouds.stream().mapToLong(cloud -> cloud.cloud.size()).sum();
+                        long[] packed = benchmarkCloudFormat(clouds, TransformerAbstractCloud.InstanceData::writeToNBT);
+                        long[] legacy = benchmarkCloudFormat(clouds, cloud -> cloud.writeLegacy(new NBTTagCompound()));
+
+                        sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.clouds.saved",
+                                clouds.size(), blocks,
+                                packed[0] / 1024, millis(packed[1]), millis(packed[2]),
+                                legacy[0] / 1024, millis(legacy[1]), millis(legacy[2])));
+                    }
+                },
+                new SimpleCommand("build", expect -> expect.then(RCE::structure).required().then(MCE.pos("x", "y", "z"))
+                        .named("count", "c").any("1", "10", "100"))
+                {
+                    @Override
+                    public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+                    {
+                        Parameters parameters = Parameters.of(args, expect()::declare);
+
+                        String structureID = parameters.get(0).require();
+                        GenericStructure structure = parameters.get(0).to(p -> RCP.genericStructure(p, false)).require();
+                        BlockPos pos = parameters.get(MCP.pos("x", "y", "z", sender.getPosition(), false)).require();
+                        int count = MathHelper.clamp(parameters.get("count").to(NaP::asInt).optional().orElse(CLOUD_BUILD_BENCHMARK_COUNT), 1, MAX_CLOUD_BUILD_BENCHMARK_COUNT);
+                        WorldServer world = server.getWorld(sender.getEntityWorld().provider.getDimension());
+                        Random random = new Random();
+
+                        // Preparing builds every cloud of the structure, but doesn't touch the world
+                        long blocks = 0;
+                        long allocated = RCWorldgenMonitor.allocatedBytes();
+                        long start = System.nanoTime();
+                        for (int i = 0; i < count; i++)
+                        {
+                            List<TransformerAbstractCloud.InstanceData> clouds = new ArrayList<>();
+                            new StructureGenerator<>(structure).world(world).structureID(structureID)
+                                    .seed(random.nextLong()).lowerCoord(pos).instanceData()
+                                    .ifPresent(instanceData ->
+                                    {
+                                        collectClouds(instanceData.transformerData, clouds);
+                                        collectClouds(instanceData.foreignTransformerData, clouds);
+                                    });
+                            blocks += clouds.stream().mapToLong(cloud -> cloud.cloud.size()).sum();
+                        }
+                        long nanos = System.nanoTime() - start;
+                        allocated = RCWorldgenMonitor.allocatedBytes() - allocated;
+
+                        int[] size = structure.size();
+                        sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.clouds.build",
+                                structureID, size[0], size[1], size[2], count, millis(nanos / count), blocks / count,
+                                RCWorldgenMonitor.measuresAllocations()
+                                        ? RecurrentComplex.translations.format("commands.rcstats.worldgen.allocated", allocated / count / (1024 * 1024))
+                                        : RecurrentComplex.translations.get("commands.rcstats.worldgen.allocated.unsupported")));
+                    }
+                }
+        ));
+
+        add(new SimpleCommand("palettes", expect -> expect.then(RCE::structure).required()
+                .named("count", "c").any("1", "10", "100"))
+        {
+            @Override
+            public void execute(MinecraftServer server, ICommandSender sender, String[] args) throws CommandException
+            {
+                Parameters parameters = Parameters.of(args, expect()::declare);
+
+                String structureID = parameters.get(0).require();
+                GenericStructure structure = parameters.get(0).to(p -> RCP.genericStructure(p, false)).require();
+                int count = MathHelper.clamp(parameters.get("count").to(NaP::asInt).optional().orElse(PALETTE_BENCHMARK_COUNT), 1, MAX_PALETTE_BENCHMARK_COUNT);
+
+                DecodedWorldData decoded = structure.decodedWorldData();
+
+                // What the placement loop does per block, without placing: Once per block and pass before, from a
+                // freshly built palette now, in all 8 transforms
+                long blocks = 0, perBlockNanos = 0, paletteNanos = 0;
+                for (int i = 0; i < count; i++)
+                {
+                    for (int rotation = 0; rotation < 4; rotation++)
+                    {
+                        for (boolean mirror : new boolean[]{false, true})
+                        {
+                            AxisAlignedTransform2D transform = AxisAlignedTransform2D.from(rotation, mirror);
+
+                            long start = System.nanoTime();
+                            long perBlock = classifyPerBlock(decoded.worldData.blockCollection, transform);
+                            perBlockNanos += System.nanoTime() - start;
+
+                            start = System.nanoTime();
+                            long palette = classifyByPalette(decoded, transform);
+                            paletteNanos += System.nanoTime() - start;
+
+                            if (perBlock != palette)
+                                RecurrentComplex.logger.warn(String.format("Palette of %s classifies %d blocks, per block %d", structureID, palette, perBlock));
+                            blocks = palette;
+                        }
+                    }
+                }
+
+                int placements = count * 8;
+                sender.sendMessage(RecurrentComplex.translations.format("commands.rcstats.palettes",
+                        structureID, blocks, decoded.palette.length, placements,
+                        millis(perBlockNanos / placements), millis(paletteNanos / placements)));
+            }
+        });
+
+        permitFor(2);
+    }
+
+    /**
+     * @return The number of blocks classified into a pass, transforming each block's state in every pass.
+     */
+    public static long classifyPerBlock(IvBlockCollection blockCollection, AxisAlignedTransform2D transform)
+    {
+        long classified = 0;
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+        for (int pass = 0; pass < TransformedPalette.PASSES; pass++)
+        {
+            for (int x = 0; x < blockCollection.width; x++)
+                for (int y = 0; y < blockCollection.height; y++)
+                    for (int z = 0; z < blockCollection.length; z++)
+                    {
+                        if (TransformedPalette.pass(PosTransformer.transformBlockState(blockCollection.getBlockState(pos.setPos(x, y, z)), transform)) == pass)
+                            classified++;
+                    }
+        }
+
+        return classified;
+    }
+
+    /**
+     * @return The number of blocks classified into a pass, going by a newly transformed palette.
+     */
+    public static long classifyByPalette(DecodedWorldData decoded, AxisAlignedTransform2D transform)
+    {
+        TransformedPalette palette = TransformedPalette.transform(decoded, transform);
+        long classified = palette.laterIndices.length;
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+        for (int x = 0; x < decoded.width; x++)
+            for (int y = 0; y < decoded.height; y++)
+                for (int z = 0; z < decoded.length; z++)
+                {
+                    if (palette.passes[decoded.paletteIndex(pos.setPos(x, y, z))] == 0)
+                        classified++;
+                }
+
+        return classified;
+    }
+
+    /**
+     * @return The clouds saved with the first structure entries of the world, as they are read for complementing.
+     */
+    public static List<TransformerAbstractCloud.InstanceData> savedClouds(WorldServer world, int entries)
+    {
+        List<TransformerAbstractCloud.InstanceData> clouds = new ArrayList<>();
+
+        for (WorldStructureGenerationData.StructureEntry entry : WorldStructureGenerationData.get(world).structureEntries())
+        {
+            Structure<?> structure = StructureRegistry.INSTANCE.get(entry.getStructureID());
+            if (structure == null || entry.getInstanceData() == null)
+                continue;
+
+            if (entries-- <= 0)
+                break;
+
+            new StructureGenerator<>(structure).world(world).structureID(entry.getStructureID())
+                    .boundingBox(entry.getBoundingBox()).transform(entry.getTransform())
+                    .instanceData(entry.getInstanceData()).instanceData()
+                    .filter(GenericStructure.InstanceData.class::isInstance)
+                    .map(GenericStructure.InstanceData.class::cast)
+                    .ifPresent(instanceData ->
+                    {
+                        collectClouds(instanceData.transformerData, clouds);
+                        collectClouds(instanceData.foreignTransformerData, clouds);
+                    });
+        }
+
+        return clouds;
+    }
+
+    protected static void collectClouds(TransformerMulti.InstanceData instanceData, List<TransformerAbstractCloud.InstanceData> clouds)
+    {
+        if (instanceData == null)
+            return;
+
+        for (Pair<Transformer, NBTStorable> pair : instanceData.pairedTransformers)
+        {
+            if (pair.getRight() instanceof TransformerAbstractCloud.InstanceData)
+                clouds.add((TransformerAbstractCloud.InstanceData) pair.getRight());
+            else if (pair.getRight() instanceof TransformerMulti.InstanceData)
+                collectClouds((TransformerMulti.InstanceData) pair.getRight(), clouds);
+        }
+    }
+
+    /**
+     * @return {NBT bytes, write nanos, read nanos} of writing all clouds with the given format and reading them back.
+     */
+    public static long[] benchmarkCloudFormat(List<TransformerAbstractCloud.InstanceData> clouds, Function<TransformerAbstractCloud.InstanceData, NBTBase> write) throws CommandException
+    {
+        long bytes = 0, writeNanos = 0, readNanos = 0;
+
+        for (TransformerAbstractCloud.InstanceData cloud : clouds)
+        {
+            long start = System.nanoTime();
+            NBTBase nbt = write.apply(cloud);
+            writeNanos += System.nanoTime() - start;
+
+            start = System.nanoTime();
+            new TransformerAbstractCloud.InstanceData().readFromNBT(nbt);
+            readNanos += System.nanoTime() - start;
+
+            NBTTagCompound compound = new NBTTagCompound();
+            compound.setTag("cloud", nbt);
+            CountingOutputStream counter = new CountingOutputStream(ByteStreams.nullOutputStream());
+            try
+            {
+                CompressedStreamTools.write(compound, new DataOutputStream(counter));
+            }
+            catch (IOException e)
+            {
+                throw new CommandException(e.getMessage());
+            }
+            bytes += counter.getCount();
+        }
+
+        return new long[]{bytes, writeNanos, readNanos};
+    }
+
+    public static String millis(long nanos)
+    {
+        return String.format("%.1f", RCWorldgenMonitor.millis(nanos));
+    }
+
+    public static String percent(long part, long total)
+    {
+        return total > 0 ? String.format("%.1f%%", part * 100.0 / total) : "-";
+    }
+}
@@ -9,6 +9,7 @@ import ivorius.ivtoolkit.util.IvStreams;
 import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.mcopts.commands.CommandExpecting;
+import ivorius.mcopts.commands.CommandSplit;
 import ivorius.mcopts.commands.parameters.*;
 import ivorius.mcopts.commands.parameters.expect.Expect;
 import ivorius.mcopts.commands.parameters.expect.MCE;
@@ -16,8 +17,7 @@ import ivorius.reccomplex.commands.parameters.expect.RCE;
 import ivorius.reccomplex.commands.parameters.RCP;
 import ivorius.reccomplex.files.RCFiles;
 import ivorius.reccomplex.files.loading.FileSuffixFilter;
-import ivorius.reccomplex.world.gen.feature.WorldGenStructures;
-import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.WorldRetrogenData;
 import net.minecraft.command.CommandException;
 import net.minecraft.command.ICommandSender;
 import net.minecraft.server.MinecraftServer;
@@ -25,20 +25,20 @@ import net.minecraft.util.math.ChunkPos;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.chunk.storage.RegionFileCache;
+import org.apache.commons.lang3.time.DurationFormatUtils;
 import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nonnull;
 import java.io.File;
 import java.util.Arrays;
 import java.util.Random;
-import java.util.function.Predicate;
 import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 /**
  * Created by lukas on 25.05.14.
  */
-public class CommandRetrogen extends CommandExpecting
+public class CommandRetrogen extends CommandSplit
 {
     public static Stream<Pair<Integer, Integer>> existingRegions(File worldDir)
     {
@@ -77,43 +77,117 @@ public class CommandRetrogen extends CommandExpecting
         return world.setRandomSeed(pos.x, pos.z, 0xDEADBEEF);
     }
 
-    public static long retrogen(WorldServer world, Predicate<Structure> structurePredicate)
+    public static String formatDuration(long millis)
     {
-        return existingChunks(world)
-                .filter(pos -> world.getChunkFromChunkCoords(pos.x, pos.z).isTerrainPopulated())
-                .filter(pos -> WorldGenStructures.decorate(world, getRandom(world, pos), pos, structurePredicate))
-                .count();
+        return millis >= 0 ? DurationFormatUtils.formatDuration(millis, "H:mm:ss") : "?";
     }
 
-    @Override
-    public String getName()
+    public CommandRetrogen()
     {
-        return RCConfig.commandPrefix + "retro";
-    }
-
-    public int getRequiredPermissionLevel()
-    {
-        return 2;
-    }
-
-    @Override
-    public void expect(Expect expect)
-    {
-        expect
-                .named("exp").words(RCE::structurePredicate).descriptionU("resource expression: only generate these structures")
-                .named("dimension", "d").then(MCE::dimension);
-    }
-
-    @Override
-    public void execute(MinecraftServer server, ICommandSender commandSender, String[] args) throws CommandException
-    {
-        Parameters parameters = Parameters.of(args, expect()::declare);
-
-        Predicate<Structure> structurePredicate = parameters.get("exp").to(RCP::structurePredicate).optional().orElse(null);
-        WorldServer world = parameters.get("dimension").to(MCP.dimension(server, commandSender)).require();
-
-        long count = retrogen(world, structurePredicate);
-
-        commandSender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.count", String.valueOf(count)));
+        super(RCConfig.commandPrefix + "retro");
+
+        add(new CommandExpecting()
+        {
+            @Override
+            public String getName()
+            {
+                return "start";
+            }
+
+            @Override
+            public void expect(Expect expect)
+            {
+                expect
+                        .named("exp").words(RCE::structurePredicate).descriptionU("resource expression: only generate these structures")
+                        .named("dimension", "d").then(MCE::dimension);
+            }
+
+            @Override
+            public void execute(MinecraftServer server, ICommandSender commandSender, String[] args) throws CommandException
+            {
+                Parameters parameters = Parameters.of(args, expect()::declare);
+
+                // Validate, but keep the expression itself to resume with
+                parameters.get("exp").to(RCP::structurePredicate).optional();
+                String expression = parameters.get("exp").optional().orElse(null);
+                WorldServer world = parameters.get("dimension").to(MCP.dimension(server, commandSender)).require();
+
+                WorldRetrogenData data = WorldRetrogenData.get(world);
+                if (data.isRunning())
+                    throw RecurrentComplex.translations.commandException("commands.rcretro.running", world.provider.getDimension());
+
+                data.start(world, expression);
+
+                commandSender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.start",
+                        String.valueOf(data.regionCount()), world.provider.getDimension()));
+            }
+        });
+
+        add(new CommandExpecting()
+        {
+            @Override
+            public String getName()
+            {
+                return "status";
+            }
+
+            @Override
+            public void expect(Expect expect)
+            {
+                expect.named("dimension", "d").then(MCE::dimension);
+            }
+
+            @Override
+            public void execute(MinecraftServer server, ICommandSender commandSender, String[] args) throws CommandException
+            {
+                Parameters parameters = Parameters.of(args, expect()::declare);
+                WorldServer world = parameters.get("dimension").to(MCP.dimension(server, commandSender)).require();
+
+                WorldRetrogenData data = WorldRetrogenData.get(world);
+                if (!data.isRunning())
+                {
+                    commandSender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.idle", world.provider.getDimension()));
+                    return;
+                }
+
+                commandSender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.status",
+                        world.provider.getDimension(), data.regionIndex() + 1, data.regionCount(),
+                        String.valueOf(data.chunksChecked()), String.valueOf(data.chunksGenerated()),
+                        String.format("%.1f", data.chunksPerSecond()), formatDuration(data.remainingMillis())));
+            }
+        });
+
+        add(new CommandExpecting()
+        {
+            @Override
+            public String getName()
+            {
+                return "stop";
+            }
+
+            @Override
+            public void expect(Expect expect)
+            {
+                expect.named("dimension", "d").then(MCE::dimension);
+            }
+
+            @Override
+            public void execute(MinecraftServer server, ICommandSender commandSender, String[] args) throws CommandException
+            {
+                Parameters parameters = Parameters.of(args, expect()::declare);
+                WorldServer world = parameters.get("dimension").to(MCP.dimension(server, commandSender)).require();
+
+                WorldRetrogenData data = WorldRetrogenData.get(world);
+                if (!data.isRunning())
+                    throw RecurrentComplex.translations.commandException("commands.rcretro.idle", world.provider.getDimension());
+
+                data.stop();
+
+                commandSender.sendMessage(RecurrentComplex.translations.format("commands.rcretro.stop",
+                        String.valueOf(data.chunksChecked()), world.provider.getDimension()));
+            }
+        });
+
+        permitFor(2);
     }
 }
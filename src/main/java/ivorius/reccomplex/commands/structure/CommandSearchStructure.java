@@ -6,6 +6,8 @@
 package ivorius.reccomplex.commands.structure;
 
 import com.google.common.primitives.Doubles;
+import gnu.trove.map.TObjectDoubleMap;
+import gnu.trove.map.hash.TObjectDoubleHashMap;
 import ivorius.mcopts.commands.CommandExpecting;
 import ivorius.mcopts.commands.parameters.MCP;
 import ivorius.mcopts.commands.parameters.Parameter;
@@ -33,7 +35,6 @@ import java.util.*;
 import java.util.function.Function;
 import java.util.function.ToDoubleBiFunction;
 import java.util.function.ToDoubleFunction;
-import java.util.stream.Collectors;
 
 /**
  * Created by lukas on 25.05.14.
@@ -67,8 +68,17 @@ public class CommandSearchStructure extends CommandExpecting
     @Nonnull
     public static <T> PriorityQueue<T> search(Set<T> omega, ToDoubleFunction<T> rank)
     {
-        PriorityQueue<T> strucs = new PriorityQueue<>(10, (o1, o2) -> Doubles.compare(rank.applyAsDouble(o1), rank.applyAsDouble(o2)));
-        strucs.addAll(omega.stream().filter(s -> rank.applyAsDouble(s) > 0).collect(Collectors.toList()));
+        // Rank everything just once; the queue compares a lot
+        TObjectDoubleMap<T> ranks = new TObjectDoubleHashMap<>(omega.size());
+        for (T t : omega)
+        {
+            double r = rank.applyAsDouble(t);
+            if (r > 0)
+                ranks.put(t, r);
+        }
+
+        PriorityQueue<T> strucs = new PriorityQueue<>(10, (o1, o2) -> Doubles.compare(ranks.get(o1), ranks.get(o2)));
+        strucs.addAll(ranks.keySet());
         return strucs;
     }
 
@@ -123,8 +133,8 @@ public class CommandSearchStructure extends CommandExpecting
 
         List<ToDoubleFunction<String>> ranks = new ArrayList<>();
 
-        consider(ranks, parameters.get(0), Parameter::varargsList,
-                (s, t) -> StructureSearch.searchRank(t, StructureSearch.keywords(StructureRegistry.INSTANCE.id(s), s)));
+        consider(ranks, parameters.get(0), p -> p.varargsList().map(StructureSearch::queryPattern),
+                StructureSearch::terms);
 
         consider(ranks, parameters.get("containing"),
                 e -> RCP.expression(e, new BlockExpression(RecurrentComplex.specialRegistry)),
@@ -7,10 +7,10 @@ package ivorius.reccomplex.commands.structure;
 
 import com.google.common.base.Predicates;
 import com.google.common.collect.Lists;
-import ivorius.ivtoolkit.blocks.IvBlockCollection;
 import ivorius.reccomplex.utils.expression.BlockExpression;
 import ivorius.reccomplex.world.gen.feature.selector.StructureSelector;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.structure.StructureContentIndex;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
 import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
 import ivorius.reccomplex.world.gen.feature.structure.generic.Metadata;
@@ -60,9 +60,25 @@ public class StructureSearch
         collection.add(metadata.weblink);
     }
 
+    @Nonnull
+    public static Pattern queryPattern(List<String> query)
+    {
+        return Pattern.compile(String.join("|", Lists.transform(query, Pattern::quote)), Pattern.CASE_INSENSITIVE);
+    }
+
     public static double searchRank(List<String> query, Collection<String> keywords)
     {
-        return keywords.stream().filter(Predicates.contains(Pattern.compile(String.join("|", Lists.transform(query, Pattern::quote)), Pattern.CASE_INSENSITIVE))::apply).count();
+        return searchRank(queryPattern(query), keywords);
+    }
+
+    public static double searchRank(Pattern query, Collection<String> keywords)
+    {
+        return keywords.stream().filter(Predicates.contains(query)::apply).count();
+    }
+
+    public static double terms(Structure<?> structure, Pattern query)
+    {
+        return searchRank(query, StructureContentIndex.get(structure).keywords(StructureRegistry.INSTANCE.id(structure), structure));
     }
 
     public static double biome(Structure<?> structure, Biome biome)
@@ -121,12 +137,8 @@ public class StructureSearch
         if (structure == null)
             return 0;
 
-        IvBlockCollection collection = structure.blockCollection();
-
-        if (collection == null)
-            return 0;
-
-        return collection.area().stream()
-                .anyMatch(p -> matcher.evaluate(collection.getBlockState(p))) ? 1 : 0;
+        // Every state once, rather than every block
+        return StructureContentIndex.get(structure).states.keySet().stream()
+                .anyMatch(matcher::evaluate) ? 1 : 0;
     }
 }
@@ -68,7 +68,8 @@ public class CommandSightCheck extends CommandExpecting
 
         BlockPos pos = parameters.get(0).to(MCP.pos(sender.getPosition(), false)).require();
 
-        List<ITextComponent> names = WorldStructureGenerationData.get(world).entriesAt(pos)
+        WorldStructureGenerationData data = WorldStructureGenerationData.get(world);
+        List<ITextComponent> names = data.entriesAt(pos)
                 .map(RCTextStyle::sight)
                 .collect(Collectors.toCollection(ArrayList::new));
 
@@ -76,6 +77,10 @@ public class CommandSightCheck extends CommandExpecting
             names.addAll(CommandVanilla.sightNames(world, pos));
 
         sender.sendMessage(list(names));
+
+        int unmemorized = data.unmemorizedCountAt(pos);
+        if (unmemorized > 0)
+            sender.sendMessage(RecurrentComplex.translations.format("commands.whatisthis.unmemorized", unmemorized));
     }
 
     @Override
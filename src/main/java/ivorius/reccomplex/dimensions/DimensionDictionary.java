@@ -4,6 +4,7 @@ import gnu.trove.map.TIntObjectMap;
 import gnu.trove.map.hash.TIntObjectHashMap;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import net.minecraft.world.WorldProvider;
 
@@ -100,6 +101,8 @@ public class DimensionDictionary
     private static final TIntObjectMap<Set<String>> dimensionTypes = new TIntObjectHashMap<>();
     private static final Map<String, Type> types = new HashMap<>();
 
+    private static final AtomicInteger generation = new AtomicInteger();
+
     private static final Set<String> SET_UNCATEGORIZED = Collections.singleton(UNCATEGORIZED);
 
     static
@@ -131,6 +134,7 @@ public class DimensionDictionary
         dTypes.addAll(types);
 
         types.forEach(DimensionDictionary::registerType);
+        generation.incrementAndGet();
     }
 
     /**
@@ -149,6 +153,8 @@ public class DimensionDictionary
                 dTypes.clear();
             else
                 dTypes.removeAll(types);
+
+            generation.incrementAndGet();
         }
     }
 
@@ -160,7 +166,10 @@ public class DimensionDictionary
     public static void registerType(String type)
     {
         if (!types.containsKey(type))
+        {
             types.put(type, new Type());
+            generation.incrementAndGet();
+        }
     }
 
     /**
@@ -186,6 +195,8 @@ public class DimensionDictionary
 
         for (String sub : subtypes)
             registerGetType(sub).supertypes.add(type);
+
+        generation.incrementAndGet();
     }
 
     /**
@@ -201,6 +212,8 @@ public class DimensionDictionary
 
         for (String supertype : supertypes)
             registerGetType(supertype).subtypes.add(type);
+
+        generation.incrementAndGet();
     }
 
     /**
@@ -297,6 +310,17 @@ public class DimensionDictionary
         return Collections.unmodifiableSet(types.keySet());
     }
 
+    /**
+     * Returns a number that changes whenever any registration changes, for caching what dimensions match.
+     * Dimensions implementing {@link Handler} are not covered by this.
+     *
+     * @return The current generation of the dictionary.
+     */
+    public static int generation()
+    {
+        return generation.get();
+    }
+
     private static Type registerGetType(String type)
     {
         registerType(type);
@@ -17,8 +17,10 @@ import ivorius.reccomplex.commands.RCCommands;
 import ivorius.reccomplex.events.ItemGenerationEvent;
 import ivorius.reccomplex.gui.GuiHider;
 import ivorius.reccomplex.item.ItemInputHandler;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
 import ivorius.reccomplex.world.gen.feature.WorldGenStructures;
 import ivorius.reccomplex.world.gen.feature.WorldRandomData;
+import ivorius.reccomplex.world.gen.feature.WorldRetrogenData;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
 import ivorius.reccomplex.world.storage.loot.LootTable;
 import ivorius.reccomplex.world.storage.loot.WeightedItemCollectionRegistry;
@@ -54,6 +56,8 @@ import net.minecraftforge.event.CommandEvent;
 import net.minecraftforge.event.RegistryEvent;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
 import net.minecraftforge.event.terraingen.PopulateChunkEvent;
+import net.minecraftforge.event.world.ChunkDataEvent;
+import net.minecraftforge.event.world.ChunkEvent;
 import net.minecraftforge.fml.client.event.ConfigChangedEvent;
 import net.minecraftforge.fml.common.FMLCommonHandler;
 import net.minecraftforge.fml.common.eventhandler.SubscribeEvent;
@@ -85,6 +89,20 @@ public class RCForgeEventHandler
         WorldGenStructures.decorate((WorldServer) event.getWorld(), event.getRand(), new ChunkPos(event.getChunkX(), event.getChunkZ()), null);
     }
 
+    @SubscribeEvent
+    public void onChunkRead(ChunkDataEvent.Load event)
+    {
+        if (!event.getWorld().isRemote)
+            RCWorldgenMonitor.onChunkRead(event.getChunk());
+    }
+
+    @SubscribeEvent
+    public void onChunkLoad(ChunkEvent.Load event)
+    {
+        if (!event.getWorld().isRemote)
+            RCWorldgenMonitor.onChunkLoad(event.getChunk());
+    }
+
     @SubscribeEvent
     public void onEntityDrop(EntityJoinWorldEvent event)
     {
@@ -186,6 +204,13 @@ public class RCForgeEventHandler
         }
     }
 
+    @SubscribeEvent
+    public void onWorldTick(TickEvent.WorldTickEvent event)
+    {
+        if (event.phase == TickEvent.Phase.END && event.world instanceof WorldServer)
+            WorldRetrogenData.get((WorldServer) event.world).update((WorldServer) event.world);
+    }
+
     @SubscribeEvent
     public void onConfigChanged(ConfigChangedEvent event)
     {
@@ -86,6 +86,13 @@ public class SimpleLeveledRegistry<S> implements LeveledRegistry<S>
         return items.getMap().get(id);
     }
 
+    @Override
+    @Nullable
+    public S get(String id, ILevel level)
+    {
+        return items.getMap(level.getLevel()).get(id);
+    }
+
     @Override
     public Status status(String id)
     {
@@ -161,6 +168,7 @@ public class SimpleLeveledRegistry<S> implements LeveledRegistry<S>
         invalidateActiveCache();
         items.clear(level.getLevel());
         stati.clear(level.getLevel());
+        invalidateCaches();
     }
 
     private void ensureActiveCache()
@@ -13,11 +13,13 @@ import org.apache.commons.io.FilenameUtils;
 
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
-import java.util.Set;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * Created by lukas on 18.09.15.
@@ -26,6 +28,11 @@ public class FileLoader extends FileHandler
 {
     private final Map<String, FileLoaderAdapter> adapters = new HashMap<>();
 
+    private final Map<LeveledRegistry.Level, Map<String, LoadedFile>> loadedFiles = new EnumMap<>(LeveledRegistry.Level.class);
+    private final Map<LeveledRegistry.Level, Map<String, LoadedFile>> reloadingFiles = new EnumMap<>(LeveledRegistry.Level.class);
+
+    private ExecutorService executor;
+
     protected static String defaultName(Path path, String customID)
     {
         return customID != null ? customID : FilenameUtils.getBaseName(path.getFileName().toString());
@@ -64,11 +71,68 @@ public class FileLoader extends FileHandler
     public void clearFiles(LeveledRegistry.Level level)
     {
         adapters.values().forEach(h -> h.clearFiles(level));
+        loadedFiles.remove(level);
     }
 
     public void clearFiles(Collection<String> suffices, LeveledRegistry.Level level)
     {
         adapters.entrySet().stream().filter(entry -> suffices.contains(entry.getKey())).forEach(entry -> entry.getValue().clearFiles(level));
+
+        Map<String, LoadedFile> loaded = loadedFiles.get(level);
+        if (loaded != null)
+            loaded.values().removeIf(file -> suffices.contains(file.suffix));
+    }
+
+    // --------------- Reloading
+
+    /**
+     * Starts reloading a level. Until {@link #endReload(LeveledRegistry.Level)}, files of the level that were loaded
+     * before and haven't changed since are kept as they are instead of being read again.
+     */
+    public void beginReload(LeveledRegistry.Level level)
+    {
+        reloadingFiles.put(level, new HashMap<>());
+    }
+
+    /**
+     * Unloads all files of the level that were loaded before, but not anymore since {@link #beginReload(LeveledRegistry.Level)}.
+     */
+    public void endReload(LeveledRegistry.Level level)
+    {
+        Map<String, LoadedFile> reloaded = reloadingFiles.remove(level);
+        if (reloaded == null)
+            return;
+
+        Map<String, LoadedFile> previous = loadedFiles.put(level, reloaded);
+        if (previous == null)
+            return;
+
+        Set<String> stillLoaded = reloaded.values().stream().map(file -> file.suffix + ":" + file.id).collect(Collectors.toSet());
+
+        for (Map.Entry<String, LoadedFile> entry : previous.entrySet())
+        {
+            LoadedFile file = entry.getValue();
+            FileLoaderAdapter adapter = get(file.suffix);
+
+            if (!reloaded.containsKey(entry.getKey()) && adapter != null && !stillLoaded.contains(file.suffix + ":" + file.id))
+                adapter.unloadFile(file.id, level);
+        }
+    }
+
+    protected synchronized ExecutorService executor()
+    {
+        if (executor == null)
+        {
+            AtomicInteger count = new AtomicInteger();
+            executor = Executors.newFixedThreadPool(Math.max(1, Runtime.getRuntime().availableProcessors()), r ->
+            {
+                Thread thread = new Thread(r, "ReC File Loader #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        return executor;
     }
 
     // --------------- Loading
@@ -92,19 +156,38 @@ public class FileLoader extends FileHandler
         return tryLoadAll(path, context, keySet());
     }
 
+    /**
+     * Loads all files in the directory. Adapters that allow it read their files on worker threads, but all files are
+     * registered on this thread, in the order they were found.
+     */
     @ParametersAreNonnullByDefault
     public int tryLoadAll(Path path, FileLoadContext context, Collection<String> suffices)
     {
-        int[] added = new int[1];
+        List<Path> files = RCFiles.listFilesRecursively(path, new FileSuffixFilter(suffices), true);
+        List<Future<FileLoaderAdapter.Loading>> loadings = new ArrayList<>(files.size());
 
-        RCFiles.walkFilesRecursively(path, new FileSuffixFilter(suffices), true,
-                file ->
-                {
-                    tryLoad(file, null, context);
-                    added[0]++;
-                });
+        for (Path file : files)
+            loadings.add(prepare(file, null, context));
+
+        for (int i = 0; i < files.size(); i++)
+        {
+            Path file = files.get(i);
 
-        return added[0];
+            try
+            {
+                finish(file, null, context, loadings.get(i).get());
+            }
+            catch (ExecutionException e)
+            {
+                logLoadError(file, e.getCause());
+            }
+            catch (Exception e)
+            {
+                logLoadError(file, e);
+            }
+        }
+
+        return files.size();
     }
 
     @ParametersAreNonnullByDefault
@@ -147,24 +230,150 @@ public class FileLoader extends FileHandler
         {
             return load(path, customID, context);
         }
-        catch (UnsupportedOperationException e)
-        {
-            RecurrentComplex.logger.error(String.format("Reading unsupported: ?.%s", RCFiles.extension(path)), e);
-        }
         catch (Exception e)
         {
-            RecurrentComplex.logger.error("Error loading resource: " + path, e);
+            logLoadError(path, e);
         }
 
         return false;
     }
 
+    protected static void logLoadError(Path path, Throwable e)
+    {
+        if (e instanceof UnsupportedOperationException)
+            RecurrentComplex.logger.error(String.format("Reading unsupported: ?.%s", RCFiles.extension(path)), e);
+        else
+            RecurrentComplex.logger.error("Error loading resource: " + path, e);
+    }
+
     @ParametersAreNonnullByDefault
     public boolean load(Path path, @Nullable String customID, FileLoadContext context) throws Exception
     {
-        FileLoaderAdapter handler = get(RCFiles.extension(path));
+        FileLoaderAdapter.Loading loading;
+
+        try
+        {
+            loading = prepare(path, customID, context).get();
+        }
+        catch (ExecutionException e)
+        {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+
+        return finish(path, customID, context, loading);
+    }
+
+    /**
+     * @return The loading, to be finished in file order; null if the file can't be loaded or didn't change.
+     */
+    @ParametersAreNonnullByDefault
+    protected Future<FileLoaderAdapter.Loading> prepare(Path path, @Nullable String customID, FileLoadContext context)
+    {
+        FileLoaderAdapter adapter = get(RCFiles.extension(path));
         String id = defaultName(path, customID);
 
-        return handler != null && handler.loadFile(path, id, context);
+        if (adapter == null)
+            return CompletableFuture.completedFuture(null);
+
+        Map<String, LoadedFile> reloading = reloadingFiles.get(context.level);
+        if (reloading != null)
+        {
+            LoadedFile previous = loadedFiles.getOrDefault(context.level, Collections.emptyMap()).get(key(path));
+
+            if (previous != null && previous.isUnchanged(path, id, context) && adapter.isLoaded(id, context.level))
+                return CompletableFuture.completedFuture(null);
+        }
+
+        if (adapter.isConcurrent())
+            return executor().submit(() -> adapter.prepare(path, id, context));
+
+        CompletableFuture<FileLoaderAdapter.Loading> future = new CompletableFuture<>();
+        try
+        {
+            future.complete(adapter.prepare(path, id, context));
+        }
+        catch (Exception e)
+        {
+            future.completeExceptionally(e);
+        }
+        return future;
+    }
+
+    @ParametersAreNonnullByDefault
+    protected boolean finish(Path path, @Nullable String customID, FileLoadContext context, @Nullable FileLoaderAdapter.Loading loading) throws Exception
+    {
+        FileLoaderAdapter adapter = get(RCFiles.extension(path));
+        String id = defaultName(path, customID);
+
+        if (adapter == null)
+            return false;
+
+        Map<String, LoadedFile> reloading = reloadingFiles.get(context.level);
+        String key = key(path);
+
+        if (loading == null)
+        {
+            // Unchanged
+            if (reloading != null)
+                reloading.put(key, loadedFiles.get(context.level).get(key));
+            return true;
+        }
+
+        boolean loaded = loading.finish();
+
+        if (loaded && reloading != null)
+        {
+            LoadedFile file = LoadedFile.of(path, adapter.getSuffix(), id, context);
+            if (file != null)
+                reloading.put(key, file);
+        }
+
+        return loaded;
+    }
+
+    protected static String key(Path path)
+    {
+        return path.toUri().toString();
+    }
+
+    protected static class LoadedFile
+    {
+        public final String suffix;
+        public final String id;
+        public final String domain;
+        public final boolean active;
+
+        public final long size;
+        public final long lastModified;
+
+        public LoadedFile(String suffix, String id, String domain, boolean active, long size, long lastModified)
+        {
+            this.suffix = suffix;
+            this.id = id;
+            this.domain = domain;
+            this.active = active;
+            this.size = size;
+            this.lastModified = lastModified;
+        }
+
+        @Nullable
+        public static LoadedFile of(Path path, String suffix, String id, FileLoadContext context)
+        {
+            try
+            {
+                return new LoadedFile(suffix, id, context.domain, context.active, Files.size(path), Files.getLastModifiedTime(path).toMillis());
+            }
+            catch (IOException e)
+            {
+                return null; // Just load it again next time
+            }
+        }
+
+        public boolean isUnchanged(Path path, String id, FileLoadContext context)
+        {
+            LoadedFile current = of(path, suffix, id, context);
+            return current != null && current.id.equals(this.id) && current.domain.equals(domain) && current.active == active
+                    && current.size == size && current.lastModified == lastModified;
+        }
     }
 }
@@ -30,9 +30,38 @@ public abstract class FileLoaderAdapter
         this.suffix = suffix;
     }
 
+    /**
+     * @return Whether {@link #prepare(Path, String, FileLoadContext)} may be called from worker threads.
+     */
+    public boolean isConcurrent()
+    {
+        return false;
+    }
+
     @ParametersAreNonnullByDefault
     protected abstract boolean loadFile(Path path, String id, FileLoadContext context) throws Exception;
 
+    /**
+     * Does the part of loading that doesn't touch shared state, like reading and parsing the file.
+     * The result is finished on the loading thread, in file order.
+     */
+    @ParametersAreNonnullByDefault
+    protected Loading prepare(Path path, String id, FileLoadContext context) throws Exception
+    {
+        return () -> loadFile(path, id, context);
+    }
+
+    @ParametersAreNonnullByDefault
+    abstract boolean isLoaded(String id, LeveledRegistry.Level level);
+
+    @ParametersAreNonnullByDefault
+    abstract void unloadFile(String id, LeveledRegistry.Level level);
+
     @ParametersAreNonnullByDefault
     abstract void clearFiles(LeveledRegistry.Level level);
+
+    public interface Loading
+    {
+        boolean finish() throws Exception;
+    }
 }
@@ -10,6 +10,7 @@ import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.events.FileLoadEvent;
 import ivorius.reccomplex.events.RCEventBus;
 
+import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.nio.file.Path;
 
@@ -20,30 +21,62 @@ public abstract class FileLoaderRegistry<S> extends FileLoaderAdapter
 {
     public LeveledRegistry<? super S> registry;
 
+    /**
+     * Whether {@link #read(Path, String)} is safe to call from multiple threads at once.
+     */
+    public boolean concurrent;
+
     public FileLoaderRegistry(String suffix, LeveledRegistry<? super S> registry)
     {
         super(suffix);
         this.registry = registry;
     }
 
+    @Override
+    public boolean isConcurrent()
+    {
+        return concurrent;
+    }
+
     @Override
     @ParametersAreNonnullByDefault
     public boolean loadFile(Path path, String id, FileLoadContext context)
     {
-        String domain = context.domain;
-        boolean active = context.active;
+        return register(path, id, context, tryRead(path, id));
+    }
 
-        S s = null;
+    @Override
+    @ParametersAreNonnullByDefault
+    protected Loading prepare(Path path, String id, FileLoadContext context)
+    {
+        // Only read ahead if reads may run alongside each other; otherwise read and register each file in turn
+        if (!isConcurrent())
+            return () -> loadFile(path, id, context);
 
+        S s = tryRead(path, id);
+        return () -> register(path, id, context, s);
+    }
+
+    @Nullable
+    protected S tryRead(Path path, String id)
+    {
         try
         {
-            s = read(path, id);
+            return read(path, id);
         }
         catch (Exception e)
         {
             RecurrentComplex.logger.error("Error reading file: " + path, e);
         }
 
+        return null;
+    }
+
+    protected boolean register(Path path, String id, FileLoadContext context, @Nullable S s)
+    {
+        String domain = context.domain;
+        boolean active = context.active;
+
         if (s != null)
         {
             FileLoadEvent.Pre<S> event = new FileLoadEvent.Pre<>(s, suffix, id, domain, path, active);
@@ -64,6 +97,20 @@ public abstract class FileLoaderRegistry<S> extends FileLoaderAdapter
 
     public abstract S read(Path path, String name) throws Exception;
 
+    @Override
+    @ParametersAreNonnullByDefault
+    public boolean isLoaded(String id, LeveledRegistry.Level level)
+    {
+        return registry.get(id, level) != null;
+    }
+
+    @Override
+    @ParametersAreNonnullByDefault
+    public void unloadFile(String id, LeveledRegistry.Level level)
+    {
+        registry.unregister(id, level);
+    }
+
     @Override
     @ParametersAreNonnullByDefault
     public void clearFiles(LeveledRegistry.Level level)
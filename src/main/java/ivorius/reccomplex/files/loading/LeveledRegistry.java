@@ -18,6 +18,8 @@ public interface LeveledRegistry<S>
 
     S get(String id);
 
+    S get(String id, ILevel level);
+
     Status status(String id);
 
     boolean has(String id);
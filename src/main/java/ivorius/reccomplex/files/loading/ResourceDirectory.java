@@ -8,6 +8,11 @@ package ivorius.reccomplex.files.loading;
 import io.netty.buffer.ByteBuf;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.files.RCFiles;
+import ivorius.reccomplex.random.Poem;
+import ivorius.reccomplex.world.gen.feature.sapling.SaplingIndex;
+import ivorius.reccomplex.world.gen.feature.structure.StructureContentIndex;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.MazeCatalog;
 import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.ResourceLocation;
 import net.minecraftforge.fml.common.FMLCommonHandler;
@@ -82,42 +87,60 @@ public enum ResourceDirectory
 
     public static void reload(@Nonnull FileLoader loader, @Nonnull LeveledRegistry.Level level) throws IllegalArgumentException, NoServerException, RCFiles.ResourceLocationLoadException
     {
-        switch (level)
+        if (level != LeveledRegistry.Level.CUSTOM && level != LeveledRegistry.Level.MODDED && level != LeveledRegistry.Level.SERVER)
+            throw new IllegalArgumentException();
+
+        // Only changed files are loaded again, and files that are gone unloaded at the end
+        loader.beginReload(level);
+
+        try
         {
-            case CUSTOM:
-                loader.clearFiles(level);
-                tryLoadResources(loader, level, getCustomDirectory().toPath(), "", true);
-                break;
-            case MODDED:
+            switch (level)
             {
-                loader.clearFiles(level);
-                for (ModContainer mod : Loader.instance().getModList())
+                case CUSTOM:
+                    tryLoadResources(loader, level, getCustomDirectory().toPath(), "", true);
+                    break;
+                case MODDED:
                 {
-                    String domain = mod.getModId();
-
-                    Path path = null;
-
-                    try
-                    {
-                        path = RCFiles.pathFromResourceLocation(new ResourceLocation(domain.toLowerCase(), ""));
-                        if (path != null)
-                            tryLoadResources(loader, level, path, domain, false);
-                    }
-                    finally
+                    for (ModContainer mod : Loader.instance().getModList())
                     {
-                        RCFiles.closeQuietly(path);
+                        String domain = mod.getModId();
+
+                        Path path = null;
+
+                        try
+                        {
+                            path = RCFiles.pathFromResourceLocation(new ResourceLocation(domain.toLowerCase(), ""));
+                            if (path != null)
+                                tryLoadResources(loader, level, path, domain, false);
+                        }
+                        finally
+                        {
+                            RCFiles.closeQuietly(path);
+                        }
                     }
-                }
 
-                break;
+                    break;
+                }
+                case SERVER:
+                    tryLoadResources(loader, level, getServerDirectory().toPath(), "", true);
+                    break;
             }
-            case SERVER:
-                loader.clearFiles(level);
-                tryLoadResources(loader, level, getServerDirectory().toPath(), "", true);
-                break;
-            default:
-                throw new IllegalArgumentException();
         }
+        finally
+        {
+            loader.endReload(level);
+        }
+
+        MazeCatalog.prebuildAll();
+
+        StructureContentIndex index = StructureRegistry.INSTANCE.module(StructureContentIndex.class);
+        if (index != null)
+            index.prebuildAll();
+
+        // Cheap enough to do right away
+        SaplingIndex.get().entries();
+        Poem.CompiledThemes.get().themes();
     }
 
     public static void tryLoadResources(FileLoader loader, LeveledRegistry.Level level, Path path, String domain, boolean create)
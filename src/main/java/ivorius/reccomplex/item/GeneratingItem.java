@@ -5,6 +5,7 @@
 
 package ivorius.reccomplex.item;
 
+import ivorius.reccomplex.world.storage.loot.LootBatch;
 import net.minecraft.item.ItemStack;
 import net.minecraft.world.WorldServer;
 import net.minecraftforge.items.IItemHandlerModifiable;
@@ -17,4 +18,9 @@ import java.util.Random;
 public interface GeneratingItem
 {
     void generateInInventory(WorldServer server, IItemHandlerModifiable inventory, Random random, ItemStack stack, int fromSlot);
+
+    default void generateInInventory(LootBatch batch, IItemHandlerModifiable inventory, ItemStack stack, int fromSlot)
+    {
+        generateInInventory(batch.server, inventory, batch.random, stack, fromSlot);
+    }
 }
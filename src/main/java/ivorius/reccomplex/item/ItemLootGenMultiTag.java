@@ -11,6 +11,7 @@ import ivorius.ivtoolkit.gui.IntegerRange;
 import ivorius.ivtoolkit.item.IvItemStacks;
 import ivorius.reccomplex.gui.loot.GuiEditItemStack;
 import ivorius.reccomplex.gui.loot.TableDataSourceLootGenMultiTag;
+import ivorius.reccomplex.world.storage.loot.LootBatch;
 import ivorius.reccomplex.world.storage.loot.LootTable;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.util.ITooltipFlag;
@@ -20,7 +21,6 @@ import net.minecraft.nbt.NBTTagInt;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.EnumHand;
 import net.minecraft.world.World;
-import net.minecraft.world.WorldServer;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -63,9 +63,10 @@ public class ItemLootGenMultiTag extends ItemLootGenerationTag implements ItemSy
     }
 
     @Override
-    public void generateInInventory(WorldServer server, IItemHandlerModifiable inventory, Random random, ItemStack stack, int fromSlot)
+    public void generateInInventory(LootBatch batch, IItemHandlerModifiable inventory, ItemStack stack, int fromSlot)
     {
         LootTable lootTable = lootTable(stack);
+        Random random = batch.random;
 
         inventory.setStackInSlot(fromSlot, ItemStack.EMPTY);
 
@@ -75,17 +76,16 @@ public class ItemLootGenMultiTag extends ItemLootGenerationTag implements ItemSy
             int amount = range.getMin() < range.getMax() ? random.nextInt(range.getMax() - range.getMin() + 1) + range.getMin() : 0;
 
             TIntList emptySlots = emptySlots(inventory);
+            List<ItemStack> generated = batch.draw(lootTable, amount);
 
-            for (int i = 0; i < amount; i++)
+            for (ItemStack generatedStack : generated)
             {
                 int slot = emptySlots.isEmpty()
                         ? random.nextInt(inventory.getSlots())
                         : emptySlots.removeAt(random.nextInt(emptySlots.size()));
 
-                ItemStack generated = lootTable.getRandomItemStack(server, random);
-
-                if (generated != null)
-                    inventory.setStackInSlot(slot, generated);
+                if (generatedStack != null)
+                    inventory.setStackInSlot(slot, generatedStack);
             }
         }
     }
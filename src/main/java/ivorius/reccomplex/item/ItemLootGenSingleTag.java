@@ -8,6 +8,7 @@ package ivorius.reccomplex.item;
 import ivorius.ivtoolkit.item.IvItemStacks;
 import ivorius.reccomplex.gui.loot.GuiEditItemStack;
 import ivorius.reccomplex.gui.loot.TableDataSourceLootGeneratorSingleTag;
+import ivorius.reccomplex.world.storage.loot.LootBatch;
 import ivorius.reccomplex.world.storage.loot.LootTable;
 import net.minecraft.client.Minecraft;
 import net.minecraft.client.util.ITooltipFlag;
@@ -17,7 +18,6 @@ import net.minecraft.nbt.NBTTagFloat;
 import net.minecraft.util.ActionResult;
 import net.minecraft.util.EnumHand;
 import net.minecraft.world.World;
-import net.minecraft.world.WorldServer;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -27,18 +27,17 @@ import org.apache.commons.lang3.tuple.Pair;
 import javax.annotation.Nullable;
 import java.util.Collections;
 import java.util.List;
-import java.util.Random;
 
 public class ItemLootGenSingleTag extends ItemLootGenerationTag implements ItemSyncableTags
 {
     @Override
-    public void generateInInventory(WorldServer server, IItemHandlerModifiable inventory, Random random, ItemStack stack, int fromSlot)
+    public void generateInInventory(LootBatch batch, IItemHandlerModifiable inventory, ItemStack stack, int fromSlot)
     {
         LootTable lootTable = lootTable(stack);
 
         if (lootTable != null)
         {
-            ItemStack generated = random.nextFloat() < getItemChance(stack) ? lootTable.getRandomItemStack(server, random) : null;
+            ItemStack generated = batch.random.nextFloat() < getItemChance(stack) ? batch.draw(lootTable) : null;
 
             if (generated != null)
                 inventory.setStackInSlot(fromSlot, generated);
@@ -8,6 +8,7 @@ package ivorius.reccomplex.item;
 import ivorius.ivtoolkit.tools.IvTranslations;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.utils.ItemHandlers;
+import ivorius.reccomplex.world.storage.loot.LootBatch;
 import ivorius.reccomplex.world.storage.loot.LootGenerationHandler;
 import ivorius.reccomplex.world.storage.loot.LootTable;
 import ivorius.reccomplex.world.storage.loot.WeightedItemCollectionRegistry;
@@ -33,6 +34,7 @@ import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
 import javax.annotation.ParametersAreNonnullByDefault;
 import java.util.List;
+import java.util.Random;
 
 public abstract class ItemLootGenerationTag extends Item implements GeneratingItem
 {
@@ -50,8 +52,9 @@ public abstract class ItemLootGenerationTag extends Item implements GeneratingIt
             if (!world.isRemote)
             {
                 IItemHandlerModifiable itemHandler = ItemHandlers.getModifiable(rightClicked);
-                generatingItem.generateInInventory(world, itemHandler, world.rand, stack, world.rand.nextInt(itemHandler.getSlots()));
-                LootGenerationHandler.generateAllTags(world, itemHandler, RecurrentComplex.specialRegistry.itemHidingMode(), world.rand);
+                LootBatch batch = new LootBatch(world, world.rand);
+                generatingItem.generateInInventory(batch, itemHandler, stack, world.rand.nextInt(itemHandler.getSlots()));
+                LootGenerationHandler.generateAllTags(batch, itemHandler, RecurrentComplex.specialRegistry.itemHidingMode());
             }
 
             return true;
@@ -60,6 +63,15 @@ public abstract class ItemLootGenerationTag extends Item implements GeneratingIt
         return false;
     }
 
+    @Override
+    public void generateInInventory(WorldServer server, IItemHandlerModifiable inventory, Random random, ItemStack stack, int fromSlot)
+    {
+        generateInInventory(new LootBatch(server, random), inventory, stack, fromSlot);
+    }
+
+    @Override
+    public abstract void generateInInventory(LootBatch batch, IItemHandlerModifiable inventory, ItemStack stack, int fromSlot);
+
     public static String lootTableKey(ItemStack stack)
     {
         if (stack.hasTagCompound() && stack.getTagCompound().hasKey("itemCollectionKey", Constants.NBT.TAG_STRING))
@@ -0,0 +1,430 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.network;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.entity.player.EntityPlayerMP;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.ByteArrayOutputStream;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Sends large messages as a stream of compressed chunks, rather than as one packet that may be too large or stall the
+ * connection while it is built.
+ * The sender announces a transfer with the payload's hash; the receiver either knows the payload already (and it is
+ * delivered right away) or acknowledges chunks as they come in. Only {@link #WINDOW} chunks are unacknowledged at any
+ * time, and every acknowledgement names the chunk to continue with.
+ * The message is finally decoded and handed to its usual handler, as if it had been sent directly.
+ */
+public class ChunkedTransfers
+{
+    public static final int CHUNK_SIZE = 16 * 1024; // Well below the client -> server payload limit
+    public static final int WINDOW = 8;
+    public static final long TIMEOUT = TimeUnit.MINUTES.toMillis(1);
+    public static final int MAX_REMEMBERED_BYTES = 16 * 1024 * 1024;
+    public static final int MAX_PAYLOAD_BYTES = 32 * 1024 * 1024;
+    public static final int MAX_INCOMING = 64;
+    public static final int MAX_INCOMING_PER_SENDER = 4;
+    public static final long MAX_BUFFERED_BYTES_PER_SENDER = 32 * 1024 * 1024;
+
+    protected static final List<Class<? extends IMessage>> kinds = new ArrayList<>();
+    protected static final List<IMessageHandler<?, ?>> handlers = new ArrayList<>();
+    protected static final List<Predicate<EntityPlayerMP>> permissions = new ArrayList<>();
+
+    // Client and integrated server share the JVM
+    protected static final ChunkedTransfers CLIENT = new ChunkedTransfers(Side.CLIENT);
+    protected static final ChunkedTransfers SERVER = new ChunkedTransfers(Side.SERVER);
+
+    protected final Side side;
+
+    protected final AtomicInteger nextID = new AtomicInteger();
+    protected final Map<Integer, Outgoing> outgoing = new ConcurrentHashMap<>();
+    protected final Map<String, Incoming> incoming = new ConcurrentHashMap<>();
+
+    // Payloads received lately, by sender and hash
+    protected final Map<String, byte[]> remembered = new LinkedHashMap<>(16, 0.75f, true);
+    protected int rememberedBytes;
+
+    protected ChunkedTransfers(Side side)
+    {
+        this.side = side;
+    }
+
+    /**
+     * Registers a message that can be transferred. Needs to be called in the same order on both sides.
+     *
+     * @param permission Which players may send the message to the server. Checked before anything is buffered.
+     */
+    public static <M extends IMessage> void register(Class<M> type, IMessageHandler<M, ?> handler, Predicate<EntityPlayerMP> permission)
+    {
+        kinds.add(type);
+        handlers.add(handler);
+        permissions.add(permission);
+    }
+
+    public static ChunkedTransfers of(Side side)
+    {
+        return side == Side.CLIENT ? CLIENT : SERVER;
+    }
+
+    public static void sendToServer(IMessage message)
+    {
+        CLIENT.send(message, null);
+    }
+
+    public static void sendTo(IMessage message, EntityPlayerMP player)
+    {
+        SERVER.send(message, player);
+    }
+
+    protected void send(IMessage message, @Nullable EntityPlayerMP player)
+    {
+        int kind = kinds.indexOf(message.getClass());
+        if (kind < 0)
+            throw new IllegalArgumentException("Not registered for chunked transfer: " + message.getClass());
+
+        ByteBuf buf = Unpooled.buffer();
+        message.toBytes(buf);
+        byte[] payload = new byte[buf.readableBytes()];
+        buf.readBytes(payload);
+
+        Outgoing transfer = new Outgoing(nextID.incrementAndGet(), player, deflate(payload));
+        sweep();
+        outgoing.put(transfer.id, transfer);
+
+        send(PacketTransfer.header(transfer.id, kind, transfer.chunks(), payload.length, DigestUtils.sha1(payload)), player);
+    }
+
+    protected void send(IMessage packet, @Nullable EntityPlayerMP player)
+    {
+        if (player != null)
+            RecurrentComplex.network.sendTo(packet, player);
+        else
+            RecurrentComplex.network.sendToServer(packet);
+    }
+
+    protected void sweep()
+    {
+        long now = System.currentTimeMillis();
+        outgoing.values().removeIf(t -> now - t.lastActive > TIMEOUT);
+        incoming.values().removeIf(t -> now - t.lastActive > TIMEOUT);
+    }
+
+    protected static String senderKey(MessageContext ctx)
+    {
+        return ctx.side == Side.SERVER ? ctx.getServerHandler().player.getUniqueID().toString() : "server";
+    }
+
+    // --------------- Receiving
+
+    /**
+     * Called on the network thread, so that assembling doesn't take time from the game.
+     */
+    public void receive(PacketTransfer packet, MessageContext ctx)
+    {
+        String sender = senderKey(ctx);
+        String key = sender + ":" + packet.transferID;
+
+        if (packet.isHeader())
+        {
+            sweep();
+
+            if (!accepts(packet, sender, ctx))
+            {
+                reply(new PacketTransferAck(packet.transferID, PacketTransferAck.ABORT), ctx);
+                return;
+            }
+
+            String hashKey = sender + ":" + Hex.encodeHexString(packet.hash);
+            byte[] known;
+            synchronized (remembered)
+            {
+                known = remembered.get(hashKey);
+            }
+
+            if (known != null)
+            {
+                reply(new PacketTransferAck(packet.transferID, packet.count), ctx);
+                deliver(packet.kind, known, ctx);
+                return;
+            }
+
+            incoming.put(key, new Incoming(packet, sender, hashKey));
+            reply(new PacketTransferAck(packet.transferID, 0), ctx);
+            return;
+        }
+
+        Incoming transfer = incoming.get(key);
+        if (transfer == null)
+        {
+            reply(new PacketTransferAck(packet.transferID, PacketTransferAck.ABORT), ctx);
+            return;
+        }
+
+        byte[] payload;
+        int next;
+        synchronized (transfer)
+        {
+            if (transfer.data.size() + packet.data.length > (long) transfer.count * CHUNK_SIZE)
+            {
+                incoming.remove(key);
+                reply(new PacketTransferAck(packet.transferID, PacketTransferAck.ABORT), ctx);
+                return;
+            }
+
+            if (packet.index == transfer.next)
+            {
+                transfer.data.write(packet.data, 0, packet.data.length);
+                transfer.next++;
+            }
+            transfer.lastActive = System.currentTimeMillis();
+            next = transfer.next;
+
+            if (side == Side.CLIENT)
+                PacketTransferHandler.showProgress(next, transfer.count);
+
+            if (next < transfer.count)
+            {
+                reply(new PacketTransferAck(packet.transferID, next), ctx);
+                return;
+            }
+
+            incoming.remove(key);
+
+            try
+            {
+                payload = inflate(transfer.data.toByteArray(), transfer.length);
+            }
+            catch (DataFormatException e)
+            {
+                RecurrentComplex.logger.error("Received broken chunked transfer", e);
+                reply(new PacketTransferAck(packet.transferID, PacketTransferAck.ABORT), ctx);
+                return;
+            }
+        }
+
+        if (!Arrays.equals(DigestUtils.sha1(payload), transfer.hash))
+        {
+            RecurrentComplex.logger.error("Received chunked transfer with wrong hash");
+            reply(new PacketTransferAck(packet.transferID, PacketTransferAck.ABORT), ctx);
+            return;
+        }
+
+        reply(new PacketTransferAck(packet.transferID, next), ctx);
+        remember(transfer.hashKey, payload);
+        deliver(transfer.kind, payload, ctx);
+    }
+
+    protected boolean accepts(PacketTransfer header, String sender, MessageContext ctx)
+    {
+        if (header.kind < 0 || header.kind >= kinds.size() || header.length < 0 || header.length > MAX_PAYLOAD_BYTES
+                || header.count <= 0 || header.count > header.length / CHUNK_SIZE + 2) // Deflate won't ever expand more than that
+            return false;
+
+        if (ctx.side == Side.SERVER && !permissions.get(header.kind).test(ctx.getServerHandler().player))
+            return false;
+
+        if (incoming.size() >= MAX_INCOMING)
+            return false;
+
+        int transfers = 0;
+        long buffered = header.length;
+        for (Incoming transfer : incoming.values())
+        {
+            if (transfer.sender.equals(sender))
+            {
+                transfers++;
+                buffered += transfer.length;
+            }
+        }
+
+        return transfers < MAX_INCOMING_PER_SENDER && buffered <= MAX_BUFFERED_BYTES_PER_SENDER;
+    }
+
+    protected void reply(IMessage packet, MessageContext ctx)
+    {
+        send(packet, ctx.side == Side.SERVER ? ctx.getServerHandler().player : null);
+    }
+
+    protected void remember(String hashKey, byte[] payload)
+    {
+        if (payload.length > MAX_REMEMBERED_BYTES / 4)
+            return;
+
+        synchronized (remembered)
+        {
+            if (remembered.put(hashKey, payload) == null)
+                rememberedBytes += payload.length;
+
+            Iterator<byte[]> iterator = remembered.values().iterator();
+            while (rememberedBytes > MAX_REMEMBERED_BYTES && iterator.hasNext())
+            {
+                rememberedBytes -= iterator.next().length;
+                iterator.remove();
+            }
+        }
+    }
+
+    protected void deliver(int kind, byte[] payload, MessageContext ctx)
+    {
+        IMessage message;
+        try
+        {
+            message = kinds.get(kind).newInstance();
+        }
+        catch (InstantiationException | IllegalAccessException e)
+        {
+            throw new IllegalStateException(e);
+        }
+
+        message.fromBytes(Unpooled.wrappedBuffer(payload));
+
+        //noinspection unchecked
+        ((IMessageHandler<IMessage, ?>) handlers.get(kind)).onMessage(message, ctx);
+    }
+
+    // --------------- Sending
+
+    public void acknowledged(PacketTransferAck packet, MessageContext ctx)
+    {
+        Outgoing transfer = outgoing.get(packet.transferID);
+        if (transfer == null)
+            return;
+
+        if (packet.next == PacketTransferAck.ABORT || packet.next >= transfer.chunks())
+        {
+            outgoing.remove(packet.transferID);
+            if (side == Side.CLIENT)
+                PacketTransferHandler.showProgress(transfer.chunks(), transfer.chunks());
+            return;
+        }
+
+        synchronized (transfer)
+        {
+            transfer.lastActive = System.currentTimeMillis();
+            transfer.sent = Math.max(transfer.sent, packet.next);
+
+            int until = Math.min(transfer.chunks(), packet.next + WINDOW);
+            for (; transfer.sent < until; transfer.sent++)
+                send(PacketTransfer.chunk(transfer.id, transfer.sent, transfer.chunk(transfer.sent)), transfer.player);
+
+            if (side == Side.CLIENT)
+                PacketTransferHandler.showProgress(packet.next, transfer.chunks());
+        }
+    }
+
+    // --------------- Compression
+
+    @Nonnull
+    protected static byte[] deflate(byte[] data)
+    {
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        deflater.setInput(data);
+        deflater.finish();
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, data.length / 4));
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished())
+            out.write(buffer, 0, deflater.deflate(buffer));
+        deflater.end();
+
+        return out.toByteArray();
+    }
+
+    @Nonnull
+    protected static byte[] inflate(byte[] data, int length) throws DataFormatException
+    {
+        Inflater inflater = new Inflater();
+        inflater.setInput(data);
+
+        // Grow as data comes out rather than trusting the announced length
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.min(length, Math.max(64, data.length * 4)));
+        byte[] buffer = new byte[8192];
+        while (out.size() <= length && !inflater.finished())
+        {
+            int inflated = inflater.inflate(buffer, 0, Math.min(buffer.length, length - out.size() + 1));
+            if (inflated == 0 && (inflater.needsInput() || inflater.needsDictionary()))
+                break;
+            out.write(buffer, 0, inflated);
+        }
+        inflater.end();
+
+        if (out.size() != length)
+            throw new DataFormatException("Unexpected payload length");
+
+        return out.toByteArray();
+    }
+
+    protected static class Outgoing
+    {
+        public final int id;
+        @Nullable
+        public final EntityPlayerMP player;
+        public final byte[] data;
+
+        public int sent;
+        public long lastActive = System.currentTimeMillis();
+
+        public Outgoing(int id, @Nullable EntityPlayerMP player, byte[] data)
+        {
+            this.id = id;
+            this.player = player;
+            this.data = data;
+        }
+
+        public int chunks()
+        {
+            return Math.max(1, (data.length + CHUNK_SIZE - 1) / CHUNK_SIZE);
+        }
+
+        public byte[] chunk(int index)
+        {
+            return Arrays.copyOfRange(data, index * CHUNK_SIZE, Math.min(data.length, (index + 1) * CHUNK_SIZE));
+        }
+    }
+
+    protected static class Incoming
+    {
+        public final int kind;
+        public final int count;
+        public final int length;
+        public final byte[] hash;
+        public final String sender;
+        public final String hashKey;
+
+        public final ByteArrayOutputStream data;
+        public int next;
+        public long lastActive = System.currentTimeMillis();
+
+        public Incoming(PacketTransfer header, String sender, String hashKey)
+        {
+            this.kind = header.kind;
+            this.count = header.count;
+            this.length = header.length;
+            this.hash = header.hash;
+            this.sender = sender;
+            this.hashKey = hashKey;
+            this.data = new ByteArrayOutputStream(Math.min(header.count, 64) * CHUNK_SIZE);
+        }
+    }
+}
@@ -48,7 +48,7 @@ public class PacketEditStructureHandler extends SchedulingMessageHandler<PacketE
             directory = ResourceDirectory.custom(status != null && status.isActive());
         }
 
-        RecurrentComplex.network.sendTo(new PacketEditStructure(structure, id, lowerCoord,
+        ChunkedTransfers.sendTo(new PacketEditStructure(structure, id, lowerCoord,
                 SaveDirectoryData.defaultData(id, directory,
                         RecurrentComplex.loader.tryFindIDs(ResourceDirectory.ACTIVE.toPath(), RCFileSuffix.STRUCTURE),
                         RecurrentComplex.loader.tryFindIDs(ResourceDirectory.INACTIVE.toPath(), RCFileSuffix.STRUCTURE))
@@ -32,7 +32,7 @@ public class PacketSaveStructureHandler extends SchedulingMessageHandler<PacketS
 {
     public static void saveStructure(GenericStructure structureInfo, String structureID, SaveDirectoryData.Result saveDirectoryDataResult)
     {
-        RecurrentComplex.network.sendToServer(new PacketSaveStructure(structureInfo, structureID, saveDirectoryDataResult));
+        ChunkedTransfers.sendToServer(new PacketSaveStructure(structureInfo, structureID, saveDirectoryDataResult));
     }
 
     @Override
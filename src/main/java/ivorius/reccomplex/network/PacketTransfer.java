@@ -0,0 +1,105 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+
+/**
+ * Part of a {@link ChunkedTransfers chunked transfer}: either the header announcing it, or one chunk of the payload.
+ */
+public class PacketTransfer implements IMessage
+{
+    public static final int HEADER = -1;
+
+    protected int transferID;
+    protected int index;
+
+    // Header
+    protected int kind;
+    protected int count;
+    protected int length;
+    protected byte[] hash;
+
+    // Chunk
+    protected byte[] data;
+
+    public PacketTransfer()
+    {
+    }
+
+    public static PacketTransfer header(int transferID, int kind, int count, int length, byte[] hash)
+    {
+        PacketTransfer packet = new PacketTransfer();
+        packet.transferID = transferID;
+        packet.index = HEADER;
+        packet.kind = kind;
+        packet.count = count;
+        packet.length = length;
+        packet.hash = hash;
+        return packet;
+    }
+
+    public static PacketTransfer chunk(int transferID, int index, byte[] data)
+    {
+        PacketTransfer packet = new PacketTransfer();
+        packet.transferID = transferID;
+        packet.index = index;
+        packet.data = data;
+        return packet;
+    }
+
+    public boolean isHeader()
+    {
+        return index == HEADER;
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf)
+    {
+        transferID = buf.readInt();
+        index = buf.readInt();
+
+        if (isHeader())
+        {
+            kind = buf.readInt();
+            count = buf.readInt();
+            length = buf.readInt();
+            hash = new byte[buf.readUnsignedByte()];
+            buf.readBytes(hash);
+        }
+        else
+        {
+            int length = buf.readInt();
+            if (length < 0)
+                throw new IllegalArgumentException("Negative chunk length: " + length);
+
+            data = new byte[Math.min(length, ChunkedTransfers.CHUNK_SIZE)];
+            buf.readBytes(data);
+        }
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf)
+    {
+        buf.writeInt(transferID);
+        buf.writeInt(index);
+
+        if (isHeader())
+        {
+            buf.writeInt(kind);
+            buf.writeInt(count);
+            buf.writeInt(length);
+            buf.writeByte(hash.length);
+            buf.writeBytes(hash);
+        }
+        else
+        {
+            buf.writeInt(data.length);
+            buf.writeBytes(data);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.network;
+
+import io.netty.buffer.ByteBuf;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+
+/**
+ * Tells the sender of a {@link ChunkedTransfers chunked transfer} which chunk to continue with.
+ */
+public class PacketTransferAck implements IMessage
+{
+    public static final int ABORT = -1;
+
+    protected int transferID;
+    protected int next;
+
+    public PacketTransferAck()
+    {
+    }
+
+    public PacketTransferAck(int transferID, int next)
+    {
+        this.transferID = transferID;
+        this.next = next;
+    }
+
+    @Override
+    public void fromBytes(ByteBuf buf)
+    {
+        transferID = buf.readInt();
+        next = buf.readInt();
+    }
+
+    @Override
+    public void toBytes(ByteBuf buf)
+    {
+        buf.writeInt(transferID);
+        buf.writeInt(next);
+    }
+}
@@ -0,0 +1,23 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.network;
+
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+
+/**
+ * Handled on the network thread, so chunks keep flowing while the game is busy.
+ */
+public class PacketTransferAckHandler implements IMessageHandler<PacketTransferAck, IMessage>
+{
+    @Override
+    public IMessage onMessage(PacketTransferAck message, MessageContext ctx)
+    {
+        ChunkedTransfers.of(ctx.side).acknowledged(message, ctx);
+        return null;
+    }
+}
@@ -0,0 +1,38 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.network;
+
+import ivorius.ivtoolkit.tools.IvTranslations;
+import net.minecraft.client.Minecraft;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessage;
+import net.minecraftforge.fml.common.network.simpleimpl.IMessageHandler;
+import net.minecraftforge.fml.common.network.simpleimpl.MessageContext;
+import net.minecraftforge.fml.relauncher.Side;
+import net.minecraftforge.fml.relauncher.SideOnly;
+
+/**
+ * Handled on the network thread, so large transfers don't take time from the game.
+ */
+public class PacketTransferHandler implements IMessageHandler<PacketTransfer, IMessage>
+{
+    @SideOnly(Side.CLIENT)
+    public static void showProgress(int chunks, int total)
+    {
+        if (total <= 1)
+            return; // Not worth mentioning
+
+        String text = IvTranslations.format("reccomplex.transfer.progress", chunks * 100 / total);
+        Minecraft minecraft = Minecraft.getMinecraft();
+        minecraft.addScheduledTask(() -> minecraft.ingameGUI.setOverlayMessage(text, false));
+    }
+
+    @Override
+    public IMessage onMessage(PacketTransfer message, MessageContext ctx)
+    {
+        ChunkedTransfers.of(ctx.side).receive(message, ctx);
+        return null;
+    }
+}
@@ -41,7 +41,7 @@ public class PacketWorldDataHandler extends SchedulingMessageHandler<PacketWorld
 
     public static void swap(WorldScriptHolder script, BlockPos source)
     {
-        RecurrentComplex.network.sendToServer(new PacketWorldData(script.worldData, source,
+        ChunkedTransfers.sendToServer(new PacketWorldData(script.worldData, source,
                 script.origin, script.origin.add(BlockPositions.fromIntArray(Structures.size(script.worldData, null))).add(-1, -1, -1)));
     }
 
@@ -70,6 +70,8 @@ public class PacketWorldDataHandler extends SchedulingMessageHandler<PacketWorld
     @Override
     public void processServer(PacketWorldData message, MessageContext ctx, WorldServer world)
     {
+        if (RecurrentComplex.checkPerms(ctx.getServerHandler().player)) return;
+
         BlockPos origin = message.source;
         BlockArea area = new BlockArea(message.capturePoint1.add(origin), message.capturePoint2.add(origin));
 
@@ -79,7 +81,7 @@ public class PacketWorldDataHandler extends SchedulingMessageHandler<PacketWorld
         worldData.tileEntities.removeIf(te -> TileEntity.create(world, te) instanceof TileEntityBlockScript);
 
         PacketWorldData packet = new PacketWorldData(worldData.createTagCompound(), origin, message.capturePoint1, message.capturePoint2);
-        RecurrentComplex.network.sendTo(packet, ctx.getServerHandler().player);
+        ChunkedTransfers.sendTo(packet, ctx.getServerHandler().player);
 
         if (message.worldData != null)
         {
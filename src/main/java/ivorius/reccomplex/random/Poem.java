@@ -5,8 +5,9 @@
 
 package ivorius.reccomplex.random;
 
-import com.google.common.collect.HashMultimap;
-import com.google.common.collect.Lists;
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Multimap;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.files.SimpleLeveledRegistry;
@@ -15,6 +16,7 @@ import ivorius.reccomplex.utils.tokenizer.TokenReplacer;
 import org.apache.commons.lang3.StringUtils;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -178,50 +180,117 @@ public class Poem
         }
     }
 
-    public static class StitchedTheme
+    /**
+     * The active themes, tokenized once with their includes, so stitching doesn't need to tokenize anything.
+     */
+    public static class CompiledThemes extends SimpleLeveledRegistry.Module<SimpleLeveledRegistry<Theme>>
     {
-        protected Map<String, List<List<TokenReplacer.Token>>> converters;
-        protected List<String> titles = new ArrayList<>();
+        @Nullable
+        protected volatile List<Compiled> themes;
 
-        public static StitchedTheme random(Person author)
+        @Nonnull
+        public static CompiledThemes get()
         {
-            Random styleRandom = new Random(author.hashCode());
+            CompiledThemes compiled = THEME_REGISTRY.module(CompiledThemes.class);
+
+            if (compiled == null)
+            {
+                compiled = new CompiledThemes();
+                compiled.setRegistry(THEME_REGISTRY);
+            }
+
+            return compiled;
+        }
+
+        @Nonnull
+        public List<Compiled> themes()
+        {
+            List<Compiled> themes = this.themes;
 
+            if (themes == null)
+            {
+                synchronized (this)
+                {
+                    if ((themes = this.themes) == null)
+                        this.themes = themes = compile(registry);
+                }
+            }
+
+            return themes;
+        }
+
+        protected static List<Compiled> compile(SimpleLeveledRegistry<Theme> registry)
+        {
             SymbolTokenizer<TokenReplacer.Token> tokenizer = new SymbolTokenizer<>(
                     new SymbolTokenizer.SimpleCharacterRules('\\', null, new char[0], null),
                     factory()
             );
 
+            return ImmutableList.copyOf(registry.allActive().stream()
+                    .map(theme -> new Compiled(registry.id(theme), theme.build(ArrayListMultimap.create(), tokenizer)))
+                    .collect(Collectors.toList()));
+        }
+
+        @Override
+        public void invalidate()
+        {
+            themes = null;
+        }
+    }
+
+    public static class Compiled
+    {
+        public final String id;
+        public final Map<String, List<List<TokenReplacer.Token>>> converters;
+
+        public Compiled(String id, Multimap<String, List<TokenReplacer.Token>> converters)
+        {
+            this.id = id;
+            ImmutableMap.Builder<String, List<List<TokenReplacer.Token>>> builder = ImmutableMap.builder();
+            converters.asMap().forEach((key, patterns) -> builder.put(key, ImmutableList.copyOf(patterns)));
+            this.converters = builder.build();
+        }
+    }
+
+    public static class StitchedTheme
+    {
+        protected Map<String, List<List<TokenReplacer.Token>>> converters = new HashMap<>();
+        protected List<String> titles = new ArrayList<>();
+
+        public static StitchedTheme random(Person author)
+        {
+            Random styleRandom = new Random(author.hashCode());
+            List<Compiled> themes = CompiledThemes.get().themes();
+
             StitchedTheme stitchedTheme = new StitchedTheme();
 
             // Stitch together from random themes
-            HashMultimap<String, List<TokenReplacer.Token>> map = HashMultimap.create();
             do {
-                Theme theme = getRandomElementFrom(new ArrayList<>(THEME_REGISTRY.allActive()), styleRandom);
-                stitchedTheme.titles.add(THEME_REGISTRY.id(theme));
+                Compiled theme = getRandomElementFrom(themes, styleRandom);
+                stitchedTheme.titles.add(theme.id);
 
                 float acceptance = styleRandom.nextFloat();
 
-                Multimap<String, List<TokenReplacer.Token>> builtTheme = theme.build(HashMultimap.create(), tokenizer);
-
-                // remove roughly acceptance% words but never all
-                builtTheme.asMap().values()
-                        .forEach(v -> v.removeIf(p -> styleRandom.nextFloat() < acceptance && v.size() > 1));
-
-                map.putAll(builtTheme);
+                theme.converters.forEach((key, patterns) ->
+                {
+                    List<List<TokenReplacer.Token>> stitched = stitchedTheme.converters.computeIfAbsent(key, k -> new ArrayList<>());
+
+                    // remove roughly acceptance% words but never all
+                    int left = patterns.size();
+                    for (List<TokenReplacer.Token> pattern : patterns)
+                    {
+                        if (styleRandom.nextFloat() < acceptance && left > 1)
+                            left--;
+                        else
+                            stitched.add(pattern);
+                    }
+                });
             }
             while (styleRandom.nextBoolean());
 
-            stitchedTheme.converters = build(map);
             return stitchedTheme;
         }
 
-        public static Map<String, List<List<TokenReplacer.Token>>> build(Multimap<String, List<TokenReplacer.Token>> build)
-        {
-            return build.asMap().entrySet().stream()
-                    .collect(Collectors.toMap(Map.Entry::getKey, k -> Lists.newArrayList(k.getValue())));
-        }
-
         public List<List<TokenReplacer.Token>> get(String title)
         {
             return converters.get(title);
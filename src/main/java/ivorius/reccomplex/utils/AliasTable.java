@@ -0,0 +1,91 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils;
+
+import gnu.trove.list.array.TIntArrayList;
+
+import java.util.Random;
+
+/**
+ * Samples indices by weight in constant time (Vose's alias method), after linear time setup.
+ * Negative weights count as zero.
+ */
+public class AliasTable
+{
+    protected final double[] probability;
+    protected final int[] alias;
+
+    protected final double totalWeight;
+
+    public AliasTable(double[] weights)
+    {
+        int size = weights.length;
+        probability = new double[size];
+        alias = new int[size];
+
+        double totalWeight = 0;
+        for (double weight : weights)
+            totalWeight += Math.max(0, weight);
+        this.totalWeight = totalWeight;
+
+        if (totalWeight <= 0)
+            return;
+
+        double[] scaled = new double[size];
+        TIntArrayList small = new TIntArrayList(), large = new TIntArrayList();
+        for (int i = 0; i < size; i++)
+        {
+            scaled[i] = Math.max(0, weights[i]) * size / totalWeight;
+            (scaled[i] < 1 ? small : large).add(i);
+        }
+
+        while (!small.isEmpty() && !large.isEmpty())
+        {
+            int less = small.removeAt(small.size() - 1);
+            int more = large.get(large.size() - 1);
+
+            probability[less] = scaled[less];
+            alias[less] = more;
+
+            scaled[more] += scaled[less] - 1;
+            if (scaled[more] < 1)
+            {
+                large.removeAt(large.size() - 1);
+                small.add(more);
+            }
+        }
+
+        // Only rounding errors are left
+        for (int i = 0; i < large.size(); i++)
+            probability[large.get(i)] = 1;
+        for (int i = 0; i < small.size(); i++)
+            probability[small.get(i)] = 1;
+    }
+
+    public int size()
+    {
+        return probability.length;
+    }
+
+    public double totalWeight()
+    {
+        return totalWeight;
+    }
+
+    /**
+     * @return Whether any index can be sampled.
+     */
+    public boolean isEmpty()
+    {
+        return totalWeight <= 0;
+    }
+
+    public int sample(Random random)
+    {
+        int column = random.nextInt(probability.length);
+        return random.nextDouble() < probability[column] ? column : alias[column];
+    }
+}
@@ -0,0 +1,63 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils;
+
+import net.minecraft.util.math.BlockPos;
+
+/**
+ * Positions packed into a long, bit-compatible with {@link BlockPos#toLong()}.
+ * Y is 12 bits signed, so relative positions slightly below 0 survive the round trip.
+ */
+public class RCBlockPositions
+{
+    private static final int X_BITS = 26, Y_BITS = 12, Z_BITS = 26;
+    private static final int Y_SHIFT = Z_BITS;
+    private static final int X_SHIFT = Y_SHIFT + Y_BITS;
+
+    private static final long X_MASK = (1L << X_BITS) - 1L;
+    private static final long Y_MASK = (1L << Y_BITS) - 1L;
+    private static final long Z_MASK = (1L << Z_BITS) - 1L;
+
+    public static long pack(int x, int y, int z)
+    {
+        return ((long) x & X_MASK) << X_SHIFT | ((long) y & Y_MASK) << Y_SHIFT | ((long) z & Z_MASK);
+    }
+
+    public static long pack(BlockPos pos)
+    {
+        return pack(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    public static int x(long packed)
+    {
+        return (int) (packed >> X_SHIFT);
+    }
+
+    public static int y(long packed)
+    {
+        return (int) (packed << (64 - X_SHIFT) >> (64 - Y_BITS));
+    }
+
+    public static int z(long packed)
+    {
+        return (int) (packed << (64 - Z_BITS) >> (64 - Z_BITS));
+    }
+
+    public static long offset(long packed, int x, int y, int z)
+    {
+        return pack(x(packed) + x, y(packed) + y, z(packed) + z);
+    }
+
+    public static BlockPos.MutableBlockPos unpack(long packed, BlockPos.MutableBlockPos dest)
+    {
+        return dest.setPos(x(packed), y(packed), z(packed));
+    }
+
+    public static BlockPos unpack(long packed)
+    {
+        return new BlockPos(x(packed), y(packed), z(packed));
+    }
+}
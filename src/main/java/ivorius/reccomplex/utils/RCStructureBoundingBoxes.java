@@ -43,6 +43,14 @@ public class RCStructureBoundingBoxes
         return pairs;
     }
 
+    /**
+     * @return Whether the inner box is entirely inside the outer one, horizontally.
+     */
+    public static boolean containsHorizontally(StructureBoundingBox outer, StructureBoundingBox inner)
+    {
+        return inner.minX >= outer.minX && inner.maxX <= outer.maxX && inner.minZ >= outer.minZ && inner.maxZ <= outer.maxZ;
+    }
+
     public static boolean valid(StructureBoundingBox boundingBox)
     {
         return boundingBox != null
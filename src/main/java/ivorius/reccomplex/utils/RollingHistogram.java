@@ -0,0 +1,152 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.utils;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Thread-safe histogram of durations over a rolling time window, in power-of-two microsecond buckets.
+ * The window is split into slices; a slice is cleared once it comes around again.
+ */
+public class RollingHistogram
+{
+    public static final int BUCKETS = 32;
+
+    protected static final int COUNT = BUCKETS, TOTAL = BUCKETS + 1, MAX = BUCKETS + 2;
+
+    protected final long sliceMillis;
+    protected final Slice[] slices;
+
+    public RollingHistogram(long sliceMillis, int slices)
+    {
+        this.sliceMillis = sliceMillis;
+        this.slices = new Slice[slices];
+        for (int i = 0; i < slices; i++)
+            this.slices[i] = new Slice();
+    }
+
+    public static int bucket(long nanos)
+    {
+        long micros = nanos / 1000;
+        return Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    }
+
+    /**
+     * @return The upper bound of the bucket, in nanoseconds.
+     */
+    public static long bucketLimit(int bucket)
+    {
+        return (1L << bucket) * 1000;
+    }
+
+    protected long epoch()
+    {
+        return System.currentTimeMillis() / sliceMillis;
+    }
+
+    public void record(long nanos)
+    {
+        long epoch = epoch();
+        Slice slice = slices[(int) (epoch % slices.length)];
+
+        if (slice.epoch != epoch)
+        {
+            synchronized (slice)
+            {
+                if (slice.epoch != epoch)
+                {
+                    for (int i = 0; i < slice.values.length(); i++)
+                        slice.values.set(i, 0);
+                    slice.epoch = epoch;
+                }
+            }
+        }
+
+        slice.values.incrementAndGet(bucket(nanos));
+        slice.values.incrementAndGet(COUNT);
+        slice.values.addAndGet(TOTAL, nanos);
+        slice.values.accumulateAndGet(MAX, nanos, Math::max);
+    }
+
+    public Snapshot snapshot()
+    {
+        long epoch = epoch();
+        long[] values = new long[MAX + 1];
+
+        for (Slice slice : slices)
+        {
+            if (slice.epoch <= epoch - slices.length)
+                continue; // Outdated
+
+            for (int i = 0; i < values.length; i++)
+                values[i] = i == MAX ? Math.max(values[i], slice.values.get(i)) : values[i] + slice.values.get(i);
+        }
+
+        return new Snapshot(values);
+    }
+
+    public void clear()
+    {
+        for (Slice slice : slices)
+        {
+            synchronized (slice)
+            {
+                slice.epoch = -1;
+                for (int i = 0; i < slice.values.length(); i++)
+                    slice.values.set(i, 0);
+            }
+        }
+    }
+
+    protected static class Slice
+    {
+        public volatile long epoch = -1;
+        public final AtomicLongArray values = new AtomicLongArray(MAX + 1);
+    }
+
+    public static class Snapshot
+    {
+        protected final long[] values;
+
+        protected Snapshot(long[] values)
+        {
+            this.values = values;
+        }
+
+        public long count()
+        {
+            return values[COUNT];
+        }
+
+        public long totalNanos()
+        {
+            return values[TOTAL];
+        }
+
+        public long maxNanos()
+        {
+            return values[MAX];
+        }
+
+        /**
+         * @return An upper bound for the given quantile, in nanoseconds.
+         */
+        public long quantileNanos(double quantile)
+        {
+            long needed = (long) Math.ceil(count() * quantile);
+            long seen = 0;
+
+            for (int i = 0; i < BUCKETS; i++)
+            {
+                seen += values[i];
+                if (seen >= needed && seen > 0)
+                    return Math.min(bucketLimit(i), maxNanos());
+            }
+
+            return maxNanos();
+        }
+    }
+}
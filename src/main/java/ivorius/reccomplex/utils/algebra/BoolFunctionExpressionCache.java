@@ -63,5 +63,11 @@ public class BoolFunctionExpressionCache<A, U> extends FunctionExpressionCache<B
         {
             return RCConfig.globalToggles.containsKey(var) ? Validity.KNOWN : Validity.UNKNOWN;
         }
+
+        @Override
+        public boolean isPure()
+        {
+            return false;
+        }
     }
 }
@@ -90,6 +90,18 @@ public class FunctionExpressionCache<T, A, U> extends ExpressionCache<T>
         return Validity.ERROR;
     }
 
+    /**
+     * @return Whether the parsed expression depends on nothing but the evaluated argument.
+     */
+    public boolean isPure()
+    {
+        return parsedExpression != null && parsedExpression.walkVariables(s ->
+        {
+            VariableType<T, ? super A, ? super U> type = type(s.identifier);
+            return type != null && type.isPure();
+        });
+    }
+
     @Override
     protected Algebra.VariableParser<Function<? extends SupplierCache<? super A>, T>> variableParser()
     {
@@ -163,6 +175,12 @@ public class FunctionExpressionCache<T, A, U> extends ExpressionCache<T>
             return parent.validity(var, u);
         }
 
+        @Override
+        public boolean isPure()
+        {
+            return parent.isPure();
+        }
+
         @Override
         public String getRepresentation(String var, String prefix, String suffix, U u)
         {
@@ -195,6 +213,14 @@ public class FunctionExpressionCache<T, A, U> extends ExpressionCache<T>
 
         public abstract Validity validity(String var, U u);
 
+        /**
+         * @return Whether parsed functions depend on nothing but their argument, so results may be precomputed.
+         */
+        public boolean isPure()
+        {
+            return true;
+        }
+
         public TextFormatting getRepresentation(Validity validity)
         {
             return validity == Validity.KNOWN ? TextFormatting.GREEN
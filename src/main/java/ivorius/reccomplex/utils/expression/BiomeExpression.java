@@ -6,6 +6,7 @@
 package ivorius.reccomplex.utils.expression;
 
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
 import ivorius.reccomplex.utils.accessor.RCAccessorBiomeDictionary;
 import ivorius.reccomplex.utils.algebra.BoolFunctionExpressionCache;
 import ivorius.reccomplex.utils.algebra.RCBoolAlgebra;
@@ -14,8 +15,11 @@ import net.minecraft.util.text.TextFormatting;
 import net.minecraft.world.biome.Biome;
 import net.minecraftforge.common.BiomeDictionary;
 
+import javax.annotation.Nullable;
 import java.util.Arrays;
-import java.util.List;
+import java.util.BitSet;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
@@ -28,6 +32,11 @@ public class BiomeExpression extends BoolFunctionExpressionCache<Biome, Object>
     public static final String BIOME_ID_PREFIX = "id=";
     public static final String BIOME_TYPE_PREFIX = "type=";
 
+    protected static final AtomicInteger BIOME_GENERATION = new AtomicInteger();
+
+    @Nullable
+    protected volatile CompiledBiomes compiled;
+
     public BiomeExpression()
     {
         super(RCBoolAlgebra.algebra(), true, TextFormatting.GREEN + "Any Biome");
@@ -37,6 +46,44 @@ public class BiomeExpression extends BoolFunctionExpressionCache<Biome, Object>
         addTypes(new BiomeDictVariableType(BIOME_TYPE_PREFIX, ""), t -> t.alias("$", ""));
     }
 
+    /**
+     * Biome IDs or biome dictionary types may have changed, so all compiled expressions need to be rebuilt.
+     */
+    public static void invalidateCompiledBiomes()
+    {
+        BIOME_GENERATION.incrementAndGet();
+    }
+
+    @Override
+    protected void parseExpression()
+    {
+        super.parseExpression();
+        compiled = null;
+    }
+
+    @Override
+    public Boolean evaluate(Biome biome)
+    {
+        CompiledBiomes compiled = compiled();
+        int id = Biome.getIdForBiome(biome);
+
+        if (id >= 0 && compiled.known.get(id))
+            return compiled.matches.get(id);
+
+        return super.evaluate(biome);
+    }
+
+    protected CompiledBiomes compiled()
+    {
+        int generation = BIOME_GENERATION.get();
+        CompiledBiomes compiled = this.compiled;
+
+        if (compiled == null || compiled.generation != generation)
+            this.compiled = compiled = CompiledBiomes.compile(this, generation);
+
+        return compiled;
+    }
+
     public static String ofTypes(BiomeDictionary.Type... biomeTypes)
     {
         return BIOME_TYPE_PREFIX + String.join(" & " + BIOME_TYPE_PREFIX, Lists.transform(Arrays.asList(biomeTypes), input -> input != null ? input.getName() : null));
@@ -52,10 +99,10 @@ public class BiomeExpression extends BoolFunctionExpressionCache<Biome, Object>
         @Override
         public Function<SupplierCache<Biome>, Boolean> parse(String var)
         {
-            List<Biome> biomes = Biome.REGISTRY.getKeys().stream()
+            Set<Biome> biomes = Biome.REGISTRY.getKeys().stream()
                     .map(Biome.REGISTRY::getObject)
                     .filter(b -> b.getBiomeName().equals(var))
-                    .collect(Collectors.toList());
+                    .collect(Collectors.toCollection(Sets::newIdentityHashSet));
             return o -> biomes.contains(o.get());
         }
 
@@ -93,4 +140,41 @@ public class BiomeExpression extends BoolFunctionExpressionCache<Biome, Object>
         }
 
     }
+
+    protected static class CompiledBiomes
+    {
+        public final int generation;
+
+        public final BitSet known;
+        public final BitSet matches;
+
+        public CompiledBiomes(int generation, BitSet known, BitSet matches)
+        {
+            this.generation = generation;
+            this.known = known;
+            this.matches = matches;
+        }
+
+        public static CompiledBiomes compile(BiomeExpression expression, int generation)
+        {
+            BitSet known = new BitSet();
+            BitSet matches = new BitSet();
+
+            // e.g. global toggles can change at any time
+            if (!expression.isPure())
+                return new CompiledBiomes(generation, known, matches);
+
+            for (Biome biome : Biome.REGISTRY)
+            {
+                int id = Biome.getIdForBiome(biome);
+                if (id < 0)
+                    continue;
+
+                known.set(id);
+                matches.set(id, expression.evaluate(SupplierCache.direct(biome)));
+            }
+
+            return new CompiledBiomes(generation, known, matches);
+        }
+    }
 }
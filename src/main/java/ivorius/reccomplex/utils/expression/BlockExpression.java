@@ -26,8 +26,11 @@ import net.minecraftforge.fml.common.Loader;
 import net.minecraftforge.fml.common.event.FMLInterModComms;
 import org.apache.commons.lang3.tuple.Pair;
 
+import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 import java.util.function.Function;
 
 /**
@@ -40,8 +43,14 @@ public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Ob
     public static final String METADATA_PREFIX = "metadata=";
     public static final String PROPERTY_PREFIX = "property[";
 
+    protected static final AtomicInteger STATE_ID_GENERATION = new AtomicInteger();
+
     public final MCRegistry registry;
 
+    protected boolean compiling;
+    @Nullable
+    protected volatile CompiledStates compiled;
+
     public BlockExpression(MCRegistry registry)
     {
         super(RCBoolAlgebra.algebra(), true, TextFormatting.GREEN + "Any Block");
@@ -54,6 +63,63 @@ public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Ob
         addTypes(new PropertyVariableType(PROPERTY_PREFIX, ""), t -> t.alias("$[", ""));
     }
 
+    /**
+     * Block state IDs (or what our registries resolve them to) may have changed, so all compiled expressions need to
+     * be rebuilt.
+     */
+    public static void invalidateCompiledStates()
+    {
+        STATE_ID_GENERATION.incrementAndGet();
+    }
+
+    /**
+     * Opts into remembering the result per block state ID the first time it is asked for, so that further tests are
+     * mere bit lookups. Worth it for matchers that stay around and are tested per block.
+     */
+    public BlockExpression compiling()
+    {
+        this.compiling = true;
+        return this;
+    }
+
+    public boolean isCompiling()
+    {
+        return compiling;
+    }
+
+    @Override
+    protected void parseExpression()
+    {
+        super.parseExpression();
+        compiled = null;
+    }
+
+    @Override
+    public Boolean evaluate(IBlockState state)
+    {
+        if (compiling)
+        {
+            CompiledStates compiled = compiled();
+            Boolean match = compiled.get(this, state);
+
+            if (match != null)
+                return match;
+        }
+
+        return super.evaluate(state);
+    }
+
+    protected CompiledStates compiled()
+    {
+        int generation = STATE_ID_GENERATION.get();
+        CompiledStates compiled = this.compiled;
+
+        if (compiled == null || compiled.generation != generation)
+            this.compiled = compiled = new CompiledStates(generation, isPure());
+
+        return compiled;
+    }
+
     public static String of(MCRegistry registry, Block block)
     {
         return registry.idFromBlock(block).toString();
@@ -237,4 +303,95 @@ public class BlockExpression extends BoolFunctionExpressionCache<IBlockState, Ob
                     ? Validity.KNOWN : Validity.UNKNOWN;
         }
     }
+
+    /**
+     * Results per block state ID, filled in as IDs are looked up. Two bits per ID, in the same word, so that
+     * concurrent lookups can fill it: Whether the ID is known, and whether it matches. Set without known means all
+     * states with the ID don't agree on the result (non-metadata properties), so it needs evaluation every time.
+     */
+    protected static class CompiledStates
+    {
+        public static final int MAX_STATE_ID = 1 << 16;
+        protected static final int IDS_PER_WORD = Long.SIZE / 2;
+
+        public final int generation;
+        // e.g. global toggles can change at any time
+        public final boolean pure;
+
+        protected final AtomicLongArray words;
+
+        public CompiledStates(int generation, boolean pure)
+        {
+            this.generation = generation;
+            this.pure = pure;
+            this.words = new AtomicLongArray(pure ? MAX_STATE_ID / IDS_PER_WORD : 0);
+        }
+
+        protected static long knownBit(int id)
+        {
+            return 1L << ((id % IDS_PER_WORD) * 2);
+        }
+
+        protected static long matchBit(int id)
+        {
+            return knownBit(id) << 1;
+        }
+
+        /**
+         * @return Whether the state matches, or null if the state needs to be evaluated by itself.
+         */
+        @Nullable
+        public Boolean get(BlockExpression expression, IBlockState state)
+        {
+            int id = Block.getStateId(state);
+            if (!pure || id < 0 || id >= MAX_STATE_ID)
+                return null;
+
+            int word = id / IDS_PER_WORD;
+            long current = words.get(word);
+
+            if ((current & (knownBit(id) | matchBit(id))) == 0)
+                current = compile(expression, state.getBlock(), id);
+
+            return (current & knownBit(id)) != 0 ? (current & matchBit(id)) != 0 : null;
+        }
+
+        protected long compile(BlockExpression expression, Block block, int id)
+        {
+            Boolean match = null;
+            boolean ambiguous = false;
+
+            for (IBlockState state : block.getBlockState().getValidStates())
+            {
+                if (Block.getStateId(state) != id)
+                    continue;
+
+                boolean stateMatch = expression.evaluate(SupplierCache.direct(state));
+
+                if (match == null)
+                    match = stateMatch;
+                else if (match != stateMatch)
+                {
+                    ambiguous = true;
+                    break;
+                }
+            }
+
+            // If the state isn't among the block's valid ones, we can't tell for its ID either
+            long bits = ambiguous || match == null ? matchBit(id)
+                    : knownBit(id) | (match ? matchBit(id) : 0);
+
+            int word = id / IDS_PER_WORD;
+            long current;
+            do
+            {
+                current = words.get(word);
+                if ((current & (knownBit(id) | matchBit(id))) != 0) // Someone else was faster; the answer is the same
+                    return current;
+            }
+            while (!words.compareAndSet(word, current, current | bits));
+
+            return current | bits;
+        }
+    }
 }
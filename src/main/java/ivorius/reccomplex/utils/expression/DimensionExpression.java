@@ -6,6 +6,8 @@
 package ivorius.reccomplex.utils.expression;
 
 import com.google.common.primitives.Ints;
+import gnu.trove.map.TIntObjectMap;
+import gnu.trove.map.hash.TIntObjectHashMap;
 import ivorius.reccomplex.dimensions.DimensionDictionary;
 import ivorius.reccomplex.utils.algebra.BoolFunctionExpressionCache;
 import ivorius.reccomplex.utils.algebra.RCBoolAlgebra;
@@ -15,6 +17,7 @@ import net.minecraft.world.WorldProvider;
 import net.minecraftforge.common.DimensionManager;
 import org.apache.commons.lang3.ArrayUtils;
 
+import javax.annotation.Nullable;
 import java.util.function.Function;
 
 /**
@@ -25,6 +28,9 @@ public class DimensionExpression extends BoolFunctionExpressionCache<WorldProvid
     public static final String DIMENSION_ID_PREFIX = "id=";
     public static final String DIMENSION_TYPE_PREFIX = "type=";
 
+    @Nullable
+    protected volatile CompiledDimensions compiled;
+
     public DimensionExpression()
     {
         super(RCBoolAlgebra.algebra(), true, TextFormatting.GREEN + "Any Dimension");
@@ -33,6 +39,46 @@ public class DimensionExpression extends BoolFunctionExpressionCache<WorldProvid
         addTypes(new DimensionDictVariableType(DIMENSION_TYPE_PREFIX, ""), t -> t.alias("$", ""));
     }
 
+    @Override
+    protected void parseExpression()
+    {
+        super.parseExpression();
+        compiled = null;
+    }
+
+    @Override
+    public Boolean evaluate(WorldProvider provider)
+    {
+        // Handlers decide their types themselves, so we can't know when they change
+        if (provider instanceof DimensionDictionary.Handler)
+            return super.evaluate(provider);
+
+        CompiledDimensions compiled = compiled();
+        int id = provider.getDimension();
+
+        Boolean match = compiled.matches.get(id);
+        if (match == null)
+        {
+            match = super.evaluate(provider);
+
+            if (compiled.pure)
+                this.compiled = compiled.with(id, match);
+        }
+
+        return match;
+    }
+
+    protected CompiledDimensions compiled()
+    {
+        int generation = DimensionDictionary.generation();
+        CompiledDimensions compiled = this.compiled;
+
+        if (compiled == null || compiled.generation != generation)
+            this.compiled = compiled = new CompiledDimensions(generation, isPure(), new TIntObjectHashMap<>());
+
+        return compiled;
+    }
+
     public static String ofTypes(String... dimensionTypes)
     {
         return DIMENSION_TYPE_PREFIX + String.join(" & " + DIMENSION_TYPE_PREFIX, dimensionTypes);
@@ -81,4 +127,29 @@ public class DimensionExpression extends BoolFunctionExpressionCache<WorldProvid
                     ? Validity.KNOWN : Validity.UNKNOWN;
         }
     }
+
+    /**
+     * What the expression returned per dimension ID. Never modified, only replaced, so it can be read from anywhere.
+     */
+    protected static class CompiledDimensions
+    {
+        public final int generation;
+        public final boolean pure;
+
+        public final TIntObjectMap<Boolean> matches;
+
+        public CompiledDimensions(int generation, boolean pure, TIntObjectMap<Boolean> matches)
+        {
+            this.generation = generation;
+            this.pure = pure;
+            this.matches = matches;
+        }
+
+        public CompiledDimensions with(int id, boolean match)
+        {
+            TIntObjectMap<Boolean> matches = new TIntObjectHashMap<>(this.matches);
+            matches.put(id, match);
+            return new CompiledDimensions(generation, pure, matches);
+        }
+    }
 }
@@ -0,0 +1,215 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import ivorius.reccomplex.utils.RCBlockPositions;
+import net.minecraft.block.Block;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.init.Blocks;
+import net.minecraft.tileentity.TileEntity;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.EnumSkyBlock;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.ExtendedBlockStorage;
+
+import java.util.*;
+
+/**
+ * Collects block changes per chunk section and writes them straight into the section storage, instead of going
+ * through world.setBlockState for every single block.
+ * Block hooks and tile entities are handled like Chunk#setBlockState does after all blocks are written. Block light is
+ * redone only where a change affects it, and each change is notified according to the flag it was set with, like
+ * World#setBlockState would. Sky light is redone once per touched chunk on {@link #relight()}.
+ */
+public class BulkBlockPlacer
+{
+    protected final WorldServer world;
+
+    protected final TLongObjectMap<Section> sections = new TLongObjectHashMap<>();
+    protected final List<Runnable> whenPlaced = new ArrayList<>();
+    protected final Set<Chunk> unlit = Collections.newSetFromMap(new IdentityHashMap<>());
+
+    public BulkBlockPlacer(WorldServer world)
+    {
+        this.world = world;
+    }
+
+    public boolean setBlockState(BlockPos pos, IBlockState state, int flag)
+    {
+        if (world.isOutsideBuildHeight(pos))
+            return false;
+
+        int chunkX = pos.getX() >> 4, sectionY = pos.getY() >> 4, chunkZ = pos.getZ() >> 4;
+        long key = RCBlockPositions.pack(chunkX, sectionY, chunkZ);
+
+        Section section = sections.get(key);
+        if (section == null)
+            sections.put(key, section = new Section(chunkX, sectionY, chunkZ));
+
+        int index = Section.index(pos.getX() & 15, pos.getY() & 15, pos.getZ() & 15);
+        section.states[index] = state;
+        section.flags[index] = (byte) flag;
+        return true;
+    }
+
+    /**
+     * Queues something that needs the blocks to be in the world, e.g. reading tile entity data.
+     */
+    public void whenPlaced(Runnable runnable)
+    {
+        whenPlaced.add(runnable);
+    }
+
+    public void flush()
+    {
+        TLongObjectMap<Chunk> chunks = new TLongObjectHashMap<>();
+
+        for (Section section : sections.valueCollection())
+        {
+            long chunkKey = ChunkPos.asLong(section.chunkX, section.chunkZ);
+            Chunk chunk = chunks.get(chunkKey);
+            if (chunk == null)
+                chunks.put(chunkKey, chunk = world.getChunkFromChunkCoords(section.chunkX, section.chunkZ));
+
+            section.write(world, chunk);
+        }
+
+        // Only now, so hooks see the finished structure
+        for (Section section : sections.valueCollection())
+            section.update(world, chunks.get(ChunkPos.asLong(section.chunkX, section.chunkZ)));
+
+        for (Chunk chunk : chunks.valueCollection())
+            chunk.markDirty();
+        unlit.addAll(chunks.valueCollection());
+
+        sections.clear();
+
+        for (Runnable runnable : whenPlaced)
+            runnable.run();
+        whenPlaced.clear();
+    }
+
+    /**
+     * Redoes sky light for the chunks flushed so far. Call this only once their height maps are accurate again.
+     */
+    public void relight()
+    {
+        for (Chunk chunk : unlit)
+        {
+            chunk.generateSkylightMap();
+
+            // Have the chunk recheck its light on the next tick, as it would after population
+            if (chunk.isLightPopulated())
+                chunk.setLightPopulated(false);
+        }
+
+        unlit.clear();
+    }
+
+    protected static class Section
+    {
+        public final int chunkX, sectionY, chunkZ;
+
+        public final IBlockState[] states = new IBlockState[16 * 16 * 16];
+        public final byte[] flags = new byte[16 * 16 * 16];
+        public IBlockState[] previous;
+
+        public Section(int chunkX, int sectionY, int chunkZ)
+        {
+            this.chunkX = chunkX;
+            this.sectionY = sectionY;
+            this.chunkZ = chunkZ;
+        }
+
+        public static int index(int x, int y, int z)
+        {
+            return y << 8 | z << 4 | x;
+        }
+
+        public void write(WorldServer world, Chunk chunk)
+        {
+            ExtendedBlockStorage[] storageArray = chunk.getBlockStorageArray();
+            ExtendedBlockStorage storage = storageArray[sectionY];
+            previous = new IBlockState[states.length];
+
+            for (int i = 0; i < states.length; i++)
+            {
+                IBlockState state = states[i];
+                if (state == null)
+                    continue;
+
+                if (storage == Chunk.NULL_BLOCK_STORAGE)
+                {
+                    if (state.getBlock() == Blocks.AIR)
+                    {
+                        states[i] = null;
+                        continue;
+                    }
+
+                    storage = storageArray[sectionY] = new ExtendedBlockStorage(sectionY << 4, world.provider.hasSkyLight());
+                }
+
+                IBlockState prev = storage.get(i & 15, i >> 8, (i >> 4) & 15);
+                if (prev == state)
+                {
+                    states[i] = null;
+                    continue;
+                }
+
+                storage.set(i & 15, i >> 8, (i >> 4) & 15, state);
+                previous[i] = prev;
+            }
+        }
+
+        public void update(WorldServer world, Chunk chunk)
+        {
+            for (int i = 0; i < states.length; i++)
+            {
+                IBlockState state = states[i];
+                if (state == null)
+                    continue;
+
+                IBlockState prev = previous[i];
+                Block block = state.getBlock(), prevBlock = prev.getBlock();
+
+                // Hooks and neighbors may hold on to the position (e.g. scheduled ticks)
+                BlockPos pos = new BlockPos(chunkX << 4 | (i & 15), sectionY << 4 | (i >> 8), chunkZ << 4 | ((i >> 4) & 15));
+
+                if (prevBlock != block)
+                    prevBlock.breakBlock(world, pos, prev);
+
+                TileEntity tileEntity = chunk.getTileEntity(pos, Chunk.EnumCreateEntityType.CHECK);
+                if (tileEntity != null && tileEntity.shouldRefresh(world, pos, prev, state))
+                    world.removeTileEntity(pos);
+
+                if (prevBlock != block)
+                    block.onBlockAdded(world, pos, state);
+
+                if (block.hasTileEntity(state))
+                {
+                    tileEntity = chunk.getTileEntity(pos, Chunk.EnumCreateEntityType.CHECK);
+
+                    if (tileEntity == null)
+                        world.setTileEntity(pos, block.createTileEntity(world, state));
+                    else
+                        tileEntity.updateContainingBlockInfo();
+                }
+
+                if (state.getLightOpacity(world, pos) != prev.getLightOpacity(world, pos)
+                        || state.getLightValue(world, pos) != prev.getLightValue(world, pos))
+                    world.checkLightFor(EnumSkyBlock.BLOCK, pos);
+
+                world.markAndNotifyBlock(pos, chunk, prev, state, flags[i]);
+            }
+
+            previous = null;
+        }
+    }
+}
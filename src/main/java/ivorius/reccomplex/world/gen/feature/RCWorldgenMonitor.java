@@ -6,29 +6,362 @@
 package ivorius.reccomplex.world.gen.feature;
 
 import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.utils.RollingHistogram;
+import net.minecraft.world.chunk.Chunk;
 
-import java.util.ArrayDeque;
-import java.util.Deque;
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.text.SimpleDateFormat;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
 
+/**
+ * Times what world generation spends its time on, per phase and per structure, and notices chunks that are loaded or
+ * generated while we generate (cascading generation).
+ * Phases nest; structures get their own (exclusive) time and allocations attributed, phases their inclusive time.
+ */
 public class RCWorldgenMonitor
 {
-    protected final static Deque<String> actions = new ArrayDeque<>();
+    public static final long SLICE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final int SLICES = 6; // One hour
+
+    protected static final ThreadLocal<Deque<Frame>> frames = ThreadLocal.withInitial(ArrayDeque::new);
+    // Only where it is, so we don't keep the chunk itself around if it never finishes loading
+    protected static final ThreadLocal<ReadChunk> readChunk = new ThreadLocal<>();
+
+    protected static final Map<Phase, RollingHistogram> phases = new EnumMap<>(Phase.class);
+    protected static final Map<String, StructureStatistics> structures = new ConcurrentHashMap<>();
+
+    protected static final AtomicLong cascadingGenerations = new AtomicLong();
+    protected static final AtomicLong cascadingLoads = new AtomicLong();
+
+    protected static final AtomicLong complementedChildren = new AtomicLong();
+    protected static final AtomicLong skippedChildren = new AtomicLong();
+
+    protected static volatile ThreadMXBean threadBean;
+    // com.sun.management.ThreadMXBean#getThreadAllocatedBytes, which only some VMs have
+    protected static Method threadAllocatedBytes;
+
+    static
+    {
+        for (Phase phase : Phase.values())
+            phases.put(phase, new RollingHistogram(SLICE_MILLIS, SLICES));
+    }
+
+    public static void create()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+
+        try
+        {
+            Class<?> beanClass = Class.forName("com.sun.management.ThreadMXBean");
+            if (beanClass.isInstance(bean) && (Boolean) beanClass.getMethod("isThreadAllocatedMemorySupported").invoke(bean))
+            {
+                threadAllocatedBytes = beanClass.getMethod("getThreadAllocatedBytes", long.class);
+                threadBean = bean;
+            }
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            RecurrentComplex.logger.info("Can't measure allocations during world generation on this VM");
+        }
+    }
 
-    public static void start(String action)
+    public static boolean measuresAllocations()
     {
-        actions.push(action);
+        return threadBean != null;
+    }
+
+    /**
+     * @return Bytes allocated by the current thread so far, or 0 if this VM can't tell.
+     */
+    public static long allocatedBytes()
+    {
+        ThreadMXBean bean = threadBean;
+        if (bean == null)
+            return 0;
+
+        try
+        {
+            return (Long) threadAllocatedBytes.invoke(bean, Thread.currentThread().getId());
+        }
+        catch (ReflectiveOperationException | RuntimeException e)
+        {
+            threadBean = null;
+            return 0;
+        }
+    }
+
+    public static void start(@Nonnull Phase phase)
+    {
+        Frame parent = frames.get().peek();
+        start(phase, parent != null ? parent.structure : null);
+    }
+
+    public static void start(@Nonnull Phase phase, @Nullable String structure)
+    {
+        frames.get().push(new Frame(phase, structure, System.nanoTime(), allocatedBytes()));
     }
 
     public static void stop()
     {
-        actions.pop();
+        Deque<Frame> frames = RCWorldgenMonitor.frames.get();
+        Frame frame = frames.pop();
+
+        long nanos = System.nanoTime() - frame.start;
+        long allocated = allocatedBytes() - frame.allocated;
+
+        Frame parent = frames.peek();
+        if (parent != null)
+        {
+            parent.childNanos += nanos;
+            parent.childAllocated += allocated;
+        }
+
+        phases.get(frame.phase).record(nanos);
+
+        if (frame.structure != null)
+        {
+            StructureStatistics statistics = statistics(frame.structure);
+            statistics.phases.computeIfAbsent(frame.phase, p -> new RollingHistogram(SLICE_MILLIS, SLICES)).record(nanos);
+            statistics.selfNanos.addAndGet(nanos - frame.childNanos);
+            statistics.allocatedBytes.addAndGet(allocated - frame.childAllocated);
+        }
     }
 
-    public static void create()
+    protected static StructureStatistics statistics(String structure)
+    {
+        return structures.computeIfAbsent(structure, s -> new StructureStatistics());
+    }
+
+    @Nullable
+    public static String currentAction()
+    {
+        Frame frame = frames.get().peek();
+        return frame != null ? frame.toString() : null;
+    }
+
+    /**
+     * Called when a chunk was read from disk, right before it loads.
+     */
+    public static void onChunkRead(Chunk chunk)
+    {
+        readChunk.set(new ReadChunk(chunk));
+    }
+
+    /**
+     * Called whenever a chunk loads; if we are generating at the time, we caused it.
+     */
+    public static void onChunkLoad(Chunk chunk)
+    {
+        ReadChunk read = readChunk.get();
+        boolean fromDisk = read != null && read.is(chunk);
+        readChunk.remove();
+
+        Frame frame = frames.get().peek();
+        if (frame == null)
+            return;
+
+        (fromDisk ? cascadingLoads : cascadingGenerations).incrementAndGet();
+
+        if (frame.structure != null)
+            (fromDisk ? statistics(frame.structure).cascadingLoads : statistics(frame.structure).cascadingGenerations).incrementAndGet();
+
+        if (!fromDisk)
+            RecurrentComplex.logger.warn(String.format("Cascading chunk generation happening while %s (%d, %d in %d)",
+                    frame, chunk.x, chunk.z, chunk.getWorld().provider.getDimension()));
+    }
+
+    /**
+     * Called when complementing a structure, with how many of its children reach into the chunk and how many don't.
+     */
+    public static void onComplementChildren(int visited, int skipped)
+    {
+        complementedChildren.addAndGet(visited);
+        skippedChildren.addAndGet(skipped);
+    }
+
+    public static RollingHistogram.Snapshot phase(Phase phase)
+    {
+        return phases.get(phase).snapshot();
+    }
+
+    public static long cascadingGenerations()
     {
-        WorldgenMonitor.create("Recurrent Complex", (p, d) -> {
-            if (actions.size() > 0)
-                RecurrentComplex.logger.warn("Cascading chunk generation happening while " + actions.peek());
-        });
+        return cascadingGenerations.get();
+    }
+
+    public static long cascadingLoads()
+    {
+        return cascadingLoads.get();
+    }
+
+    public static long complementedChildren()
+    {
+        return complementedChildren.get();
+    }
+
+    public static long skippedChildren()
+    {
+        return skippedChildren.get();
+    }
+
+    /**
+     * @return Structure IDs, those with the most (exclusive) time first.
+     */
+    public static List<Map.Entry<String, StructureStatistics>> mostExpensive(int limit)
+    {
+        return structures.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, StructureStatistics> e) -> e.getValue().selfNanos.get()).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public static void reset()
+    {
+        phases.values().forEach(RollingHistogram::clear);
+        structures.clear();
+        cascadingGenerations.set(0);
+        cascadingLoads.set(0);
+        complementedChildren.set(0);
+        skippedChildren.set(0);
+    }
+
+    public static void dump(File file) throws IOException
+    {
+        try (PrintWriter writer = new PrintWriter(file, "UTF-8"))
+        {
+            writer.println("# Recurrent Complex world generation statistics, " + new SimpleDateFormat("yyyy-MM-dd HH:mm:ss").format(new Date()));
+            writer.println("# Phases cover the last " + TimeUnit.MILLISECONDS.toMinutes(SLICE_MILLIS * SLICES) + " minutes; structure totals and cascading counts are since the last reset.");
+            writer.println();
+
+            writer.println(String.format("cascading: %d chunks generated, %d chunks loaded", cascadingGenerations(), cascadingLoads()));
+            writer.println(String.format("complementing: %d children visited, %d skipped", complementedChildren(), skippedChildren()));
+            writer.println();
+
+            writer.println("phase\tcount\ttotal_ms\tp50_ms\tp90_ms\tp99_ms\tmax_ms");
+            for (Phase phase : Phase.values())
+                writer.println(phase.id + "\t" + histogramColumns(phase(phase)));
+            writer.println();
+
+            writer.println("structure\tself_ms\tallocated_kib\tcascading_generated\tcascading_loaded");
+            for (Map.Entry<String, StructureStatistics> entry : mostExpensive(Integer.MAX_VALUE))
+            {
+                StructureStatistics statistics = entry.getValue();
+                writer.println(String.format("%s\t%.2f\t%s\t%d\t%d", entry.getKey(), millis(statistics.selfNanos.get()),
+                        measuresAllocations() ? String.valueOf(statistics.allocatedBytes.get() / 1024) : "unsupported",
+                        statistics.cascadingGenerations.get(), statistics.cascadingLoads.get()));
+            }
+            writer.println();
+
+            writer.println("structure\tphase\tcount\ttotal_ms\tp50_ms\tp90_ms\tp99_ms\tmax_ms");
+            for (Map.Entry<String, StructureStatistics> entry : mostExpensive(Integer.MAX_VALUE))
+            {
+                Map<Phase, RollingHistogram> phases;
+                synchronized (entry.getValue().phases)
+                {
+                    phases = new TreeMap<>(entry.getValue().phases);
+                }
+
+                for (Map.Entry<Phase, RollingHistogram> phase : phases.entrySet())
+                    writer.println(entry.getKey() + "\t" + phase.getKey().id + "\t" + histogramColumns(phase.getValue().snapshot()));
+            }
+        }
+    }
+
+    protected static String histogramColumns(RollingHistogram.Snapshot snapshot)
+    {
+        return String.format("%d\t%.2f\t%.2f\t%.2f\t%.2f\t%.2f", snapshot.count(), millis(snapshot.totalNanos()),
+                millis(snapshot.quantileNanos(0.5)), millis(snapshot.quantileNanos(0.9)), millis(snapshot.quantileNanos(0.99)),
+                millis(snapshot.maxNanos()));
+    }
+
+    public static double millis(long nanos)
+    {
+        return nanos / 1000000.0;
+    }
+
+    public enum Phase
+    {
+        SELECT("select"),
+        PLACE("place"),
+        PREPARE("prepare"),
+        RUINS("ruins"),
+        GENERATE("generate"),
+        BLOCKS("blocks"),
+        COMPLEMENT("complement"),
+        LOOT("loot"),
+        DECORATION("decoration");
+
+        public final String id;
+
+        Phase(String id)
+        {
+            this.id = id;
+        }
+    }
+
+    public static class StructureStatistics
+    {
+        public final Map<Phase, RollingHistogram> phases = Collections.synchronizedMap(new EnumMap<>(Phase.class));
+
+        public final AtomicLong selfNanos = new AtomicLong();
+        public final AtomicLong allocatedBytes = new AtomicLong();
+        public final AtomicLong cascadingGenerations = new AtomicLong();
+        public final AtomicLong cascadingLoads = new AtomicLong();
+    }
+
+    protected static class ReadChunk
+    {
+        public final int x, z;
+        public final int dimension;
+
+        public ReadChunk(Chunk chunk)
+        {
+            this.x = chunk.x;
+            this.z = chunk.z;
+            this.dimension = chunk.getWorld().provider.getDimension();
+        }
+
+        public boolean is(Chunk chunk)
+        {
+            return chunk.x == x && chunk.z == z && chunk.getWorld().provider.getDimension() == dimension;
+        }
+    }
+
+    protected static class Frame
+    {
+        public final Phase phase;
+        @Nullable
+        public final String structure;
+
+        public final long start;
+        public final long allocated;
+
+        public long childNanos;
+        public long childAllocated;
+
+        public Frame(Phase phase, @Nullable String structure, long start, long allocated)
+        {
+            this.phase = phase;
+            this.structure = structure;
+            this.start = start;
+            this.allocated = allocated;
+        }
+
+        @Override
+        public String toString()
+        {
+            return structure != null ? phase.id + " " + structure : phase.id;
+        }
     }
 }
@@ -0,0 +1,72 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import net.minecraft.util.math.ChunkPos;
+
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Striped locks over square regions of chunks, so that generation in distant parts of a world doesn't serialize.
+ * A thread only ever holds one region at a time: Nested (cascading) generation in other regions runs without
+ * acquiring another lock. That way, two threads can never wait on each other.
+ * <p>
+ * The locks are advisory: They only keep neighboring chunks from planning at the same time. Cascading generation into
+ * other regions and complementing a new structure into chunks that were already checked run without the lock, so
+ * neither exactly-once complementation nor non-overlapping placement may rely on it. Those are guaranteed by the
+ * atomic operations of {@link WorldStructureGenerationData}.
+ */
+public class RegionLocks
+{
+    public static final int REGION_SHIFT = 2; // 4x4 chunks
+    public static final int STRIPES = 64;
+
+    protected static final ThreadLocal<ReentrantLock> HELD = new ThreadLocal<>();
+
+    protected final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    public RegionLocks()
+    {
+        for (int i = 0; i < locks.length; i++)
+            locks[i] = new ReentrantLock();
+    }
+
+    public static int stripe(int regionX, int regionZ)
+    {
+        int hash = regionX * 31 + regionZ;
+        hash ^= (hash >>> 16);
+        return hash & (STRIPES - 1);
+    }
+
+    public ReentrantLock lockFor(ChunkPos chunkPos)
+    {
+        return locks[stripe(chunkPos.x >> REGION_SHIFT, chunkPos.z >> REGION_SHIFT)];
+    }
+
+    /**
+     * @return The lock that was acquired and must be passed to {@link #unlock(ReentrantLock)}, or null if the thread
+     * is already inside a region.
+     */
+    public ReentrantLock lock(ChunkPos chunkPos)
+    {
+        if (HELD.get() != null)
+            return null;
+
+        ReentrantLock lock = lockFor(chunkPos);
+        lock.lock();
+        HELD.set(lock);
+        return lock;
+    }
+
+    public void unlock(ReentrantLock lock)
+    {
+        if (lock == null)
+            return;
+
+        HELD.remove();
+        lock.unlock();
+    }
+}
@@ -142,15 +142,38 @@ public class StructureGenerator<S extends NBTStorable>
         WorldServer world = spawn.environment.world;
         StructureBoundingBox boundingBox = spawn.boundingBox;
 
+        WorldStructureGenerationData.Reservation reservation = null;
+
         if (maturity().isSuggest()) {
             if (boundingBox.minY < MIN_DIST_TO_LIMIT || boundingBox.maxY > world.getHeight() - 1 - MIN_DIST_TO_LIMIT) {
                 return failGenerate(GenerationResult.Failure.outOfBounds);
             }
 
-            if (RCConfig.avoidOverlappingGeneration && !allowOverlaps && !WorldStructureGenerationData.get(world).entriesAt(boundingBox).noneMatch(WorldStructureGenerationData.Entry::blocking)) {
-                return failGenerate(GenerationResult.Failure.structureOverlap);
+            if (RCConfig.avoidOverlappingGeneration && !allowOverlaps) {
+                // Check and reserve in one go, so nobody plans on top of us while we generate
+                reservation = WorldStructureGenerationData.get(world).reserve(boundingBox, structure.isBlocking());
+
+                if (reservation == null)
+                    return failGenerate(GenerationResult.Failure.structureOverlap);
             }
+        }
 
+        try {
+            return generate(instanceData, spawn, structure, structureID, firstTime);
+        }
+        finally {
+            if (reservation != null)
+                WorldStructureGenerationData.get(world).release(reservation);
+        }
+    }
+
+    @Nonnull
+    protected GenerationResult generate(S instanceData, StructureSpawnContext spawn, Structure<S> structure, String structureID, boolean firstTime)
+    {
+        WorldServer world = spawn.environment.world;
+        StructureBoundingBox boundingBox = spawn.boundingBox;
+
+        if (maturity().isSuggest()) {
             if (RCEventBus.INSTANCE.post(new StructureGenerationEvent.Suggest(structure, spawn))
                     || (structureID != null && MinecraftForge.EVENT_BUS.post(new StructureGenerationEventLite.Suggest(world, structureID, boundingBox, spawn.generationLayer, firstTime)))) {
                 return failGenerate(GenerationResult.Failure.cancel);
@@ -163,7 +186,7 @@ public class StructureGenerator<S extends NBTStorable>
                 MinecraftForge.EVENT_BUS.post(new StructureGenerationEventLite.Pre(world, structureID, boundingBox, spawn.generationLayer, firstTime));
         }
 
-        RCWorldgenMonitor.start("generating " + structureID());
+        RCWorldgenMonitor.start(firstTime ? RCWorldgenMonitor.Phase.GENERATE : RCWorldgenMonitor.Phase.COMPLEMENT, structureID);
         try {
             structure.generate(spawn, instanceData, foreignTransformer());
         }
@@ -183,9 +206,22 @@ public class StructureGenerator<S extends NBTStorable>
         if (structureID != null)
             MinecraftForge.EVENT_BUS.post(new StructureGenerationEventLite.Post(world, structureID, boundingBox, spawn.generationLayer, firstTime));
 
-        if (structureID == null || !memorize)
+        if (structureID == null)
             return GenerationResult.Success.contemporary;
 
+        if (!memorize)
+        {
+            // Partial structures need their entry to be complemented later, unless there's nothing left to complement
+            boolean complete = !partially || RCStructureBoundingBoxes.containsHorizontally(generationBB, boundingBox);
+
+            if (complete)
+            {
+                if (partially && RCConfig.countDecoration)
+                    WorldStructureGenerationData.get(world).countUnmemorized(boundingBox);
+                return GenerationResult.Success.contemporary;
+            }
+        }
+
         String generationInfoID = generationType != null ? generationType.id() : null;
 
         WorldStructureGenerationData.StructureEntry structureEntry =
@@ -215,9 +251,13 @@ public class StructureGenerator<S extends NBTStorable>
                 if (oldBB.intersectsWith(generationBB))
                     continue; // Skip those that we just generated in, especially the same chunk
 
-                RCWorldgenMonitor.start("pre-complementing " + structureID());
-                structure.generate(spawn().get(), instanceData, RCConfig.getUniversalTransformer());
-                RCWorldgenMonitor.stop();
+                RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.COMPLEMENT, structureID);
+                try {
+                    structure.generate(spawn().get(), instanceData, RCConfig.getUniversalTransformer());
+                }
+                finally {
+                    RCWorldgenMonitor.stop();
+                }
             }
             generationBB(oldBB);
         }
@@ -409,9 +449,14 @@ public class StructureGenerator<S extends NBTStorable>
                 boundingBox = Structures.boundingBox((fromCenter ? surfacePos.subtract(size[0] / 2, size[2] / 2) : surfacePos).blockPos(0), size);
 
                 if (placed) {
-                    RCWorldgenMonitor.start("placing " + structureID());
-                    int y = placer.place(place(), structure().blockCollection());
-                    RCWorldgenMonitor.stop();
+                    int y;
+                    RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.PLACE, structureID());
+                    try {
+                        y = placer.place(place(), structure().blockCollection());
+                    }
+                    finally {
+                        RCWorldgenMonitor.stop();
+                    }
 
                     if (y < 0) return Optional.empty();
                     boundingBox.minY += y;
@@ -522,12 +567,9 @@ public class StructureGenerator<S extends NBTStorable>
                 : this.instanceDataNBT != null ? load().map(load -> structure().loadInstanceData(load, this.instanceDataNBT, foreignTransformer()))
                 : prepare().flatMap(prepare ->
         {
+            RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.PREPARE, structureID());
             try {
-                RCWorldgenMonitor.start("preparing " + structureID());
-                Optional<S> prepared = Optional.ofNullable(structure().prepareInstanceData(prepare, foreignTransformer()));
-                RCWorldgenMonitor.stop();
-
-                return prepared;
+                return Optional.ofNullable(structure().prepareInstanceData(prepare, foreignTransformer()));
             }
             catch (Exception e) {
                 if (e instanceof ExpectedException && ((ExpectedException) e).isExpected())
@@ -535,6 +577,9 @@ public class StructureGenerator<S extends NBTStorable>
                 else
                     RecurrentComplex.logger.error("Error preparing structure: " + structure(), e);
             }
+            finally {
+                RCWorldgenMonitor.stop();
+            }
 
             return Optional.empty();
         });
@@ -27,8 +27,8 @@ import org.apache.commons.lang3.tuple.Pair;
 import javax.annotation.Nullable;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.function.Predicate;
-import java.util.stream.Collectors;
 
 /**
  * Created by lukas on 24.05.14.
@@ -70,7 +70,16 @@ public class WorldGenStructures
 
         float distanceToSpawn = distance(new ChunkPos(world.getSpawnPoint()), chunkPos);
         // TODO Use STRUCTURE_TRIES
-        List<Pair<Structure<?>, NaturalGeneration>> generated = structureSelector.generatedStructures(random, world.getBiome(chunkPos.getBlock(0, 0, 0)), world.provider, distanceToSpawn);
+        List<Pair<Structure<?>, NaturalGeneration>> generated;
+        RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.SELECT, null);
+        try
+        {
+            generated = structureSelector.generatedStructures(random, world.getBiome(chunkPos.getBlock(0, 0, 0)), world.provider, distanceToSpawn);
+        }
+        finally
+        {
+            RCWorldgenMonitor.stop();
+        }
 
         generated.stream()
                 .filter(pair -> structurePredicate == null || structurePredicate.test(pair.getLeft()))
@@ -85,7 +94,16 @@ public class WorldGenStructures
 
         for (int i = 0; i < STRUCTURE_TRIES; i++)
         {
-            Pair<Structure<?>, NaturalGeneration> pair = structureSelector.selectOne(random, world.provider, world.getBiome(chunkPos.getBlock(0, 0, 0)), null, distanceToSpawn);
+            Pair<Structure<?>, NaturalGeneration> pair;
+            RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.SELECT, null);
+            try
+            {
+                pair = structureSelector.selectOne(random, world.provider, world.getBiome(chunkPos.getBlock(0, 0, 0)), null, distanceToSpawn);
+            }
+            finally
+            {
+                RCWorldgenMonitor.stop();
+            }
 
             if (pair != null)
             {
@@ -137,7 +155,7 @@ public class WorldGenStructures
                 return;
             }
 
-            if (entry.instanceData == null && !entry.firstTime)
+            if (entry.instanceData == null && !data.isFirstTime(entry))
             {
                 RecurrentComplex.logger.warn(String.format("Can't find instance data of %s (%s) to complement in %s (%d)", entry.getStructureID(), entry.getUuid(), chunkPos, world.provider.getDimension()));
                 return;
@@ -150,11 +168,7 @@ public class WorldGenStructures
                     .maturity(StructureSpawnContext.GenerateMaturity.COMPLEMENT)
                     .generate();
 
-            if (entry.firstTime)
-            {
-                entry.firstTime = false;
-                data.markDirty();
-            }
+            data.markGenerated(entry);
         });
     }
 
@@ -182,14 +196,12 @@ public class WorldGenStructures
         WorldStructureGenerationData data = WorldStructureGenerationData.get(world);
 
         // We need to synchronize (multithreaded gen) since we need to plan structures before complementing,
-        // otherwise structures get lost in some chunks
-        synchronized (data)
+        // otherwise structures get lost in some chunks. Collecting and checking is atomic in the data, as are adding
+        // entries and reserving space, which is what makes this exactly-once. The region lock is only advisory, see RegionLocks.
+        ReentrantLock regionLock = data.regionLocks().lock(chunkPos);
+        try
         {
-            // TODO Synchronize on chunk pos instead (need to make sure these are only added on same sync though)
-
-            List<WorldStructureGenerationData.StructureEntry> complement = data.structureEntriesIn(chunkPos).collect(Collectors.toList());
-            if (structurePredicate == null)
-                data.checkChunk(chunkPos);
+            List<WorldStructureGenerationData.StructureEntry> complement = data.checkChunkForComplement(chunkPos, structurePredicate == null);
 
             // Complement before generating so we don't complement newly planned structures:
             // Chunk checked
@@ -224,6 +236,10 @@ public class WorldGenStructures
                 generated = true;
             }
         }
+        finally
+        {
+            data.regionLocks().unlock(regionLock);
+        }
 
         return generated;
     }
@@ -0,0 +1,280 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.commands.structure.CommandRetrogen;
+import ivorius.reccomplex.utils.expression.ResourceExpression;
+import ivorius.reccomplex.utils.algebra.ExpressionCache;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.WorldServer;
+import net.minecraft.world.chunk.Chunk;
+import net.minecraft.world.chunk.storage.RegionFile;
+import net.minecraft.world.chunk.storage.RegionFileCache;
+import net.minecraft.world.gen.ChunkProviderServer;
+import net.minecraft.world.storage.WorldSavedData;
+import net.minecraftforge.common.util.Constants;
+
+import javax.annotation.Nullable;
+import java.io.File;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Predicate;
+import java.util.stream.Collectors;
+
+/**
+ * A retrogen job, run a little every tick and persisted with the world so it resumes after a restart.
+ * Regions are processed one after another, chunk by chunk; chunks we load are queued for unloading right after, so
+ * only a handful are kept in memory at a time.
+ */
+public class WorldRetrogenData extends WorldSavedData
+{
+    public static final int REGION_CHUNKS = 32 * 32;
+
+    private static final String IDENTIFIER = RecurrentComplex.MOD_ID + "-retrogen";
+
+    @Nullable
+    protected String expression;
+    // Region coordinates, x and z alternating
+    protected int[] regions = new int[0];
+
+    protected int regionIndex;
+    protected int chunkIndex;
+
+    protected long chunksChecked;
+    protected long chunksGenerated;
+
+    protected Predicate<Structure> predicate;
+
+    protected long sessionStart = -1;
+    protected long sessionChecked;
+    protected long sessionSlots;
+
+    public WorldRetrogenData(String id)
+    {
+        super(id);
+    }
+
+    public WorldRetrogenData()
+    {
+        this(IDENTIFIER);
+    }
+
+    public static WorldRetrogenData get(WorldServer world)
+    {
+        WorldRetrogenData data = (WorldRetrogenData) world.getPerWorldStorage().getOrLoadData(WorldRetrogenData.class, IDENTIFIER);
+        if (data == null)
+        {
+            data = new WorldRetrogenData();
+            world.getPerWorldStorage().setData(data.mapName, data);
+        }
+        return data;
+    }
+
+    @Nullable
+    protected static Predicate<Structure> predicate(@Nullable String expression)
+    {
+        if (expression == null)
+            return null;
+
+        ResourceExpression matcher = ExpressionCache.of(new ResourceExpression(s -> !s.isEmpty()), expression);
+        return s -> matcher.test(StructureRegistry.INSTANCE.resourceLocation(s));
+    }
+
+    public void start(WorldServer world, @Nullable String expression)
+    {
+        File worldDirectory = world.getSaveHandler().getWorldDirectory();
+        List<int[]> regions = CommandRetrogen.existingRegions(worldDirectory)
+                .map(p -> new int[]{p.getLeft(), p.getRight()})
+                .collect(Collectors.toList());
+
+        this.expression = expression;
+        this.regions = new int[regions.size() * 2];
+        for (int i = 0; i < regions.size(); i++)
+        {
+            this.regions[i * 2] = regions.get(i)[0];
+            this.regions[i * 2 + 1] = regions.get(i)[1];
+        }
+
+        regionIndex = 0;
+        chunkIndex = 0;
+        chunksChecked = 0;
+        chunksGenerated = 0;
+
+        predicate = null;
+        sessionStart = -1;
+        sessionChecked = 0;
+        sessionSlots = 0;
+
+        markDirty();
+    }
+
+    public void stop()
+    {
+        regions = new int[0];
+        regionIndex = 0;
+        chunkIndex = 0;
+        markDirty();
+    }
+
+    public boolean isRunning()
+    {
+        return regionIndex < regionCount();
+    }
+
+    public int regionCount()
+    {
+        return regions.length / 2;
+    }
+
+    public int regionIndex()
+    {
+        return regionIndex;
+    }
+
+    public long chunksChecked()
+    {
+        return chunksChecked;
+    }
+
+    public long chunksGenerated()
+    {
+        return chunksGenerated;
+    }
+
+    /**
+     * @return Chunks checked per second since the server started or the job was started, whatever happened last.
+     */
+    public double chunksPerSecond()
+    {
+        long millis = sessionStart >= 0 ? System.currentTimeMillis() - sessionStart : 0;
+        return millis > 0 ? sessionChecked * 1000.0 / millis : 0;
+    }
+
+    /**
+     * Extrapolates from the share of region slots that held chunks so far.
+     *
+     * @return The estimated time left, in milliseconds, or -1 if there is no estimate yet.
+     */
+    public long remainingMillis()
+    {
+        double rate = chunksPerSecond();
+        if (rate <= 0 || sessionSlots <= 0)
+            return -1;
+
+        long remainingSlots = (long) (regionCount() - regionIndex) * REGION_CHUNKS - chunkIndex;
+        double remainingChunks = remainingSlots * ((double) sessionChecked / sessionSlots);
+        return (long) (remainingChunks / rate * 1000);
+    }
+
+    /**
+     * Retro-generates chunks until the tick's time budget is used up.
+     */
+    public void update(WorldServer world)
+    {
+        if (!isRunning())
+            return;
+
+        if (predicate == null && expression != null)
+            predicate = predicate(expression);
+        if (sessionStart < 0)
+            sessionStart = System.currentTimeMillis();
+
+        File worldDirectory = world.getSaveHandler().getWorldDirectory();
+        ChunkProviderServer provider = world.getChunkProvider();
+        TLongSet touched = new TLongHashSet();
+
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(RCConfig.retrogenTickBudget);
+
+        do
+        {
+            if (chunkIndex >= REGION_CHUNKS)
+            {
+                regionIndex++;
+                chunkIndex = 0;
+
+                if (!isRunning())
+                {
+                    RecurrentComplex.logger.info(String.format("Retrogen done in dimension %d: %d chunks checked, %d generated",
+                            world.provider.getDimension(), chunksChecked, chunksGenerated));
+                    break;
+                }
+                continue;
+            }
+
+            int x = (regions[regionIndex * 2] << 5) + (chunkIndex & 31);
+            int z = (regions[regionIndex * 2 + 1] << 5) + (chunkIndex >> 5);
+            chunkIndex++;
+            sessionSlots++;
+
+            RegionFile region = RegionFileCache.createOrLoadRegionFile(worldDirectory, x, z);
+            if (!region.chunkExists(x & 31, z & 31))
+                continue;
+
+            ChunkPos pos = new ChunkPos(x, z);
+            chunksChecked++;
+            sessionChecked++;
+
+            if (world.getChunkFromChunkCoords(x, z).isTerrainPopulated()
+                    && WorldGenStructures.decorate(world, CommandRetrogen.getRandom(world, pos), pos, predicate))
+                chunksGenerated++;
+
+            // Decoration spills over into the neighbors
+            for (int cx = x; cx <= x + 1; cx++)
+                for (int cz = z; cz <= z + 1; cz++)
+                    touched.add(ChunkPos.asLong(cx, cz));
+        }
+        while (System.nanoTime() < deadline);
+
+        touched.forEach(key ->
+        {
+            int x = (int) key, z = (int) (key >>> 32);
+            Chunk chunk = provider.getLoadedChunk(x, z);
+            if (chunk != null && !world.getPlayerChunkMap().contains(x, z))
+                provider.queueUnload(chunk);
+            return true;
+        });
+
+        markDirty();
+    }
+
+    @Override
+    public void readFromNBT(NBTTagCompound compound)
+    {
+        expression = compound.hasKey("expression", Constants.NBT.TAG_STRING) ? compound.getString("expression") : null;
+        regions = compound.getIntArray("regions");
+
+        regionIndex = compound.getInteger("regionIndex");
+        chunkIndex = compound.getInteger("chunkIndex");
+
+        chunksChecked = compound.getLong("chunksChecked");
+        chunksGenerated = compound.getLong("chunksGenerated");
+
+        predicate = null;
+    }
+
+    @Override
+    public NBTTagCompound writeToNBT(NBTTagCompound compound)
+    {
+        if (expression != null)
+            compound.setString("expression", expression);
+        compound.setIntArray("regions", regions);
+
+        compound.setInteger("regionIndex", regionIndex);
+        compound.setInteger("chunkIndex", chunkIndex);
+
+        compound.setLong("chunksChecked", chunksChecked);
+        compound.setLong("chunksGenerated", chunksGenerated);
+
+        return compound;
+    }
+}
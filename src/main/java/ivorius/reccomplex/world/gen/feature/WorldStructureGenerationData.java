@@ -7,7 +7,12 @@ package ivorius.reccomplex.world.gen.feature;
 
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.SetMultimap;
-import com.google.common.collect.Sets;
+import gnu.trove.map.TLongIntMap;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongIntHashMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import gnu.trove.set.TLongSet;
+import gnu.trove.set.hash.TLongHashSet;
 import ivorius.ivtoolkit.blocks.BlockPositions;
 import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
 import ivorius.ivtoolkit.tools.NBTCompoundObject;
@@ -30,7 +35,9 @@ import net.minecraft.world.storage.WorldSavedData;
 import net.minecraftforge.common.util.Constants;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -41,14 +48,22 @@ public class WorldStructureGenerationData extends WorldSavedData
 {
     private static final String IDENTIFIER = RecurrentComplex.MOD_ID + "-structuredata";
 
-    protected final Set<ChunkPos> checkedChunks = new HashSet<>();
-    protected final Set<ChunkPos> checkedChunksFinal = new HashSet<>();
+    protected final TLongSet checkedChunks = new TLongHashSet();
+    protected final TLongSet checkedChunksFinal = new TLongHashSet();
 
     protected final Map<UUID, Entry> entryMap = new HashMap<>();
-    protected final SetMultimap<ChunkPos, Entry> chunkMap = HashMultimap.create();
+    // Keyed by ChunkPos.asLong, rasterized for decoration (see RCStructureBoundingBoxes.rasterize)
+    protected final TLongObjectMap<List<Entry>> chunkMap = new TLongObjectHashMap<>();
 
     protected final SetMultimap<String, StructureEntry> instanceMap = HashMultimap.create();
 
+    // Structures generated without an entry, like most decoration; keyed like chunkMap
+    protected final TLongIntMap unmemorizedCounts = new TLongIntHashMap();
+
+    protected final RegionLocks regionLocks = new RegionLocks();
+    // Structures that are generating and don't have an entry yet
+    protected final List<Reservation> reservations = new ArrayList<>();
+
     public WorldStructureGenerationData(String id)
     {
         super(id);
@@ -76,9 +91,28 @@ public class WorldStructureGenerationData extends WorldSavedData
                 .filter(StructureEntry.class::isInstance).map(StructureEntry.class::cast);
     }
 
-    public Stream<Entry> entriesAt(ChunkPos coords)
+    /**
+     * Atomically collects all structures to complement in the chunk and marks it as checked.
+     * Since {@link #addEntry(Entry)} is atomic as well, every entry is either returned here or reports the chunk as
+     * already checked to whoever adds it - never both, never neither.
+     */
+    public synchronized List<StructureEntry> checkChunkForComplement(ChunkPos coords, boolean check)
+    {
+        List<StructureEntry> entries = structureEntriesIn(coords).collect(Collectors.toList());
+        if (check)
+            checkChunk(coords);
+        return entries;
+    }
+
+    public RegionLocks regionLocks()
     {
-        return chunkMap.get(coords).stream();
+        return regionLocks;
+    }
+
+    public synchronized Stream<Entry> entriesAt(ChunkPos coords)
+    {
+        List<Entry> entries = chunkMap.get(ChunkPos.asLong(coords.x, coords.z));
+        return entries != null ? new ArrayList<>(entries).stream() : Stream.empty();
     }
 
     public Stream<Entry> entriesAt(final BlockPos coords)
@@ -94,48 +128,201 @@ public class WorldStructureGenerationData extends WorldSavedData
 
     public Stream<Entry> entriesAt(final StructureBoundingBox boundingBox)
     {
-        return RCStructureBoundingBoxes.rasterize(boundingBox, true).stream().flatMap(chunkPos -> entriesAt(chunkPos).filter(input ->
+        List<Entry> entries = new ArrayList<>();
+        anyEntryAt(boundingBox, entry ->
         {
-            StructureBoundingBox bb = input.getBoundingBox();
-            return bb != null && bb.intersectsWith(boundingBox);
-        }));
+            entries.add(entry);
+            return false;
+        });
+        return entries.stream();
+    }
+
+    /**
+     * Visits every entry intersecting the bounding box exactly once, without allocating.
+     *
+     * @return true as soon as the predicate returns true for any entry.
+     */
+    public synchronized boolean anyEntryAt(StructureBoundingBox boundingBox, Predicate<Entry> predicate)
+    {
+        if (!RCStructureBoundingBoxes.valid(boundingBox))
+            return false;
+
+        int minX = (boundingBox.minX - 8) >> 4, maxX = (boundingBox.maxX - 8) >> 4;
+        int minZ = (boundingBox.minZ - 8) >> 4, maxZ = (boundingBox.maxZ - 8) >> 4;
+
+        for (int x = minX; x <= maxX; x++)
+            for (int z = minZ; z <= maxZ; z++)
+            {
+                List<Entry> entries = chunkMap.get(ChunkPos.asLong(x, z));
+                if (entries == null)
+                    continue;
+
+                //noinspection ForLoopReplaceableByForEach
+                for (int i = 0; i < entries.size(); i++)
+                {
+                    Entry entry = entries.get(i);
+
+                    // Entries span several chunks; only report them in the first one both share
+                    if (x != Math.max(minX, entry.chunkRange[0]) || z != Math.max(minZ, entry.chunkRange[1]))
+                        continue;
+
+                    StructureBoundingBox bb = entry.getBoundingBox();
+                    if (bb != null && bb.intersectsWith(boundingBox) && predicate.test(entry))
+                        return true;
+                }
+            }
+
+        return false;
     }
 
-    public Set<ChunkPos> addEntry(Entry entry)
+    public synchronized Set<ChunkPos> addEntry(Entry entry)
     {
+        Entry old = entryMap.get(entry.getUuid());
+        if (old != null)
+            unindex(old);
+
         entryMap.put(entry.getUuid(), entry);
 
-        Set<ChunkPos> rasterized = entry.rasterize();
-        for (ChunkPos coords : rasterized)
-            chunkMap.put(coords, entry);
+        Set<ChunkPos> checked = new HashSet<>();
+
+        StructureBoundingBox bb = entry.getBoundingBox();
+        if (RCStructureBoundingBoxes.valid(bb))
+        {
+            int[] range = entry.chunkRange = new int[]{(bb.minX - 8) >> 4, (bb.minZ - 8) >> 4, (bb.maxX - 8) >> 4, (bb.maxZ - 8) >> 4};
+
+            for (int x = range[0]; x <= range[2]; x++)
+                for (int z = range[1]; z <= range[3]; z++)
+                {
+                    long key = ChunkPos.asLong(x, z);
+
+                    List<Entry> entries = chunkMap.get(key);
+                    if (entries == null)
+                        chunkMap.put(key, entries = new ArrayList<>(2));
+                    entries.add(entry);
+
+                    if (checkedChunks.contains(key))
+                        checked.add(new ChunkPos(x, z));
+                }
+        }
 
         if (entry instanceof StructureEntry)
             instanceMap.put(((StructureEntry) entry).getStructureID(), (StructureEntry) entry);
 
         markDirty();
 
-        return Sets.intersection(checkedChunks, rasterized);
+        return checked;
+    }
+
+    protected void unindex(Entry entry)
+    {
+        int[] range = entry.chunkRange;
+        if (range != null)
+        {
+            for (int x = range[0]; x <= range[2]; x++)
+                for (int z = range[1]; z <= range[3]; z++)
+                {
+                    long key = ChunkPos.asLong(x, z);
+
+                    List<Entry> entries = chunkMap.get(key);
+                    if (entries != null && entries.remove(entry) && entries.isEmpty())
+                        chunkMap.remove(key);
+                }
+
+            entry.chunkRange = null;
+        }
+
+        if (entry instanceof StructureEntry)
+            instanceMap.remove(((StructureEntry) entry).getStructureID(), entry);
     }
 
-    public Entry getEntry(UUID id)
+    /**
+     * Atomically checks that nothing blocking overlaps the bounding box, neither an entry nor a structure that is
+     * still generating, and reserves the box if so. The reservation must be released with {@link #release(Reservation)}
+     * once the structure's entry was added (or it failed).
+     *
+     * @return The reservation, or null if the box overlaps.
+     */
+    @Nullable
+    public synchronized Reservation reserve(StructureBoundingBox boundingBox, boolean blocking)
+    {
+        if (anyEntryAt(boundingBox, Entry::blocking))
+            return null;
+
+        for (Reservation reservation : reservations)
+        {
+            if (reservation.blocking && reservation.boundingBox.intersectsWith(boundingBox))
+                return null;
+        }
+
+        Reservation reservation = new Reservation(boundingBox, blocking);
+        reservations.add(reservation);
+        return reservation;
+    }
+
+    public synchronized void release(Reservation reservation)
+    {
+        reservations.remove(reservation);
+    }
+
+    public synchronized boolean isFirstTime(StructureEntry entry)
+    {
+        return entry.firstTime;
+    }
+
+    /**
+     * Marks the entry as having been generated for the first time.
+     *
+     * @return Whether it wasn't before.
+     */
+    public synchronized boolean markGenerated(StructureEntry entry)
+    {
+        if (!entry.firstTime)
+            return false;
+
+        entry.firstTime = false;
+        markDirty();
+        return true;
+    }
+
+    public synchronized Entry getEntry(UUID id)
     {
         return entryMap.get(id);
     }
 
-    public Entry removeEntry(UUID id)
+    public synchronized Entry removeEntry(UUID id)
     {
         Entry entry = entryMap.remove(id);
-        chunkMap.values().removeIf(e -> e.uuid.equals(id));
-        instanceMap.values().removeIf(e -> e.uuid.equals(id));
 
         if (entry != null)
+        {
+            unindex(entry);
             markDirty();
+        }
         return entry;
     }
 
-    public Set<StructureEntry> getEntriesByID(String id)
+    public synchronized Set<StructureEntry> getEntriesByID(String id)
+    {
+        return new HashSet<>(instanceMap.get(id));
+    }
+
+    public synchronized List<StructureEntry> structureEntries()
     {
-        return instanceMap.get(id);
+        return new ArrayList<>(instanceMap.values());
+    }
+
+    public synchronized void countUnmemorized(StructureBoundingBox boundingBox)
+    {
+        unmemorizedCounts.adjustOrPutValue(ChunkPos.asLong((boundingBox.minX - 8) >> 4, (boundingBox.minZ - 8) >> 4), 1, 1);
+        markDirty();
+    }
+
+    /**
+     * @return How many structures without an entry were generated in the decoration chunk containing the position.
+     */
+    public synchronized int unmemorizedCountAt(BlockPos coords)
+    {
+        return unmemorizedCounts.get(ChunkPos.asLong((coords.getX() - 8) >> 4, (coords.getZ() - 8) >> 4));
     }
 
     public Stream<ChunkPos> checkAllChunks(Stream<ChunkPos> chunks)
@@ -143,25 +330,30 @@ public class WorldStructureGenerationData extends WorldSavedData
         return chunks.filter(this::checkChunk);
     }
 
-    public boolean checkChunk(ChunkPos coords)
+    public synchronized boolean isChunkChecked(ChunkPos coords)
+    {
+        return checkedChunks.contains(ChunkPos.asLong(coords.x, coords.z));
+    }
+
+    public synchronized boolean checkChunk(ChunkPos coords)
     {
-        boolean added = checkedChunks.add(coords);
+        boolean added = checkedChunks.add(ChunkPos.asLong(coords.x, coords.z));
         if (added)
             markDirty();
         return added;
     }
 
     //
-    public boolean checkChunkFinal(ChunkPos coords)
+    public synchronized boolean checkChunkFinal(ChunkPos coords)
     {
-        boolean added = checkedChunksFinal.add(coords);
+        boolean added = checkedChunksFinal.add(ChunkPos.asLong(coords.x, coords.z));
         if (added)
             markDirty();
         return added;
     }
 
     @Override
-    public void readFromNBT(NBTTagCompound compound)
+    public synchronized void readFromNBT(NBTTagCompound compound)
     {
         entryMap.clear();
         chunkMap.clear();
@@ -170,23 +362,63 @@ public class WorldStructureGenerationData extends WorldSavedData
         NBTCompoundObjects.readListFrom(compound, "customEntries", CustomEntry::new).forEach(this::addEntry);
 
         checkedChunks.clear();
-        NBTTagLists.intArraysFrom(compound, "checkedChunks").forEach(ints -> checkedChunks.add(new ChunkPos(ints[0], ints[1])));
+        NBTTagLists.intArraysFrom(compound, "checkedChunks").forEach(ints -> checkedChunks.add(ChunkPos.asLong(ints[0], ints[1])));
         checkedChunksFinal.clear();
-        NBTTagLists.intArraysFrom(compound, "checkedChunksFinal").forEach(ints -> checkedChunksFinal.add(new ChunkPos(ints[0], ints[1])));
+        NBTTagLists.intArraysFrom(compound, "checkedChunksFinal").forEach(ints -> checkedChunksFinal.add(ChunkPos.asLong(ints[0], ints[1])));
+
+        unmemorizedCounts.clear();
+        int[] counts = compound.getIntArray("unmemorizedCounts");
+        for (int i = 0; i + 2 < counts.length; i += 3)
+            unmemorizedCounts.put(ChunkPos.asLong(counts[i], counts[i + 1]), counts[i + 2]);
     }
 
     @Override
-    public NBTTagCompound writeToNBT(NBTTagCompound compound)
+    public synchronized NBTTagCompound writeToNBT(NBTTagCompound compound)
     {
         NBTCompoundObjects.writeListTo(compound, "entries", entryMap.values().stream().filter(e -> e instanceof StructureEntry).collect(Collectors.toList()));
         NBTCompoundObjects.writeListTo(compound, "customEntries", entryMap.values().stream().filter(e -> e instanceof CustomEntry).collect(Collectors.toList()));
 
-        NBTTagLists.writeIntArraysTo(compound, "checkedChunks", checkedChunks.stream().map(c -> new int[]{c.x, c.z}).collect(Collectors.toList()));
-        NBTTagLists.writeIntArraysTo(compound, "checkedChunksFinal", checkedChunksFinal.stream().map(c -> new int[]{c.x, c.z}).collect(Collectors.toList()));
+        NBTTagLists.writeIntArraysTo(compound, "checkedChunks", chunkArrays(checkedChunks));
+        NBTTagLists.writeIntArraysTo(compound, "checkedChunksFinal", chunkArrays(checkedChunksFinal));
+
+        // x, z, count - one array, since there may be lots of them
+        int[] counts = new int[unmemorizedCounts.size() * 3];
+        int[] index = {0};
+        unmemorizedCounts.forEachEntry((key, count) ->
+        {
+            counts[index[0]++] = (int) key;
+            counts[index[0]++] = (int) (key >>> 32);
+            counts[index[0]++] = count;
+            return true;
+        });
+        compound.setIntArray("unmemorizedCounts", counts);
 
         return compound;
     }
 
+    protected static List<int[]> chunkArrays(TLongSet chunks)
+    {
+        List<int[]> list = new ArrayList<>(chunks.size());
+        chunks.forEach(key ->
+        {
+            list.add(new int[]{(int) key, (int) (key >>> 32)});
+            return true;
+        });
+        return list;
+    }
+
+    public static class Reservation
+    {
+        public final StructureBoundingBox boundingBox;
+        public final boolean blocking;
+
+        public Reservation(StructureBoundingBox boundingBox, boolean blocking)
+        {
+            this.boundingBox = boundingBox;
+            this.blocking = blocking;
+        }
+    }
+
     public static abstract class Entry implements NBTCompoundObject
     {
         @Nonnull
@@ -194,6 +426,9 @@ public class WorldStructureGenerationData extends WorldSavedData
         protected StructureBoundingBox boundingBox = new StructureBoundingBox();
         protected boolean blocking = true;
 
+        // {minX, minZ, maxX, maxZ} of the chunks this is indexed in, while it is
+        protected int[] chunkRange;
+
         public Entry()
         {
         }
@@ -248,7 +483,7 @@ public class WorldStructureGenerationData extends WorldSavedData
             if (this == o) return true;
             if (o == null || getClass() != o.getClass()) return false;
 
-            StructureEntry entry = (StructureEntry) o;
+            Entry entry = (Entry) o;
 
             return uuid.equals(entry.uuid);
         }
@@ -174,7 +174,7 @@ public class RCBiomeDecorator
         return new StructureGenerator<>(generation.getLeft()).generationInfo(generation.getRight()).world(worldIn)
                 .seed(seed).maturity(StructureSpawnContext.GenerateMaturity.SUGGEST)
                 .partially(true, chunkPos)
-//                .memorize(RCConfig.memorizeDecoration) // Always memorize for partial gen
+                .memorize(RCConfig.memorizeDecoration) // Still memorized if it reaches into other chunks
                 .allowOverlaps(true)
                 .randomPosition(WorldGenStructures.randomSurfacePos(chunkPos, seed),
                         generation.getRight().placer()).fromCenter(true)
@@ -65,7 +65,7 @@ public class VanillaDecorationAdapter implements RCBiomeDecorator.Adapter
     @Override
     public void generate(WorldServer worldIn, Random random, Biome biomeIn, BiomeDecorator decorator, BlockPos chunkPos, RCBiomeDecorator.DecorationType type)
     {
-        RCWorldgenMonitor.start("simulating vanilla decoration");
+        RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.DECORATION, null);
 
         try
         {
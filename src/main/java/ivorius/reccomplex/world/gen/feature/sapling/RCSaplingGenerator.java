@@ -18,6 +18,7 @@ import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnCont
 import ivorius.reccomplex.world.gen.feature.structure.generic.generation.SaplingGeneration;
 import ivorius.ivtoolkit.blocks.BlockSurfacePos;
 import ivorius.ivtoolkit.util.IvFunctions;
+import ivorius.ivtoolkit.world.MockWorld;
 import ivorius.reccomplex.world.gen.feature.StructureGenerator;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
@@ -62,14 +63,17 @@ public class RCSaplingGenerator
     {
         Environment baseEnv = Environment.inNature(world, new StructureBoundingBox(pos, pos));
 
-        List<Pair<Structure<?>, SaplingGeneration>> applicable = StructureRegistry.INSTANCE.getGenerationTypes(SaplingGeneration.class).stream()
-                .filter(pair1 -> pair1.getRight().generatesIn(baseEnv.withGeneration(pair1.getRight())))
+        List<SaplingIndex.Entry> applicable = SaplingIndex.get().candidates(world, pos, world.getBlockState(pos)).stream()
+                .filter(entry -> entry.generation.generatesIn(baseEnv.withGeneration(entry.generation)))
                 .collect(Collectors.toCollection(ArrayList::new));
 
         // Hackily consider big vanilla trees too
         int vanillaComplexity = complexity(world, pos, random, predictors);
 
-        ImmutableMultimap<Integer, Pair<Structure<?>, SaplingGeneration>> groups = IvFunctions.groupMap(applicable, pair -> pair.getRight().pattern.pattern.compile(true).size());
+        // All patterns look at the same few blocks, so read them just once
+        MockWorld neighborhood = new MockWorld.Cache(SaplingIndex.neighborhood(world, pos, applicable));
+
+        ImmutableMultimap<Integer, SaplingIndex.Entry> groups = IvFunctions.groupMap(applicable, entry -> entry.complexity);
         List<Integer> complexities = Lists.newArrayList(groups.keySet());
         if (vanillaComplexity > 0) complexities.add(vanillaComplexity);
         Collections.sort(complexities);
@@ -79,7 +83,8 @@ public class RCSaplingGenerator
         {
             Integer complexity = complexities.remove(complexities.size() - 1);
             Set<Pair<Structure<?>, SaplingGeneration>> placeable = groups.get(complexity).stream()
-                    .filter(p -> p.getRight().pattern.canPlace(world, pos, p.getLeft().size(), p.getLeft().isRotatable(), p.getLeft().isMirrorable()))
+                    .filter(entry -> entry.canPlace(neighborhood, pos))
+                    .map(SaplingIndex.Entry::pair)
                     .collect(Collectors.toSet());
 
             double totalWeight = placeable.stream().mapToDouble(RCSaplingGenerator::getSpawnWeight).sum();
@@ -0,0 +1,255 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.sapling;
+
+import com.google.common.collect.ImmutableList;
+import ivorius.ivtoolkit.maze.components.MazeRoom;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.ivtoolkit.math.Transforms;
+import ivorius.ivtoolkit.world.MockWorld;
+import ivorius.ivtoolkit.world.WorldCache;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
+import ivorius.reccomplex.utils.expression.PositionedBlockExpression;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.BlockPattern;
+import ivorius.reccomplex.world.gen.feature.structure.generic.generation.SaplingGeneration;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.World;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+import org.apache.commons.lang3.tuple.Pair;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Sapling generations with their patterns compiled for every transform, and indexed by the states they may grow from.
+ * A generation is a candidate for a state if any of its ingredients matches it; ingredients that look at more than
+ * the state itself (is:, sustains.) always count as matching.
+ */
+public class SaplingIndex extends SimpleLeveledRegistry.Module<StructureRegistry>
+{
+    @Nullable
+    protected volatile List<Entry> entries;
+    protected final Map<IBlockState, List<Entry>> byState = new ConcurrentHashMap<>();
+
+    @Nonnull
+    public static SaplingIndex get()
+    {
+        SaplingIndex index = StructureRegistry.INSTANCE.module(SaplingIndex.class);
+
+        if (index == null)
+        {
+            index = new SaplingIndex();
+            index.setRegistry(StructureRegistry.INSTANCE);
+        }
+
+        return index;
+    }
+
+    @Nonnull
+    public List<Entry> entries()
+    {
+        List<Entry> entries = this.entries;
+
+        if (entries == null)
+        {
+            this.entries = entries = ImmutableList.copyOf(registry.getGenerationTypes(SaplingGeneration.class).stream()
+                    .map(pair -> new Entry(pair.getLeft(), pair.getRight()))
+                    .collect(Collectors.toList()));
+        }
+
+        return entries;
+    }
+
+    /**
+     * @return The entries that may grow from the state at the position.
+     */
+    @Nonnull
+    public List<Entry> candidates(World world, BlockPos pos, IBlockState state)
+    {
+        List<Entry> candidates = byState.get(state);
+
+        if (candidates == null)
+        {
+            PositionedBlockExpression.Argument argument = new PositionedBlockExpression.Argument(new MockWorld.Real(world), pos, state);
+            byState.put(state, candidates = ImmutableList.copyOf(entries().stream()
+                    .filter(entry -> entry.mayGrowFrom(argument))
+                    .collect(Collectors.toList())));
+        }
+
+        return candidates;
+    }
+
+    @Override
+    public void invalidate()
+    {
+        entries = null;
+        byState.clear();
+    }
+
+    /**
+     * @return A snapshot of the world around the position, big enough to test all the entries' patterns there.
+     */
+    public static WorldCache neighborhood(World world, BlockPos pos, Collection<Entry> entries)
+    {
+        int[] lower = new int[3], higher = new int[3];
+        for (Entry entry : entries)
+        {
+            for (int i = 0; i < 3; i++)
+            {
+                lower[i] = Math.min(lower[i], entry.reachLower[i]);
+                higher[i] = Math.max(higher[i], entry.reachHigher[i]);
+            }
+        }
+
+        return new WorldCache(world, new StructureBoundingBox(
+                pos.getX() + lower[0], pos.getY() + lower[1], pos.getZ() + lower[2],
+                pos.getX() + higher[0], pos.getY() + higher[1], pos.getZ() + higher[2]));
+    }
+
+    public static class Entry
+    {
+        public final Structure<?> structure;
+        public final SaplingGeneration generation;
+
+        public final int complexity;
+        public final List<CompiledPattern> patterns;
+
+        // How far from the grown block the patterns look, in all transforms
+        protected final int[] reachLower = new int[3], reachHigher = new int[3];
+
+        protected final PositionedBlockExpression[] stateMatchers;
+        protected final boolean alwaysCandidate;
+
+        public Entry(Structure<?> structure, SaplingGeneration generation)
+        {
+            this.structure = structure;
+            this.generation = generation;
+
+            BlockPattern pattern = generation.pattern;
+            complexity = pattern.pattern.compile(true).size();
+
+            int[] size = structure.size();
+            patterns = ImmutableList.copyOf(Transforms.transformStream(structure.isRotatable(), structure.isMirrorable())
+                    .map(transform -> new CompiledPattern(transform, pattern.copy(transform, size)))
+                    .collect(Collectors.toList()));
+
+            for (CompiledPattern compiled : patterns)
+            {
+                for (int i = 0; i < 3; i++)
+                {
+                    reachLower[i] = Math.min(reachLower[i], compiled.lower[i] - compiled.higher[i]);
+                    reachHigher[i] = Math.max(reachHigher[i], compiled.higher[i] - compiled.lower[i]);
+                }
+            }
+
+            alwaysCandidate = pattern.ingredients.stream().anyMatch(i -> !dependsOnStateOnly(i.matcher));
+            stateMatchers = pattern.ingredients.stream().map(i -> i.matcher).toArray(PositionedBlockExpression[]::new);
+        }
+
+        protected static boolean dependsOnStateOnly(PositionedBlockExpression matcher)
+        {
+            String expression = matcher.getExpression();
+            return !expression.contains(PositionedBlockExpression.IS_PREFIX) && !expression.contains(PositionedBlockExpression.SUSTAIN_PREFIX);
+        }
+
+        protected boolean mayGrowFrom(PositionedBlockExpression.Argument argument)
+        {
+            if (alwaysCandidate)
+                return true;
+
+            for (PositionedBlockExpression matcher : stateMatchers)
+            {
+                if (matcher.evaluate(() -> argument))
+                    return true;
+            }
+
+            return false;
+        }
+
+        public boolean canPlace(MockWorld world, BlockPos pos)
+        {
+            for (CompiledPattern pattern : patterns)
+            {
+                for (int[] cell : pattern.cells)
+                {
+                    if (pattern.test(world, pos.getX() - cell[0], pos.getY() - cell[1], pos.getZ() - cell[2]))
+                        return true;
+                }
+            }
+
+            return false;
+        }
+
+        public Pair<Structure<?>, SaplingGeneration> pair()
+        {
+            return Pair.of(structure, generation);
+        }
+    }
+
+    /**
+     * A transformed pattern, as flat lists of cells and their matchers.
+     */
+    public static class CompiledPattern
+    {
+        public final AxisAlignedTransform2D transform;
+
+        public final int[][] cells;
+        // null if the cell's ingredient is missing, so the pattern can never match
+        public final PositionedBlockExpression[] matchers;
+        public final boolean valid;
+
+        public final int[] lower = new int[3], higher = new int[3];
+
+        public CompiledPattern(AxisAlignedTransform2D transform, BlockPattern pattern)
+        {
+            this.transform = transform;
+
+            Map<MazeRoom, String> compiled = pattern.pattern.compile(true);
+            cells = new int[compiled.size()][];
+            matchers = new PositionedBlockExpression[compiled.size()];
+
+            int index = 0;
+            boolean valid = true;
+            for (Map.Entry<MazeRoom, String> entry : compiled.entrySet())
+            {
+                int[] cell = entry.getKey().getCoordinates();
+                cells[index] = cell;
+                matchers[index] = pattern.findIngredient(entry.getValue()).map(i -> i.matcher).orElse(null);
+                valid &= matchers[index] != null;
+
+                for (int i = 0; i < 3; i++)
+                {
+                    lower[i] = index == 0 ? cell[i] : Math.min(lower[i], cell[i]);
+                    higher[i] = index == 0 ? cell[i] : Math.max(higher[i], cell[i]);
+                }
+
+                index++;
+            }
+            this.valid = valid;
+        }
+
+        public boolean test(MockWorld world, int x, int y, int z)
+        {
+            if (!valid)
+                return false;
+
+            for (int i = 0; i < cells.length; i++)
+            {
+                BlockPos pos = new BlockPos(x + cells[i][0], y + cells[i][1], z + cells[i][2]);
+                if (!matchers[i].evaluate(() -> PositionedBlockExpression.Argument.at(world, pos)))
+                    return false;
+            }
+
+            return true;
+        }
+    }
+}
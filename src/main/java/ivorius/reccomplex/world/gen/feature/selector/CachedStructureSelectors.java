@@ -5,14 +5,11 @@
 
 package ivorius.reccomplex.world.gen.feature.selector;
 
-import net.minecraft.util.ResourceLocation;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
 import net.minecraft.world.WorldProvider;
 import net.minecraft.world.biome.Biome;
-import org.apache.commons.lang3.tuple.ImmutablePair;
-import org.apache.commons.lang3.tuple.Pair;
 
-import java.util.HashMap;
-import java.util.Map;
 import java.util.function.BiFunction;
 
 /**
@@ -20,7 +17,7 @@ import java.util.function.BiFunction;
  */
 public class CachedStructureSelectors<S extends StructureSelector>
 {
-    private Map<Pair<Integer, ResourceLocation>, S> structureSelectors = new HashMap<>();
+    private TLongObjectMap<S> structureSelectors = new TLongObjectHashMap<>();
 
     private BiFunction<Biome, WorldProvider, S> selectorSupplier;
 
@@ -29,21 +26,27 @@ public class CachedStructureSelectors<S extends StructureSelector>
         this.selectorSupplier = selectorSupplier;
     }
 
-    public S get(Biome biome, WorldProvider provider)
+    // Decoration may run on several threads at once
+    public synchronized S get(Biome biome, WorldProvider provider)
     {
-        Pair<Integer, ResourceLocation> pair = new ImmutablePair<>(provider.getDimension(), Biome.REGISTRY.getNameForObject(biome));
-        S structureSelector = structureSelectors.get(pair);
+        long key = key(provider.getDimension(), Biome.getIdForBiome(biome));
+        S structureSelector = structureSelectors.get(key);
 
         if (structureSelector == null || !structureSelector.isValid(biome, provider))
         {
             structureSelector = selectorSupplier.apply(biome, provider);
-            structureSelectors.put(pair, structureSelector);
+            structureSelectors.put(key, structureSelector);
         }
 
         return structureSelector;
     }
 
-    public void clear()
+    protected static long key(int dimension, int biome)
+    {
+        return ((long) dimension << 32) | (biome & 0xFFFFFFFFL);
+    }
+
+    public synchronized void clear()
     {
         structureSelectors.clear();
     }
@@ -31,6 +31,7 @@ import java.util.*;
 public class StructureSelector<T extends GenerationType & EnvironmentalSelection<C>, C>
 {
     protected final Set<String> cachedDimensionTypes = new HashSet<>(); // Because dimensions could often change on the fly
+    protected final Biome cachedBiome; // In case biome IDs get remapped
 
     protected Multimap<C, WeightedSelector.SimpleItem<Pair<Structure<?>, T>>> weightedStructureInfos = ArrayListMultimap.create();
     protected TObjectDoubleMap<C> totalWeights = new TObjectDoubleHashMap<>();
@@ -38,6 +39,7 @@ public class StructureSelector<T extends GenerationType & EnvironmentalSelection
     public StructureSelector(Map<String, Structure<?>> structures, WorldProvider provider, Biome biome, Class<T> typeClass)
     {
         cachedDimensionTypes.addAll(DimensionDictionary.getDimensionTypes(provider));
+        cachedBiome = biome;
 
         for (Map.Entry<String, Structure<?>> entry : structures.entrySet())
         {
@@ -102,6 +104,6 @@ public class StructureSelector<T extends GenerationType & EnvironmentalSelection
 
     public boolean isValid(Biome biome, WorldProvider provider)
     {
-        return DimensionDictionary.getDimensionTypes(provider).equals(cachedDimensionTypes);
+        return biome == cachedBiome && DimensionDictionary.getDimensionTypes(provider).equals(cachedDimensionTypes);
     }
 }
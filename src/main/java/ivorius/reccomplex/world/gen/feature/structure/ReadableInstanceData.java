@@ -7,8 +7,13 @@ package ivorius.reccomplex.world.gen.feature.structure;
 
 import ivorius.reccomplex.nbt.NBTStorable;
 import ivorius.reccomplex.world.gen.feature.StructureGenerator;
+import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
+import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.TransformerGenerationBehavior;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+
+import javax.annotation.Nullable;
 
 /**
  * Created by lukas on 08.03.17.
@@ -63,6 +68,20 @@ public class ReadableInstanceData<T extends NBTStorable>
             return generator;
     }
 
+    /**
+     * @return The box enclosing everything the instance generates, given its bounding box, or null if that isn't known.
+     */
+    @Nullable
+    public StructureBoundingBox generationBounds(StructureBoundingBox boundingBox)
+    {
+        if (instanceData instanceof GenericStructure.InstanceData)
+            return ((GenericStructure.InstanceData) instanceData).transformerGenerationBehavior.generationBounds(boundingBox);
+        else if (instanceDataNBT != null)
+            return TransformerGenerationBehavior.InstanceData.generationBounds(boundingBox, instanceDataNBT);
+        else
+            return null;
+    }
+
     public void set(ReadableInstanceData<T> instanceData)
     {
         this.instanceData = instanceData.instanceData;
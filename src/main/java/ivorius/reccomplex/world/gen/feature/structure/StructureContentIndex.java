@@ -0,0 +1,212 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure;
+
+import com.google.common.collect.ImmutableList;
+import gnu.trove.map.TObjectIntMap;
+import gnu.trove.map.hash.TObjectIntHashMap;
+import ivorius.ivtoolkit.blocks.IvBlockCollection;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.commands.structure.StructureSearch;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.DecodedWorldData;
+import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
+import ivorius.reccomplex.world.gen.feature.structure.generic.StructureWorldDataCache;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.BlockPos;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * What structures are made of, so searches don't need to decode their world data.
+ * Entries are built in the background after loading, or on first use; entries of structures that are still
+ * registered and unchanged survive reloads.
+ */
+public class StructureContentIndex extends SimpleLeveledRegistry.Module<StructureRegistry>
+{
+    protected final Map<Structure<?>, Entry> entries = new ConcurrentHashMap<>();
+    protected final AtomicInteger generation = new AtomicInteger();
+
+    protected ExecutorService builder;
+
+    @Nonnull
+    public static Entry get(@Nonnull Structure<?> structure)
+    {
+        StructureContentIndex index = StructureRegistry.INSTANCE.module(StructureContentIndex.class);
+        return index != null ? index.entry(structure) : Entry.of(structure);
+    }
+
+    @Nonnull
+    public Entry entry(@Nonnull Structure<?> structure)
+    {
+        Entry entry = entries.get(structure);
+
+        if (entry == null || !entry.isCurrent(structure))
+        {
+            entry = Entry.of(structure);
+
+            // Unregistered structures would just leak
+            if (registry != null && registry.id(structure) != null)
+                entries.put(structure, entry);
+        }
+
+        return entry;
+    }
+
+    protected synchronized ExecutorService builder()
+    {
+        if (builder == null)
+        {
+            builder = Executors.newSingleThreadExecutor(r ->
+            {
+                Thread thread = new Thread(r, "ReC Structure Indexer");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+
+        return builder;
+    }
+
+    /**
+     * Indexes all registered structures in the background. The registry is read right away, so call this after
+     * loading is done.
+     */
+    public void prebuildAll()
+    {
+        int generation = this.generation.get();
+        List<Structure<?>> structures = new ArrayList<>(registry.all());
+
+        builder().submit(() ->
+        {
+            for (Structure<?> structure : structures)
+            {
+                if (this.generation.get() != generation)
+                    return; // Outdated
+
+                Entry entry = entries.get(structure);
+                if (entry != null && entry.isCurrent(structure))
+                    continue;
+
+                try
+                {
+                    entry = Entry.of(structure);
+                }
+                catch (RuntimeException e)
+                {
+                    RecurrentComplex.logger.warn("Error indexing structure", e);
+                    continue;
+                }
+
+                // The registry may have changed while we were building it
+                synchronized (this)
+                {
+                    if (this.generation.get() != generation)
+                        return;
+
+                    entries.put(structure, entry);
+                }
+            }
+        });
+    }
+
+    public int size()
+    {
+        return entries.size();
+    }
+
+    @Override
+    public synchronized void invalidate()
+    {
+        generation.incrementAndGet();
+        entries.keySet().removeIf(structure -> registry.id(structure) == null);
+    }
+
+    public static class Entry
+    {
+        @Nullable
+        public final NBTTagCompound source;
+
+        public final TObjectIntMap<IBlockState> states;
+
+        protected List<String> keywords;
+        protected String keywordsID;
+
+        protected Entry(@Nullable NBTTagCompound source, TObjectIntMap<IBlockState> states)
+        {
+            this.source = source;
+            this.states = states;
+        }
+
+        @Nonnull
+        public static Entry of(@Nonnull Structure<?> structure)
+        {
+            if (structure instanceof GenericStructure)
+            {
+                GenericStructure genericStructure = (GenericStructure) structure;
+                NBTTagCompound source = genericStructure.worldDataCompound;
+
+                // Don't put it in the cache just for this, but use it if it's there
+                DecodedWorldData decoded = StructureWorldDataCache.getIfPresent(genericStructure);
+                if (decoded == null)
+                    decoded = DecodedWorldData.decode(source);
+
+                int[] counts = new int[decoded.palette.length];
+                for (int index : decoded.paletteIndices)
+                    counts[index]++;
+
+                TObjectIntMap<IBlockState> states = new TObjectIntHashMap<>(decoded.palette.length);
+                for (int i = 0; i < counts.length; i++)
+                    states.adjustOrPutValue(decoded.palette[i], counts[i], counts[i]);
+
+                return new Entry(source, states);
+            }
+
+            IvBlockCollection collection = structure.blockCollection();
+            TObjectIntMap<IBlockState> states = new TObjectIntHashMap<>();
+
+            if (collection != null)
+            {
+                for (BlockPos pos : collection.area())
+                {
+                    IBlockState state = collection.getBlockState(pos);
+                    states.adjustOrPutValue(state, 1, 1);
+                }
+            }
+
+            return new Entry(null, states);
+        }
+
+        protected boolean isCurrent(Structure<?> structure)
+        {
+            return !(structure instanceof GenericStructure) || ((GenericStructure) structure).worldDataCompound == source;
+        }
+
+        /**
+         * @return See {@link StructureSearch#keywords(String, Structure)}.
+         */
+        public synchronized List<String> keywords(String id, Structure<?> structure)
+        {
+            if (keywords == null || !id.equals(keywordsID))
+            {
+                keywords = ImmutableList.copyOf(StructureSearch.keywords(id, structure).stream()
+                        .filter(Objects::nonNull).collect(Collectors.toList()));
+                keywordsID = id;
+            }
+
+            return keywords;
+        }
+    }
+}
@@ -12,6 +12,7 @@ import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.utils.RCAxisAlignedTransform;
 import ivorius.reccomplex.utils.RCBlockAreas;
 import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
+import ivorius.reccomplex.world.gen.feature.BulkBlockPlacer;
 import ivorius.reccomplex.world.gen.feature.HeightMapFreezer;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import net.minecraft.block.state.IBlockState;
@@ -43,6 +44,8 @@ public class StructureSpawnContext extends StructureLiveContext
     public final GenerateMaturity generateMaturity;
 
     private HeightMapFreezer heightMapFreezer;
+    private BulkBlockPlacer bulkPlacer;
+    private BulkBlockPlacer unlitPlacer; // Flushed, waiting for the height map to melt
 
     public StructureSpawnContext(@Nonnull Environment environment, @Nonnull Random random, @Nonnull AxisAlignedTransform2D transform, @Nonnull StructureBoundingBox boundingBox, @Nullable StructureBoundingBox generationBB, Predicate<Vec3i> generationPredicate, int generationLayer, boolean generateAsSource, GenerateMaturity generateMaturity)
     {
@@ -90,14 +93,14 @@ public class StructureSpawnContext extends StructureLiveContext
     {
         if (!RecurrentComplex.specialRegistry.isSafe(state.getBlock()))
         {
-            environment.world.setBlockState(pos.toImmutable(), Blocks.AIR.getDefaultState(), 2);
+            placeBlock(pos, Blocks.AIR.getDefaultState(), 2);
             return false;
         }
 
         if (includes(pos))
         {
             // world.setBlock returns false on 'no change'
-            environment.world.setBlockState(pos.toImmutable(), state, flag);
+            placeBlock(pos, state, flag);
             if (heightMapFreezer != null) heightMapFreezer.markBlock(pos, state);
             return true;
         }
@@ -105,6 +108,55 @@ public class StructureSpawnContext extends StructureLiveContext
         return false;
     }
 
+    protected void placeBlock(BlockPos pos, IBlockState state, int flag)
+    {
+        if (bulkPlacer != null)
+            bulkPlacer.setBlockState(pos, state, flag);
+        else
+            environment.world.setBlockState(pos.toImmutable(), state, flag);
+    }
+
+    /**
+     * Runs the action once blocks set so far are actually in the world.
+     */
+    public void whenPlaced(Runnable runnable)
+    {
+        if (bulkPlacer != null)
+            bulkPlacer.whenPlaced(runnable);
+        else
+            runnable.run();
+    }
+
+    /**
+     * From now on, blocks are collected and written per chunk section on {@link #endBulkPlacement()}.
+     * Until then, the world doesn't reflect the changes.
+     */
+    public void beginBulkPlacement()
+    {
+        if (bulkPlacer == null)
+            bulkPlacer = new BulkBlockPlacer(environment.world);
+    }
+
+    /**
+     * Writes the collected blocks to the world. If the height map is frozen, sky light is only redone once it melts.
+     */
+    public void endBulkPlacement()
+    {
+        BulkBlockPlacer placer = bulkPlacer;
+        bulkPlacer = null; // Anything placed when flushing goes straight to the world
+
+        if (placer != null)
+        {
+            placer.flush();
+
+            // Sky light would be computed from the frozen height map
+            if (heightMapFreezer != null)
+                unlitPlacer = placer;
+            else
+                placer.relight();
+        }
+    }
+
     public void freezeHeightMap(StructureBoundingBox boundingBox)
     {
         heightMapFreezer = HeightMapFreezer.freeze(boundingBox, environment.world);
@@ -114,6 +166,12 @@ public class StructureSpawnContext extends StructureLiveContext
     {
         heightMapFreezer.melt();
         heightMapFreezer = null;
+
+        if (unlitPlacer != null)
+        {
+            unlitPlacer.relight();
+            unlitPlacer = null;
+        }
     }
 
     public enum GenerateMaturity
@@ -0,0 +1,154 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic;
+
+import com.google.common.collect.ImmutableList;
+import ivorius.ivtoolkit.blocks.IvBlockCollection;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.ivtoolkit.tools.IvWorldData;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.temp.RCMover;
+import net.minecraft.block.state.IBlockState;
+import net.minecraft.nbt.NBTTagCompound;
+import net.minecraft.util.math.BlockPos;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Decoded form of a structure's world data compound.
+ * Instances are shared between all generating threads, so neither this nor the contained world data may be modified.
+ */
+public class DecodedWorldData
+{
+    @Nonnull
+    public final NBTTagCompound source;
+
+    @Nonnull
+    public final IvWorldData worldData;
+
+    public final int width, height, length;
+
+    @Nonnull
+    public final IBlockState[] palette;
+    @Nonnull
+    public final int[] paletteIndices;
+
+    @Nonnull
+    public final Map<BlockPos, NBTTagCompound> tileEntities;
+    @Nonnull
+    public final List<NBTTagCompound> entities;
+
+    public final long memoryEstimate;
+
+    protected final AtomicReferenceArray<TransformedPalette> transformedPalettes = new AtomicReferenceArray<>(8);
+
+    protected DecodedWorldData(@Nonnull NBTTagCompound source, @Nonnull IvWorldData worldData, @Nonnull IBlockState[] palette, @Nonnull int[] paletteIndices, @Nonnull Map<BlockPos, NBTTagCompound> tileEntities, @Nonnull List<NBTTagCompound> entities)
+    {
+        this.source = source;
+        this.worldData = worldData;
+        this.width = worldData.blockCollection.width;
+        this.height = worldData.blockCollection.height;
+        this.length = worldData.blockCollection.length;
+        this.palette = palette;
+        this.paletteIndices = paletteIndices;
+        this.tileEntities = tileEntities;
+        this.entities = entities;
+
+        // Rough: one state reference in the block collection and one palette index per block, plus NBT overhead
+        this.memoryEstimate = (long) paletteIndices.length * 8 + palette.length * 16
+                + (tileEntities.size() + entities.size()) * 512L;
+    }
+
+    @Nonnull
+    public static DecodedWorldData decode(@Nonnull NBTTagCompound compound)
+    {
+        IvWorldData worldData = new IvWorldData(compound, RecurrentComplex.specialRegistry.itemHidingMode());
+        IvBlockCollection blockCollection = worldData.blockCollection;
+
+        int width = blockCollection.width, height = blockCollection.height, length = blockCollection.length;
+
+        List<IBlockState> palette = new ArrayList<>();
+        Map<IBlockState, Integer> paletteLookup = new IdentityHashMap<>();
+        int[] paletteIndices = new int[width * height * length];
+
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                for (int z = 0; z < length; z++)
+                {
+                    IBlockState state = blockCollection.getBlockState(pos.setPos(x, y, z));
+                    Integer index = paletteLookup.get(state);
+
+                    if (index == null)
+                    {
+                        paletteLookup.put(state, index = palette.size());
+                        palette.add(state);
+                    }
+
+                    paletteIndices[(x * height + y) * length + z] = index;
+                }
+
+        Map<BlockPos, NBTTagCompound> tileEntities = new HashMap<>();
+        for (NBTTagCompound tileEntityCompound : worldData.tileEntities)
+            tileEntities.put(RCMover.getTileEntityPos(tileEntityCompound), tileEntityCompound);
+
+        return new DecodedWorldData(compound, worldData, palette.toArray(new IBlockState[0]), paletteIndices,
+                Collections.unmodifiableMap(tileEntities), ImmutableList.copyOf(worldData.entities));
+    }
+
+    public int[] size()
+    {
+        return new int[]{width, height, length};
+    }
+
+    public int index(int x, int y, int z)
+    {
+        return (x * height + y) * length + z;
+    }
+
+    public int index(BlockPos pos)
+    {
+        return index(pos.getX(), pos.getY(), pos.getZ());
+    }
+
+    public BlockPos.MutableBlockPos position(int index, BlockPos.MutableBlockPos dest)
+    {
+        return dest.setPos(index / (height * length), (index / length) % height, index % length);
+    }
+
+    public int paletteIndex(BlockPos pos)
+    {
+        return paletteIndices[index(pos)];
+    }
+
+    public IBlockState getBlockState(BlockPos pos)
+    {
+        return palette[paletteIndex(pos)];
+    }
+
+    @Nonnull
+    public TransformedPalette transformed(@Nonnull AxisAlignedTransform2D transform)
+    {
+        int key = TransformedPalette.key(transform);
+        TransformedPalette transformed = transformedPalettes.get(key);
+
+        if (transformed == null)
+        {
+            // Racing threads compute the same thing, so just keep whichever was first
+            transformedPalettes.compareAndSet(key, null, TransformedPalette.transform(this, transform));
+            transformed = transformedPalettes.get(key);
+        }
+
+        return transformed;
+    }
+}
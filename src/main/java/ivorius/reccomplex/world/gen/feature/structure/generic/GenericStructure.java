@@ -14,6 +14,7 @@ import ivorius.ivtoolkit.tools.NBTCompoundObjects;
 import ivorius.ivtoolkit.transform.Mover;
 import ivorius.ivtoolkit.transform.PosTransformer;
 import ivorius.ivtoolkit.world.chunk.gen.StructureBoundingBoxes;
+import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.json.JsonUtils;
 import ivorius.reccomplex.json.NBTToJson;
@@ -25,6 +26,7 @@ import ivorius.reccomplex.utils.RCStructureBoundingBoxes;
 import ivorius.reccomplex.utils.accessor.RCAccessorEntity;
 import ivorius.reccomplex.utils.accessor.RCAccessorWorldServer;
 import ivorius.reccomplex.utils.expression.DependencyExpression;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
 import ivorius.reccomplex.world.gen.feature.structure.Structures;
@@ -40,7 +42,6 @@ import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.Trans
 import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.TransformerGenerationBehavior;
 import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.TransformerMulti;
 import ivorius.reccomplex.world.storage.loot.LootGenerationHandler;
-import net.minecraft.block.material.Material;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.entity.Entity;
 import net.minecraft.entity.EntityList;
@@ -56,6 +57,7 @@ import net.minecraft.util.text.TextComponentString;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.gen.structure.StructureBoundingBox;
 import net.minecraftforge.common.util.Constants;
+import net.minecraftforge.items.IItemHandlerModifiable;
 import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nonnull;
@@ -114,19 +116,25 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         if (context.setBlock(worldPos, state, 2)) {
             NBTTagCompound tileEntityCompound = tileEntity.get(); // Wants to set
 
-            if (tileEntityCompound != null && world.getBlockState(worldPos).getBlock() == state.getBlock()) {
-                TileEntity worldTileEntity = world.getTileEntity(worldPos);
+            if (tileEntityCompound != null) {
+                BlockPos pos = worldPos.toImmutable();
 
-                if (worldTileEntity != null) // Do set
+                context.whenPlaced(() ->
                 {
-                    tileEntityCompound = RCMover.setTileEntityPos(tileEntityCompound, worldPos);
-                    worldTileEntity.readFromNBT(tileEntityCompound);
+                    if (world.getBlockState(pos).getBlock() == state.getBlock()) {
+                        TileEntity worldTileEntity = world.getTileEntity(pos);
 
-                    RCPosTransformer.transformAdditionalData(worldTileEntity, context.transform, areaSize);
-                    RCMover.setAdditionalDataPos(worldTileEntity, worldPos);
+                        if (worldTileEntity != null) // Do set
+                        {
+                            worldTileEntity.readFromNBT(RCMover.setTileEntityPos(tileEntityCompound, pos));
 
-                    generateTileEntityContents(context, worldTileEntity);
-                }
+                            RCPosTransformer.transformAdditionalData(worldTileEntity, context.transform, areaSize);
+                            RCMover.setAdditionalDataPos(worldTileEntity, pos);
+
+                            generateTileEntityContents(context, worldTileEntity);
+                        }
+                    }
+                });
             }
         }
     }
@@ -134,20 +142,32 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     public static void generateEntityContents(@Nonnull StructureSpawnContext context, Entity entity)
     {
         if (!context.generateAsSource && ItemHandlers.hasModifiable(entity, null))
-            LootGenerationHandler.generateAllTags(context, ItemHandlers.getModifiable(entity, null));
+            generateLoot(context, ItemHandlers.getModifiable(entity, null));
     }
 
     public static void generateTileEntityContents(@Nonnull StructureSpawnContext context, TileEntity tileEntity)
     {
         if (!context.generateAsSource && ItemHandlers.hasModifiable(tileEntity, null))
-            LootGenerationHandler.generateAllTags(context, ItemHandlers.getModifiable(tileEntity, null));
+            generateLoot(context, ItemHandlers.getModifiable(tileEntity, null));
+    }
+
+    protected static void generateLoot(@Nonnull StructureSpawnContext context, IItemHandlerModifiable handler)
+    {
+        RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.LOOT);
+        try {
+            LootGenerationHandler.generateAllTags(context, handler);
+        }
+        finally {
+            RCWorldgenMonitor.stop();
+        }
     }
 
     @Nonnull
     @Override
     public int[] size()
     {
-        return Structures.size(worldDataCompound, new int[]{0, 0, 0});
+        DecodedWorldData decoded = StructureWorldDataCache.getIfPresent(this);
+        return decoded != null ? decoded.size() : Structures.size(worldDataCompound, new int[]{0, 0, 0});
     }
 
     @Override
@@ -172,7 +192,8 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     public void generate(@Nonnull final StructureSpawnContext context, @Nonnull InstanceData instanceData, @Nonnull TransformerMulti foreignTransformer)
     {
         WorldServer world = context.environment.world;
-        IvWorldData worldData = constructWorldData();
+        DecodedWorldData decoded = decodedWorldData();
+        IvWorldData worldData = decoded.worldData;
         boolean asSource = context.generateAsSource;
 
         RunTransformer transformer = getRunTransformer(instanceData, foreignTransformer, asSource);
@@ -187,11 +208,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         int[] areaSize = new int[]{blockCollection.width, blockCollection.height, blockCollection.length};
         BlockPos origin = StructureBoundingBoxes.min(context.boundingBox);
 
-        Map<BlockPos, NBTTagCompound> tileEntityCompounds = new HashMap<>();
-        for (NBTTagCompound tileEntityCompound : worldData.tileEntities) {
-            BlockPos src = RCMover.getTileEntityPos(tileEntityCompound);
-            tileEntityCompounds.put(src, tileEntityCompound);
-        }
+        Map<BlockPos, NBTTagCompound> tileEntityCompounds = decoded.tileEntities;
 
         if (transformer != null)
             transformer.transformer.transform(transformer.instanceData, Transformer.Phase.BEFORE, context, worldData, transformer);
@@ -201,29 +218,49 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         if (relevantSourceArea != null) // Why did we get asked to generate again?
         {
             context.freezeHeightMap(relevantSourceArea);
+            // Complements and source generation touch few blocks, or need them in the world right away
+            if (RCConfig.bulkBlockPlacement && context.generateMaturity.isFirstTime() && !context.generateAsSource)
+                context.beginBulkPlacement();
+
+            RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.BLOCKS);
+            try {
+                TransformedPalette palette = decoded.transformed(context.transform);
+                BlockPos.MutableBlockPos worldPos = new BlockPos.MutableBlockPos();
 
-            BlockPos.MutableBlockPos worldPos = new BlockPos.MutableBlockPos();
-            for (int pass = 0; pass < 2; pass++) {
                 for (BlockPos sourcePos : RCStructureBoundingBoxes.mutablePositions(relevantSourceArea)) {
-                    IvMutableBlockPos.add(context.transform.applyOn(sourcePos, worldPos, areaSize), origin);
+                    int paletteIndex = decoded.paletteIndex(sourcePos);
 
-                    if (context.includesComplex(worldPos)) {
-                        IBlockState state = PosTransformer.transformBlockState(blockCollection.getBlockState(sourcePos), context.transform);
+                    if (palette.passes[paletteIndex] == 0)
+                        generateBlock(context, transformer, worldData, areaSize, origin, sourcePos, palette.states[paletteIndex], worldPos, tileEntityCompounds);
+                }
 
-                        if (pass == getPass(state) && (transformer == null || !transformer.transformer.skipGeneration(transformer.instanceData, context, worldPos, state, worldData, sourcePos))) {
-                            setBlock(context, areaSize, worldPos, state, () -> tileEntityCompounds.get(sourcePos));
-                        }
-                    }
+                // Only revisit what's left instead of scanning the whole area again, and only the x slices we're in
+                BlockPos.MutableBlockPos sourcePos = new BlockPos.MutableBlockPos();
+                int slice = decoded.height * decoded.length;
+                int laterFrom = palette.laterPosition(relevantSourceArea.minX * slice);
+                int laterTo = palette.laterPosition((relevantSourceArea.maxX + 1) * slice);
+                for (int i = laterFrom; i < laterTo; i++) {
+                    int index = palette.laterIndices[i];
+                    if (relevantSourceArea.isVecInside(decoded.position(index, sourcePos)))
+                        generateBlock(context, transformer, worldData, areaSize, origin, sourcePos, palette.states[decoded.paletteIndices[index]], worldPos, tileEntityCompounds);
+                }
+            }
+            finally {
+                try {
+                    // Before melting, so relighting sees the placed blocks
+                    context.endBulkPlacement();
+                }
+                finally {
+                    context.meltHeightMap();
+                    RCWorldgenMonitor.stop();
                 }
             }
-
-            context.meltHeightMap();
         }
 
         if (transformer != null)
             transformer.transformer.transform(transformer.instanceData, Transformer.Phase.AFTER, context, worldData, transformer);
 
-        for (NBTTagCompound entityCompound : worldData.entities) {
+        for (NBTTagCompound entityCompound : decoded.entities) {
             double[] transformedEntityPos = context.transform.applyOn(getEntityPos(entityCompound), areaSize);
             if (context.includes(new Vec3i(transformedEntityPos[0] + origin.getX(), transformedEntityPos[1] + origin.getY(), transformedEntityPos[2] + origin.getZ()))) {
                 Entity entity = EntityList.createEntityFromNBT(entityCompound, world);
@@ -243,6 +280,16 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         }
     }
 
+    protected void generateBlock(@Nonnull StructureSpawnContext context, @Nullable RunTransformer transformer, IvWorldData worldData, int[] areaSize, BlockPos origin, BlockPos sourcePos, IBlockState state, BlockPos.MutableBlockPos worldPos, Map<BlockPos, NBTTagCompound> tileEntityCompounds)
+    {
+        IvMutableBlockPos.add(context.transform.applyOn(sourcePos, worldPos, areaSize), origin);
+
+        if (context.includesComplex(worldPos)
+                && (transformer == null || !transformer.transformer.skipGeneration(transformer.instanceData, context, worldPos, state, worldData, sourcePos))) {
+            setBlock(context, areaSize, worldPos, state, () -> tileEntityCompounds.get(sourcePos));
+        }
+    }
+
     @Nullable
     public RunTransformer getRunTransformer(@Nonnull InstanceData instanceData, @Nonnull TransformerMulti foreignTransformer, boolean asSource)
     {
@@ -275,7 +322,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         InstanceData instanceData = new InstanceData();
 
         if (!context.generateAsSource) {
-            IvWorldData worldData = constructWorldData();
+            IvWorldData worldData = decodedWorldData().worldData;
 
             context.environment.variables.fill(instanceData.variableDomain); // Fill with already set vars
             variableDomain.fill(instanceData.variableDomain, context.environment, context.random); // Determine the rest
@@ -320,15 +367,28 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     public InstanceData loadInstanceData(@Nonnull StructureLoadContext context, @Nonnull final NBTBase nbt, @Nonnull TransformerMulti transformer)
     {
         InstanceData instanceData = new InstanceData();
-        instanceData.readFromNBT(context, nbt, this.transformer, transformer, constructWorldData());
+        instanceData.readFromNBT(context, nbt, this.transformer, transformer);
         return instanceData;
     }
 
+    /**
+     * @return A freshly decoded, modifiable copy of the world data.
+     * Use {@link #decodedWorldData()} for read-only access.
+     */
     public IvWorldData constructWorldData()
     {
         return new IvWorldData(worldDataCompound, RecurrentComplex.specialRegistry.itemHidingMode());
     }
 
+    /**
+     * @return The cached, shared world data. Must not be modified.
+     */
+    @Nonnull
+    public DecodedWorldData decodedWorldData()
+    {
+        return StructureWorldDataCache.get(this);
+    }
+
     @Nonnull
     @Override
     public <I extends GenerationType> List<I> generationTypes(@Nonnull Class<? extends I> clazz)
@@ -348,11 +408,6 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
         return null;
     }
 
-    private int getPass(IBlockState state)
-    {
-        return (state.isNormalCube() || state.getMaterial() == Material.AIR) ? 0 : 1;
-    }
-
     @Override
     @Nonnull
     public GenericStructure copyAsGenericStructure()
@@ -370,7 +425,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
     @Override
     public IvBlockCollection blockCollection()
     {
-        return constructWorldData().blockCollection;
+        return decodedWorldData().worldData.blockCollection;
     }
 
     @Nonnull
@@ -511,7 +566,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
 
         public TransformerGenerationBehavior.InstanceData transformerGenerationBehavior = new TransformerGenerationBehavior.InstanceData();
 
-        public void readFromNBT(StructureLoadContext context, NBTBase nbt, TransformerMulti transformer, @Nonnull TransformerMulti foreignTransformer, IvWorldData worldData)
+        public void readFromNBT(StructureLoadContext context, NBTBase nbt, TransformerMulti transformer, @Nonnull TransformerMulti foreignTransformer)
         {
             NBTTagCompound compound = nbt instanceof NBTTagCompound ? (NBTTagCompound) nbt : new NBTTagCompound();
 
@@ -522,7 +577,7 @@ public class GenericStructure implements Structure<GenericStructure.InstanceData
             if (compound.hasKey(KEY_FOREIGN_TRANSFORMER))
                 foreignTransformerData = foreignTransformer.loadInstanceData(context, compound.getTag(KEY_FOREIGN_TRANSFORMER));
 
-            transformerGenerationBehavior.readFromNBT(context, nbt, worldData);
+            transformerGenerationBehavior.readFromNBT(context, nbt);
         }
 
         @Override
@@ -0,0 +1,270 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic;
+
+import com.google.gson.*;
+import ivorius.reccomplex.RecurrentComplex;
+import net.minecraft.nbt.CompressedStreamTools;
+import net.minecraft.nbt.NBTTagCompound;
+import org.apache.commons.codec.digest.DigestUtils;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.io.*;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps parsed copies of structure files on disk, so unchanged files don't need to be unzipped, their world data
+ * decompressed and their json tokenized again on the next start.
+ * Entries are keyed by the file's location, size and modification time; a changed file simply replaces its entry.
+ * Entries that haven't been used for {@link #MAX_UNUSED_DAYS} days are removed by {@link #prune()}.
+ */
+public class StructureFileCache
+{
+    public static final int VERSION = 2;
+    public static final String DIRECTORY_NAME = "reccomplex-cache";
+
+    public static final int MAX_UNUSED_DAYS = 30;
+
+    protected static final byte TAG_NULL = 0;
+    protected static final byte TAG_BOOLEAN = 1;
+    protected static final byte TAG_NUMBER = 2;
+    protected static final byte TAG_STRING = 3;
+    protected static final byte TAG_ARRAY = 4;
+    protected static final byte TAG_OBJECT = 5;
+
+    @Nonnull
+    protected final File directory;
+
+    public StructureFileCache(@Nonnull File directory)
+    {
+        this.directory = directory;
+    }
+
+    public static StructureFileCache inDataDirectory()
+    {
+        return new StructureFileCache(new File(new File(RecurrentComplex.proxy.getDataDirectory(), DIRECTORY_NAME), "structures"));
+    }
+
+    protected File file(String location)
+    {
+        return new File(directory, DigestUtils.sha1Hex(location) + ".bin");
+    }
+
+    @Nullable
+    public Contents read(Path path)
+    {
+        String location = path.toUri().toString();
+        File file = file(location);
+
+        if (!file.isFile())
+            return null;
+
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file))))
+        {
+            if (in.readInt() != VERSION || !readString(in).equals(location)
+                    || in.readLong() != Files.size(path) || in.readLong() != Files.getLastModifiedTime(path).toMillis())
+                return null;
+
+            Contents contents = new Contents(readElement(in), CompressedStreamTools.read(in));
+
+            // Mark as used, so prune() keeps it
+            //noinspection ResultOfMethodCallIgnored
+            file.setLastModified(System.currentTimeMillis());
+
+            return contents;
+        }
+        catch (IOException | RuntimeException e)
+        {
+            RecurrentComplex.logger.warn("Could not read cached structure file for " + path, e);
+        }
+
+        return null;
+    }
+
+    public void write(Path path, Contents contents)
+    {
+        String location = path.toUri().toString();
+        File file = file(location);
+
+        try
+        {
+            Files.createDirectories(directory.toPath());
+
+            File temp = File.createTempFile(file.getName(), ".tmp", directory);
+            try
+            {
+                try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp))))
+                {
+                    out.writeInt(VERSION);
+                    writeString(out, location);
+                    out.writeLong(Files.size(path));
+                    out.writeLong(Files.getLastModifiedTime(path).toMillis());
+                    writeElement(out, contents.json);
+                    CompressedStreamTools.write(contents.worldData, out);
+                }
+
+                Files.move(temp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            }
+            finally
+            {
+                Files.deleteIfExists(temp.toPath());
+            }
+        }
+        catch (IOException e)
+        {
+            RecurrentComplex.logger.warn("Could not cache structure file " + path, e);
+        }
+    }
+
+    /**
+     * Removes entries that haven't been read or written for {@link #MAX_UNUSED_DAYS} days, as well as leftover
+     * temporary files. Entries of removed or changed structure files are never read again, so they eventually expire.
+     */
+    public void prune()
+    {
+        File[] files = directory.listFiles();
+        if (files == null)
+            return;
+
+        long cutoff = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_UNUSED_DAYS);
+        long tempCutoff = System.currentTimeMillis() - TimeUnit.HOURS.toMillis(1);
+
+        for (File file : files)
+        {
+            String name = file.getName();
+            if ((name.endsWith(".bin") && file.lastModified() < cutoff)
+                    || (name.endsWith(".tmp") && file.lastModified() < tempCutoff))
+            {
+                if (!file.delete())
+                    RecurrentComplex.logger.warn("Could not remove expired structure cache file " + file);
+            }
+        }
+    }
+
+    protected static void writeString(DataOutput out, String string) throws IOException
+    {
+        byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    protected static String readString(DataInput in) throws IOException
+    {
+        int length = in.readInt();
+        if (length < 0)
+            throw new IOException("Negative string length: " + length);
+
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    protected static void writeElement(DataOutput out, JsonElement element) throws IOException
+    {
+        if (element.isJsonObject())
+        {
+            out.writeByte(TAG_OBJECT);
+            out.writeInt(element.getAsJsonObject().entrySet().size());
+            for (Map.Entry<String, JsonElement> entry : element.getAsJsonObject().entrySet())
+            {
+                writeString(out, entry.getKey());
+                writeElement(out, entry.getValue());
+            }
+        }
+        else if (element.isJsonArray())
+        {
+            out.writeByte(TAG_ARRAY);
+            out.writeInt(element.getAsJsonArray().size());
+            for (JsonElement child : element.getAsJsonArray())
+                writeElement(out, child);
+        }
+        else if (element.isJsonPrimitive())
+        {
+            JsonPrimitive primitive = element.getAsJsonPrimitive();
+
+            if (primitive.isBoolean())
+            {
+                out.writeByte(TAG_BOOLEAN);
+                out.writeBoolean(primitive.getAsBoolean());
+            }
+            else if (primitive.isNumber())
+            {
+                // Keep the literal, so no precision is lost either way
+                out.writeByte(TAG_NUMBER);
+                writeString(out, primitive.getAsString());
+            }
+            else
+            {
+                out.writeByte(TAG_STRING);
+                writeString(out, primitive.getAsString());
+            }
+        }
+        else
+            out.writeByte(TAG_NULL);
+    }
+
+    protected static JsonElement readElement(DataInput in) throws IOException
+    {
+        byte tag = in.readByte();
+
+        switch (tag)
+        {
+            case TAG_NULL:
+                return JsonNull.INSTANCE;
+            case TAG_BOOLEAN:
+                return new JsonPrimitive(in.readBoolean());
+            case TAG_NUMBER:
+                return new JsonPrimitive(new BigDecimal(readString(in)));
+            case TAG_STRING:
+                return new JsonPrimitive(readString(in));
+            case TAG_ARRAY:
+            {
+                int size = in.readInt();
+                JsonArray array = new JsonArray();
+                for (int i = 0; i < size; i++)
+                    array.add(readElement(in));
+                return array;
+            }
+            case TAG_OBJECT:
+            {
+                int size = in.readInt();
+                JsonObject object = new JsonObject();
+                for (int i = 0; i < size; i++)
+                {
+                    String key = readString(in);
+                    object.add(key, readElement(in));
+                }
+                return object;
+            }
+            default:
+                throw new IOException("Unknown tag: " + tag);
+        }
+    }
+
+    /**
+     * A structure file's contents, unpacked and with the json parsed to its tree.
+     */
+    public static class Contents
+    {
+        @Nonnull
+        public final JsonElement json;
+        @Nonnull
+        public final NBTTagCompound worldData;
+
+        public Contents(@Nonnull JsonElement json, @Nonnull NBTTagCompound worldData)
+        {
+            this.json = json;
+            this.worldData = worldData;
+        }
+    }
+}
@@ -7,8 +7,11 @@ package ivorius.reccomplex.world.gen.feature.structure.generic;
 
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
 import com.google.gson.JsonSyntaxException;
 import ivorius.ivtoolkit.tools.IvFileHelper;
+import ivorius.reccomplex.RCConfig;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.files.loading.FileLoaderRegistry;
 import ivorius.reccomplex.files.loading.RCFileSuffix;
@@ -74,6 +77,13 @@ public class StructureSaveHandler
         return structure;
     }
 
+    public GenericStructure fromJSON(JsonElement json, NBTTagCompound worldData) throws JsonSyntaxException
+    {
+        GenericStructure structure = gson.fromJson(json, GenericStructure.class);
+        structure.worldDataCompound = worldData;
+        return structure;
+    }
+
     public String toJSON(GenericStructure structureInfo)
     {
         return gson.toJson(structureInfo, GenericStructure.class);
@@ -94,6 +104,12 @@ public class StructureSaveHandler
     }
 
     public GenericStructure fromZip(ZipInputStream zipInputStream) throws IOException
+    {
+        StructureFileCache.Contents contents = readZip(zipInputStream);
+        return fromJSON(contents.json, contents.worldData);
+    }
+
+    public StructureFileCache.Contents readZip(ZipInputStream zipInputStream) throws IOException
     {
         ZipFinder finder = new ZipFinder();
 
@@ -104,9 +120,9 @@ public class StructureSaveHandler
         try
         {
             finder.read(zipInputStream);
-            return fromJSON(json.get(), worldData.get());
+            return new StructureFileCache.Contents(new JsonParser().parse(json.get()), worldData.get());
         }
-        catch (IOException | ZipFinder.MissingEntryException e)
+        catch (IOException | ZipFinder.MissingEntryException | JsonSyntaxException e)
         {
             throw new IOException("Error loading structure", e);
         }
@@ -125,18 +141,41 @@ public class StructureSaveHandler
 
     public class Loader extends FileLoaderRegistry<GenericStructure>
     {
+        protected StructureFileCache cache;
+
         public Loader()
         {
             super(StructureSaveHandler.this.suffix, StructureSaveHandler.this.registry);
+            concurrent = true;
+        }
+
+        protected synchronized StructureFileCache cache()
+        {
+            if (cache == null)
+            {
+                cache = StructureFileCache.inDataDirectory();
+                cache.prune();
+            }
+            return cache;
         }
 
         @Override
         public GenericStructure read(Path path, String name) throws Exception
         {
-            try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(path)))
+            StructureFileCache.Contents contents = RCConfig.cacheStructureFiles ? cache().read(path) : null;
+
+            if (contents == null)
             {
-                return fromZip(zip);
+                try (ZipInputStream zip = new ZipInputStream(Files.newInputStream(path)))
+                {
+                    contents = readZip(zip);
+                }
+
+                if (RCConfig.cacheStructureFiles)
+                    cache().write(path, contents);
             }
+
+            return fromJSON(contents.json, contents.worldData);
         }
     }
 
@@ -0,0 +1,98 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic;
+
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import net.minecraft.nbt.NBTTagCompound;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the decoded world data of registered structures around so it doesn't need to be re-read from NBT on every
+ * generate / prepare / load.
+ */
+public class StructureWorldDataCache extends SimpleLeveledRegistry.Module<StructureRegistry>
+{
+    protected final Map<GenericStructure, DecodedWorldData> cache = new ConcurrentHashMap<>();
+
+    protected final AtomicLong hits = new AtomicLong();
+    protected final AtomicLong misses = new AtomicLong();
+
+    @Nonnull
+    public static DecodedWorldData get(@Nonnull GenericStructure structure)
+    {
+        StructureWorldDataCache cache = StructureRegistry.INSTANCE.module(StructureWorldDataCache.class);
+        return cache != null ? cache.decoded(structure) : DecodedWorldData.decode(structure.worldDataCompound);
+    }
+
+    @Nullable
+    public static DecodedWorldData getIfPresent(@Nonnull GenericStructure structure)
+    {
+        StructureWorldDataCache cache = StructureRegistry.INSTANCE.module(StructureWorldDataCache.class);
+        return cache != null ? cache.decodedIfPresent(structure) : null;
+    }
+
+    @Nullable
+    public DecodedWorldData decodedIfPresent(@Nonnull GenericStructure structure)
+    {
+        DecodedWorldData decoded = cache.get(structure);
+        // The compound may have been swapped out since (e.g. for edited, unregistered structures)
+        return decoded != null && decoded.source == structure.worldDataCompound ? decoded : null;
+    }
+
+    @Nonnull
+    public DecodedWorldData decoded(@Nonnull GenericStructure structure)
+    {
+        DecodedWorldData decoded = decodedIfPresent(structure);
+
+        if (decoded != null) {
+            hits.incrementAndGet();
+            return decoded;
+        }
+
+        misses.incrementAndGet();
+
+        NBTTagCompound compound = structure.worldDataCompound;
+        decoded = DecodedWorldData.decode(compound);
+
+        // Only cache what we will be asked for again; unregistered structures would just leak
+        if (registry != null && registry.id(structure) != null)
+            cache.put(structure, decoded);
+
+        return decoded;
+    }
+
+    public long hits()
+    {
+        return hits.get();
+    }
+
+    public long misses()
+    {
+        return misses.get();
+    }
+
+    public int size()
+    {
+        return cache.size();
+    }
+
+    public long memoryEstimate()
+    {
+        return cache.values().stream().mapToLong(d -> d.memoryEstimate).sum();
+    }
+
+    @Override
+    public void invalidate()
+    {
+        cache.clear();
+    }
+}
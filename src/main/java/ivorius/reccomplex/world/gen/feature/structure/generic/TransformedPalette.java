@@ -0,0 +1,87 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic;
+
+import gnu.trove.list.array.TIntArrayList;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.ivtoolkit.transform.PosTransformer;
+import net.minecraft.block.material.Material;
+import net.minecraft.block.state.IBlockState;
+
+import javax.annotation.Nonnull;
+import java.util.Arrays;
+
+/**
+ * A structure's palette as it is placed with one specific transform: The transformed state and generation pass of
+ * every palette entry, and the blocks to revisit in the last pass.
+ */
+public class TransformedPalette
+{
+    public static final int PASSES = 2;
+
+    @Nonnull
+    public final IBlockState[] states;
+    @Nonnull
+    public final byte[] passes;
+
+    /**
+     * Block indices (see {@link DecodedWorldData#index(int, int, int)}) of all blocks that are not placed in the
+     * first pass, ascending. Since indices go by x first, the blocks of a range of x are a range in here, see
+     * {@link #laterPosition(int)}.
+     */
+    @Nonnull
+    public final int[] laterIndices;
+
+    protected TransformedPalette(@Nonnull IBlockState[] states, @Nonnull byte[] passes, @Nonnull int[] laterIndices)
+    {
+        this.states = states;
+        this.passes = passes;
+        this.laterIndices = laterIndices;
+    }
+
+    @Nonnull
+    public static TransformedPalette transform(@Nonnull DecodedWorldData decoded, @Nonnull AxisAlignedTransform2D transform)
+    {
+        IBlockState[] states = new IBlockState[decoded.palette.length];
+        byte[] passes = new byte[decoded.palette.length];
+
+        for (int i = 0; i < states.length; i++) {
+            states[i] = PosTransformer.transformBlockState(decoded.palette[i], transform);
+            passes[i] = (byte) pass(states[i]);
+        }
+
+        TIntArrayList laterIndices = new TIntArrayList();
+        int[] paletteIndices = decoded.paletteIndices;
+        for (int i = 0; i < paletteIndices.length; i++) {
+            if (passes[paletteIndices[i]] != 0)
+                laterIndices.add(i);
+        }
+
+        return new TransformedPalette(states, passes, laterIndices.toArray());
+    }
+
+    /**
+     * @return The position in {@link #laterIndices} of the first index that is at least the given one.
+     */
+    public int laterPosition(int index)
+    {
+        int position = Arrays.binarySearch(laterIndices, index);
+        return position >= 0 ? position : -(position + 1);
+    }
+
+    /**
+     * Solid blocks and air go first so that attached blocks (torches, ladders...) find their support.
+     */
+    public static int pass(IBlockState state)
+    {
+        return (state.isNormalCube() || state.getMaterial() == Material.AIR) ? 0 : 1;
+    }
+
+    public static int key(AxisAlignedTransform2D transform)
+    {
+        return (transform.getRotation() & 3) | (transform.isMirrorX() ? 4 : 0);
+    }
+}
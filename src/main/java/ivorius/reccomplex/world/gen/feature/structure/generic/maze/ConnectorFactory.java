@@ -20,13 +20,13 @@ public class ConnectorFactory
 
     private final Map<String, Connector> connectors = new HashMap<>();
 
-    public Connector get(String id)
+    public synchronized Connector get(String id)
     {
         Connector connector = connectors.get(id);
         return connector != null ? connector : register(id);
     }
 
-    public Connector register(String id)
+    public synchronized Connector register(String id)
     {
         Connector gendered = tryCreateGendered(id);
 
@@ -40,7 +40,7 @@ public class ConnectorFactory
         }
     }
 
-    public void put(String id, Connector connector)
+    public synchronized void put(String id, Connector connector)
     {
         connectors.put(id, connector);
     }
@@ -0,0 +1,281 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.maze;
+
+import com.google.common.collect.ImmutableSet;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.ivtoolkit.math.Transforms;
+import ivorius.ivtoolkit.maze.components.MazePassage;
+import ivorius.ivtoolkit.maze.components.MazeRoom;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.RecurrentComplex;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.Environment;
+import ivorius.reccomplex.world.gen.feature.structure.Structure;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.VariableDomain;
+import ivorius.reccomplex.world.gen.feature.structure.generic.TransformedPalette;
+import ivorius.reccomplex.world.gen.feature.structure.generic.generation.MazeGeneration;
+import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.ReachabilityStrategy;
+import org.apache.commons.lang3.tuple.Pair;
+
+import javax.annotation.Nonnull;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * The components of a maze ID, compiled once and shared by every maze that generates with them.
+ * Transformed shapes (rooms, exits and reachability) only depend on the transform and the exit connectors an
+ * environment picks, so they are kept per structure and reused; weights and variables are filled in per maze.
+ * Traversal abilities are remembered per set of shapes.
+ */
+public class MazeCatalog
+{
+    public static final int MAX_CACHED_ABILITIES = 16;
+
+    protected static final Map<String, MazeCatalog> catalogs = new ConcurrentHashMap<>();
+    protected static final AtomicInteger generation = new AtomicInteger();
+
+    protected static ExecutorService builder;
+
+    @Nonnull
+    public final String mazeID;
+    @Nonnull
+    public final List<Entry> entries;
+
+    /**
+     * Connectors are compared by identity, so everything generated from the catalog needs to come from this factory.
+     */
+    public final ConnectorFactory factory = new ConnectorFactory();
+    public final Set<Connector> blockedConnections;
+
+    protected final Map<List<MazeComponentStructure<Connector>>, Collection<ReachabilityStrategy.Ability<Connector>>> abilities
+            = Collections.synchronizedMap(new LinkedHashMap<List<MazeComponentStructure<Connector>>, Collection<ReachabilityStrategy.Ability<Connector>>>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<List<MazeComponentStructure<Connector>>, Collection<ReachabilityStrategy.Ability<Connector>>> eldest)
+        {
+            return size() > MAX_CACHED_ABILITIES;
+        }
+    });
+
+    protected MazeCatalog(@Nonnull String mazeID, @Nonnull List<Entry> entries)
+    {
+        this.mazeID = mazeID;
+        this.entries = entries;
+        blockedConnections = Collections.singleton(factory.get(ConnectorStrategy.DEFAULT_WALL)); // TODO Make configurable
+    }
+
+    @Nonnull
+    public static MazeCatalog get(@Nonnull String mazeID)
+    {
+        return catalogs.computeIfAbsent(mazeID, id -> new MazeCatalog(id, MazeGeneration.structures(StructureRegistry.INSTANCE, id)
+                .map(pair -> new Entry(pair.getLeft(), StructureRegistry.INSTANCE.id(pair.getLeft()), pair.getRight()))
+                .collect(Collectors.toList())));
+    }
+
+    public static void invalidateAll()
+    {
+        generation.incrementAndGet();
+        catalogs.clear();
+    }
+
+    protected static synchronized ExecutorService builder()
+    {
+        if (builder == null)
+        {
+            builder = Executors.newSingleThreadExecutor(r ->
+            {
+                Thread thread = new Thread(r, "ReC Maze Catalog Builder");
+                thread.setDaemon(true);
+                thread.setPriority(Thread.MIN_PRIORITY);
+                return thread;
+            });
+        }
+
+        return builder;
+    }
+
+    /**
+     * Compiles the catalogs of all maze IDs in the background. The registry is read right away, so call this after
+     * loading is done.
+     */
+    public static void prebuildAll()
+    {
+        int generation = MazeCatalog.generation.get();
+        Map<String, List<Entry>> snapshot = StructureRegistry.INSTANCE.getGenerationTypes(MazeGeneration.class).stream()
+                .filter(pair -> pair.getRight().mazeComponent.isValid())
+                .collect(Collectors.groupingBy(pair -> pair.getRight().mazeID, LinkedHashMap::new,
+                        Collectors.mapping(pair -> new Entry(pair.getLeft(), StructureRegistry.INSTANCE.id(pair.getLeft()), pair.getRight()), Collectors.toList())));
+
+        builder().submit(() ->
+        {
+            for (Map.Entry<String, List<Entry>> maze : snapshot.entrySet())
+            {
+                if (MazeCatalog.generation.get() != generation)
+                    return; // Outdated
+
+                try
+                {
+                    MazeCatalog catalog = new MazeCatalog(maze.getKey(), maze.getValue());
+                    catalog.prebuild();
+
+                    if (catalogs.putIfAbsent(catalog.mazeID, catalog) == null && MazeCatalog.generation.get() != generation)
+                        catalogs.remove(catalog.mazeID, catalog);
+                }
+                catch (RuntimeException e)
+                {
+                    RecurrentComplex.logger.warn("Error compiling maze components for '" + maze.getKey() + "'", e);
+                }
+            }
+        });
+    }
+
+    /**
+     * Builds the shapes of all transforms, with every exit using its unconditional connector.
+     */
+    protected void prebuild()
+    {
+        for (Entry entry : entries)
+        {
+            List<Map.Entry<MazePassage, Connector>> exitPaths = entry.generation.mazeComponent.getExitPaths().stream()
+                    .<Map.Entry<MazePassage, Connector>>map(path -> Pair.of(path.path.build(), path.connector.toConnector(factory)))
+                    .map(e -> entry.rooms().contains(e.getKey().getSource()) ? e : Pair.of(e.getKey().inverse(), e.getValue()))
+                    .collect(Collectors.toList());
+
+            Transforms.transformStream(r -> true, m -> entry.structure.isMirrorable() || m == 0)
+                    .forEach(t -> entry.shape(t, exitPaths, factory, blockedConnections));
+        }
+    }
+
+    /**
+     * @param transform   The transform of the maze itself.
+     * @param environment The maze's environment; decides variables, weights and exit connectors.
+     */
+    public Selection select(AxisAlignedTransform2D transform, Environment environment)
+    {
+        List<MazeComponentStructure<Connector>> components = new ArrayList<>();
+        List<MazeComponentStructure<Connector>> shapes = new ArrayList<>();
+
+        for (Entry entry : entries)
+        {
+            Structure<?> info = entry.structure;
+            List<AxisAlignedTransform2D> transforms = Transforms.transformStream(r -> info.isRotatable() || transform.apply(r) == 0, m -> info.isMirrorable() || m == 0).collect(Collectors.toList());
+
+            info.declaredVariables().omega(environment, true).forEach(domain ->
+            {
+                Environment domainEnvironment = environment.copy(domain);
+
+                double splitCompWeight = entry.generation.getWeight() * info.declaredVariables().chance(domainEnvironment)
+                        * RCConfig.tweakedSpawnRate(entry.structureID) / transforms.size();
+                List<Map.Entry<MazePassage, Connector>> exitPaths = WorldGenMaze.buildExitPaths(domainEnvironment, factory, entry.generation.mazeComponent.getExitPaths(), entry.rooms())
+                        .collect(Collectors.toList());
+
+                for (AxisAlignedTransform2D t : transforms)
+                {
+                    MazeComponentStructure<Connector> shape = entry.shape(t, exitPaths, factory, blockedConnections);
+                    shapes.add(shape);
+                    components.add(new MazeComponentStructure<>(splitCompWeight, entry.structureID, domainEnvironment.variables, t, shape.rooms, shape.exits, shape.reachability));
+                }
+            });
+        }
+
+        return new Selection(components, shapes);
+    }
+
+    protected Collection<ReachabilityStrategy.Ability<Connector>> abilities(List<MazeComponentStructure<Connector>> shapes)
+    {
+        Collection<ReachabilityStrategy.Ability<Connector>> compiled = abilities.get(shapes);
+
+        if (compiled == null)
+            abilities.put(shapes, compiled = Collections.unmodifiableCollection(ReachabilityStrategy.compileAbilities(shapes)));
+
+        return compiled;
+    }
+
+    public static class Entry
+    {
+        public final Structure<?> structure;
+        public final String structureID;
+        public final MazeGeneration generation;
+
+        protected final Map<Pair<Integer, List<Connector>>, MazeComponentStructure<Connector>> shapes = new ConcurrentHashMap<>();
+
+        protected Set<MazeRoom> rooms;
+        protected int[] size;
+
+        public Entry(Structure<?> structure, String structureID, MazeGeneration generation)
+        {
+            this.structure = structure;
+            this.structureID = structureID;
+            this.generation = generation;
+        }
+
+        public synchronized Set<MazeRoom> rooms()
+        {
+            if (rooms == null)
+            {
+                size = generation.mazeComponent.boundsSize();
+                rooms = ImmutableSet.copyOf(generation.mazeComponent.getRooms());
+            }
+
+            return rooms;
+        }
+
+        /**
+         * @return The component with the transform and exits applied. Its weight and variables are meaningless.
+         */
+        public MazeComponentStructure<Connector> shape(AxisAlignedTransform2D transform, List<Map.Entry<MazePassage, Connector>> exitPaths, ConnectorFactory factory, Set<Connector> blockedConnections)
+        {
+            Set<MazeRoom> rooms = rooms();
+            List<Connector> connectors = exitPaths.stream().map(Map.Entry::getValue).collect(Collectors.toList());
+
+            return shapes.computeIfAbsent(Pair.of(TransformedPalette.key(transform), connectors), key ->
+                    WorldGenMaze.transform(structureID, rooms, generation.mazeComponent, transform, size, 0, factory, exitPaths, new VariableDomain(), blockedConnections));
+        }
+    }
+
+    /**
+     * The components a maze can use in its environment.
+     */
+    public class Selection
+    {
+        public final List<MazeComponentStructure<Connector>> components;
+        protected final List<MazeComponentStructure<Connector>> shapes;
+
+        protected Selection(List<MazeComponentStructure<Connector>> components, List<MazeComponentStructure<Connector>> shapes)
+        {
+            this.components = components;
+            this.shapes = shapes;
+        }
+
+        public MazeCatalog catalog()
+        {
+            return MazeCatalog.this;
+        }
+
+        /**
+         * @return See {@link ReachabilityStrategy#compileAbilities(Collection)}.
+         */
+        public Collection<ReachabilityStrategy.Ability<Connector>> abilities()
+        {
+            return MazeCatalog.this.abilities(shapes);
+        }
+    }
+
+    public static class Cache extends SimpleLeveledRegistry.Module<StructureRegistry>
+    {
+        @Override
+        public void invalidate()
+        {
+            invalidateAll();
+        }
+    }
+}
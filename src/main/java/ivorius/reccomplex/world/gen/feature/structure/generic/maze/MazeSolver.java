@@ -0,0 +1,340 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.maze;
+
+import gnu.trove.map.TObjectByteMap;
+import gnu.trove.map.hash.TObjectByteHashMap;
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import ivorius.ivtoolkit.maze.components.*;
+import ivorius.reccomplex.RCConfig;
+import ivorius.reccomplex.files.SimpleLeveledRegistry;
+import ivorius.reccomplex.utils.RollingHistogram;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
+import ivorius.reccomplex.world.gen.feature.structure.Environment;
+import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.generic.TransformedPalette;
+import ivorius.reccomplex.world.gen.feature.structure.generic.generation.GenerationType;
+import ivorius.reccomplex.world.gen.script.WorldScriptMazeGenerator;
+import net.minecraft.world.biome.Biome;
+
+import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+/**
+ * Solves mazes on a shared, bounded pool of worker threads.
+ * Solvers are cancelled cooperatively through a predicate that is consulted for every placement attempt, so a timed
+ * out maze stops using its thread right away. Mazes with identical inputs reuse the previous solution.
+ */
+public class MazeSolver
+{
+    public static final int MAX_CACHED_SOLUTIONS = 32;
+
+    protected static final Map<String, MazeStatistics> statistics = new ConcurrentHashMap<>();
+
+    protected static final Map<Key, List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>>> solutions
+            = Collections.synchronizedMap(new LinkedHashMap<Key, List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>>>(16, 0.75f, true)
+    {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Key, List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>>> eldest)
+        {
+            return size() > MAX_CACHED_SOLUTIONS;
+        }
+    });
+
+    protected static ThreadPoolExecutor executor;
+
+    protected static synchronized ThreadPoolExecutor executor()
+    {
+        int threads = Math.max(1, RCConfig.mazeSolverThreads);
+
+        if (executor == null)
+        {
+            AtomicInteger count = new AtomicInteger();
+            executor = new ThreadPoolExecutor(threads, threads, 30, TimeUnit.SECONDS, new LinkedBlockingQueue<>(), r ->
+            {
+                Thread thread = new Thread(r, "ReC Maze Solver #" + count.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+            executor.allowCoreThreadTimeOut(true);
+        }
+        else if (executor.getMaximumPoolSize() != threads)
+        {
+            // Config changed
+            if (threads > executor.getMaximumPoolSize())
+            {
+                executor.setMaximumPoolSize(threads);
+                executor.setCorePoolSize(threads);
+            }
+            else
+            {
+                executor.setCorePoolSize(threads);
+                executor.setMaximumPoolSize(threads);
+            }
+        }
+
+        return executor;
+    }
+
+    @Nullable
+    public static List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>> cached(@Nonnull Key key)
+    {
+        List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>> solution = solutions.get(key);
+        if (solution != null)
+            statistics(key.mazeID).reused.incrementAndGet();
+        return solution;
+    }
+
+    /**
+     * Solves the maze on the solver pool, blocking until it is done or {@link RCConfig#mazeTimeout} passes.
+     *
+     * @return The placed components, or null if the maze can't be solved.
+     */
+    @Nullable
+    public static List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>> solve(@Nonnull Key key, MorphingMazeComponent<Connector> maze, List<MazeComponentStructure<Connector>> components, ConnectorStrategy connectorStrategy, List<MazePredicate<Connector>> predicates, Random random, int reverses)
+    {
+        MazeStatistics statistics = statistics(key.mazeID);
+        Cancellation<Connector> cancellation = new Cancellation<>();
+
+        List<MazePredicate<Connector>> allPredicates = new ArrayList<>(predicates.size() + 1);
+        allPredicates.add(cancellation); // First, so it's consulted before any expensive predicates
+        allPredicates.addAll(predicates);
+
+        long start = System.nanoTime();
+        Future<List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>>> future = executor().submit(() ->
+                MazeComponentConnector.connect(maze, components, connectorStrategy, new MazePredicateMany<>(allPredicates), random, reverses));
+
+        List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>> solution;
+        try
+        {
+            solution = RCConfig.mazeTimeout >= 0
+                    ? future.get(RCConfig.mazeTimeout, TimeUnit.MILLISECONDS)
+                    : future.get();
+        }
+        catch (TimeoutException e)
+        {
+            cancellation.cancel();
+            future.cancel(true);
+            statistics.timeouts.incrementAndGet();
+            throw new WorldScriptMazeGenerator.GenerationException("Maze generation timed out: " + key.mazeID);
+        }
+        catch (ExecutionException | InterruptedException e)
+        {
+            cancellation.cancel();
+            future.cancel(true);
+            statistics.failures.incrementAndGet();
+
+            Throwable t = e.getCause();
+
+            if (t instanceof Error) throw (Error) t;
+            else throw new WorldScriptMazeGenerator.GenerationException("Error generating maze; " + key.mazeID, t);
+        }
+
+        statistics.solveTimes.record(System.nanoTime() - start);
+
+        if (solution != null)
+        {
+            solution = Collections.unmodifiableList(solution);
+            solutions.put(key, solution);
+        }
+
+        return solution;
+    }
+
+    protected static MazeStatistics statistics(String mazeID)
+    {
+        return statistics.computeIfAbsent(mazeID, id -> new MazeStatistics());
+    }
+
+    public static Map<String, MazeStatistics> statistics()
+    {
+        return Collections.unmodifiableMap(statistics);
+    }
+
+    /**
+     * @return Maze IDs, those with the most total solve time first.
+     */
+    public static List<Map.Entry<String, MazeStatistics>> mostExpensive(int limit)
+    {
+        return statistics.entrySet().stream()
+                .sorted(Comparator.comparingLong((Map.Entry<String, MazeStatistics> e) -> e.getValue().solveTimes.snapshot().totalNanos()).reversed())
+                .limit(limit)
+                .collect(Collectors.toList());
+    }
+
+    public static int busyThreads()
+    {
+        return executor != null ? executor.getActiveCount() : 0;
+    }
+
+    public static int maxThreads()
+    {
+        return Math.max(1, RCConfig.mazeSolverThreads);
+    }
+
+    public static void resetStatistics()
+    {
+        statistics.clear();
+    }
+
+    public static void clearSolutions()
+    {
+        solutions.clear();
+    }
+
+    public static class MazeStatistics
+    {
+        public final RollingHistogram solveTimes = new RollingHistogram(RCWorldgenMonitor.SLICE_MILLIS, RCWorldgenMonitor.SLICES);
+
+        public final AtomicLong reused = new AtomicLong();
+        public final AtomicLong timeouts = new AtomicLong();
+        public final AtomicLong failures = new AtomicLong();
+    }
+
+    /**
+     * Everything that goes into a maze solution. Environment expressions may check biome, dimension, village type,
+     * generation type and variables, so they are all part of it.
+     */
+    public static class Key
+    {
+        @Nonnull
+        public final WorldScriptMazeGenerator script;
+        @Nonnull
+        public final String mazeID;
+        public final long seed;
+        public final int transform;
+
+        @Nonnull
+        public final TObjectByteMap<String> variables;
+        @Nonnull
+        public final Biome biome;
+        public final int dimension;
+        @Nullable
+        public final Integer villageType;
+        @Nullable
+        public final GenerationType generationType;
+
+        public Key(@Nonnull WorldScriptMazeGenerator script, @Nonnull String mazeID, long seed, @Nonnull AxisAlignedTransform2D transform, @Nonnull Environment environment)
+        {
+            this.script = script;
+            this.mazeID = mazeID;
+            this.seed = seed;
+            this.transform = TransformedPalette.key(transform);
+            this.variables = new TObjectByteHashMap<>(environment.variables.all());
+            this.biome = environment.biome;
+            this.dimension = environment.world.provider.getDimension();
+            this.villageType = environment.villageType;
+            this.generationType = environment.generationType;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+
+            Key key = (Key) o;
+            return seed == key.seed
+                    && transform == key.transform
+                    && dimension == key.dimension
+                    && script == key.script
+                    && mazeID.equals(key.mazeID)
+                    && variables.equals(key.variables)
+                    && biome == key.biome
+                    && Objects.equals(villageType, key.villageType)
+                    && generationType == key.generationType;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = System.identityHashCode(script);
+            result = 31 * result + mazeID.hashCode();
+            result = 31 * result + Long.hashCode(seed);
+            result = 31 * result + transform;
+            result = 31 * result + variables.hashCode();
+            result = 31 * result + System.identityHashCode(biome);
+            result = 31 * result + dimension;
+            result = 31 * result + Objects.hashCode(villageType);
+            result = 31 * result + System.identityHashCode(generationType);
+            return result;
+        }
+    }
+
+    /**
+     * Refuses every placement once cancelled, which makes the connector give up.
+     * MazeComponentConnector can't be told to stop otherwise, and may not check for interrupts.
+     */
+    public static class Cancellation<C> implements MazePredicate<C>
+    {
+        protected volatile boolean cancelled;
+
+        public void cancel()
+        {
+            cancelled = true;
+        }
+
+        public boolean isCancelled()
+        {
+            return cancelled;
+        }
+
+        @Override
+        public boolean canPlace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+        {
+            if (cancelled || Thread.currentThread().isInterrupted())
+                throw new CancellationException();
+            return true;
+        }
+
+        @Override
+        public void willPlace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+        {
+
+        }
+
+        @Override
+        public void didPlace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+        {
+
+        }
+
+        @Override
+        public void willUnplace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+        {
+
+        }
+
+        @Override
+        public void didUnplace(MorphingMazeComponent<C> maze, ShiftedMazeComponent<?, C> component)
+        {
+
+        }
+
+        @Override
+        public boolean isDirtyConnection(MazeRoom dest, MazeRoom source, C c)
+        {
+            return true;
+        }
+    }
+
+    /**
+     * Drops solutions whenever structures change, since the components they were built from may be gone.
+     */
+    public static class Cache extends SimpleLeveledRegistry.Module<StructureRegistry>
+    {
+        @Override
+        public void invalidate()
+        {
+            clearSolutions();
+        }
+    }
+}
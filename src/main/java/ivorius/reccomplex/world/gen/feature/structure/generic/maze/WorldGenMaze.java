@@ -21,9 +21,12 @@ import ivorius.reccomplex.world.gen.feature.StructureGenerator;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import ivorius.reccomplex.world.gen.feature.structure.Structure;
 import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
+import ivorius.reccomplex.world.gen.feature.structure.VariableDomain;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
 import ivorius.reccomplex.world.gen.feature.structure.generic.generation.MazeGeneration;
+import ivorius.reccomplex.world.gen.feature.structure.generic.transformers.TransformerGenerationBehavior;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
 import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nullable;
@@ -59,6 +62,24 @@ public class WorldGenMaze
         return generator.generate().succeeded();
     }
 
+    /**
+     * @return The box enclosing everything the component generates, or null if that isn't known.
+     */
+    @Nullable
+    public static StructureBoundingBox generationBounds(PlacedStructure placedComponent, BlockPos pos, AxisAlignedTransform2D transform)
+    {
+        Structure<?> structure = StructureRegistry.INSTANCE.get(placedComponent.structureID);
+
+        if (structure == null)
+            return new StructureBoundingBox(pos, pos); // Won't generate anything
+
+        return new StructureGenerator<>(structure)
+                .transform(Transforms.apply(placedComponent.transform, transform))
+                .lowerCoord(lowerCoord(structure, placedComponent.lowerCoord, placedComponent.transform, pos, transform))
+                .boundingBox().map(bb -> TransformerGenerationBehavior.InstanceData.generationBounds(bb, placedComponent.instanceData))
+                .orElse(null);
+    }
+
     protected static BlockPos lowerCoord(Structure structure, BlockPos lowerCoord, AxisAlignedTransform2D placedTransform, BlockPos pos, AxisAlignedTransform2D transform)
     {
         int[] placedSize = RCAxisAlignedTransform.applySize(placedTransform, structure.size());
@@ -122,17 +143,23 @@ public class WorldGenMaze
     public static MazeComponentStructure<Connector> transform(Structure info, SavedMazeComponent comp, final AxisAlignedTransform2D transform, final int[] size, double weight, ConnectorFactory factory, Environment environment, Collection<Connector> blockedConnections)
     {
         Collection<MazeRoom> rooms = comp.getRooms();
+        return transform(StructureRegistry.INSTANCE.id(info), rooms, comp, transform, size, weight, factory,
+                buildExitPaths(environment, factory, comp.getExitPaths(), rooms).collect(Collectors.toList()), environment.variables, blockedConnections);
+    }
+
+    public static MazeComponentStructure<Connector> transform(String structureID, Collection<MazeRoom> rooms, SavedMazeComponent comp, final AxisAlignedTransform2D transform, final int[] size, double weight, ConnectorFactory factory, List<Map.Entry<MazePassage, Connector>> exitPaths, VariableDomain variables, Collection<Connector> blockedConnections)
+    {
         Set<MazeRoom> transformedRooms = rooms.stream().map(input -> MazeRooms.rotated(input, transform, size)).collect(Collectors.toSet());
 
         Map<MazePassage, Connector> transformedExits = new HashMap<>();
-        buildExitPaths(environment, factory, comp.getExitPaths(), rooms).forEach(path -> transformedExits.put(MazePassages.rotated(path.getKey(), transform, size), path.getValue()));
+        exitPaths.forEach(path -> transformedExits.put(MazePassages.rotated(path.getKey(), transform, size), path.getValue()));
         addMissingExits(transformedRooms, transformedExits, comp.defaultConnector.toConnector(factory));
 
         ImmutableMultimap.Builder<MazePassage, MazePassage> reachability = ImmutableMultimap.builder();
         comp.reachability.build(reachability, transform, size, SavedMazeReachability.notBlocked(blockedConnections, transformedExits), transformedExits.keySet());
         addExternalReachability(reachability, transformedExits, blockedConnections);
 
-        return new MazeComponentStructure<>(weight, StructureRegistry.INSTANCE.id(info), environment.variables, transform, ImmutableSet.copyOf(transformedRooms), ImmutableMap.copyOf(transformedExits), reachability.build());
+        return new MazeComponentStructure<>(weight, structureID, variables, transform, ImmutableSet.copyOf(transformedRooms), ImmutableMap.copyOf(transformedExits), reachability.build());
     }
 
     public static ImmutableMultimap.Builder<MazePassage, MazePassage> addExternalReachability(ImmutableMultimap.Builder<MazePassage, MazePassage> reachability, Map<MazePassage, Connector> transformedExits, Collection<Connector> blockedConnections)
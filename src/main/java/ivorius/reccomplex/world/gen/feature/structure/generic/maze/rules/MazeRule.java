@@ -6,7 +6,6 @@
 package ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules;
 
 import ivorius.ivtoolkit.maze.components.ConnectionStrategy;
-import ivorius.ivtoolkit.maze.components.MazeComponent;
 import ivorius.ivtoolkit.maze.components.MazePredicate;
 import ivorius.ivtoolkit.tools.NBTCompoundObject;
 import ivorius.reccomplex.gui.table.datasource.TableDataSource;
@@ -16,7 +15,6 @@ import ivorius.reccomplex.world.gen.feature.structure.generic.Selection;
 import ivorius.reccomplex.world.gen.script.WorldScriptMazeGenerator;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.*;
 
-import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 
@@ -29,5 +27,5 @@ public abstract class MazeRule implements NBTCompoundObject
 
     public abstract TableDataSource tableDataSource(TableNavigator navigator, TableDelegate delegate, List<SavedMazePathConnection> expected, Selection bounds);
 
-    public abstract MazePredicate<Connector> build(WorldScriptMazeGenerator script, Set<Connector> blockedConnections, ConnectorFactory connectorFactory, Collection<? extends MazeComponent<Connector>> components, ConnectionStrategy<Connector> connectionStrategy_);
+    public abstract MazePredicate<Connector> build(WorldScriptMazeGenerator script, Set<Connector> blockedConnections, ConnectorFactory connectorFactory, MazeCatalog.Selection components, ConnectionStrategy<Connector> connectionStrategy_);
 }
@@ -452,7 +452,7 @@ public class ReachabilityStrategy<C> implements MazePredicate<C>
                 .anyMatch(r::equals);
     }
 
-    private static class Ability<C>
+    public static class Ability<C>
     {
         @Nonnull
         protected final MazePassage start;
@@ -6,7 +6,6 @@
 package ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.saved;
 
 import ivorius.ivtoolkit.maze.components.ConnectionStrategy;
-import ivorius.ivtoolkit.maze.components.MazeComponent;
 import ivorius.ivtoolkit.maze.components.MazePassage;
 import ivorius.ivtoolkit.tools.NBTCompoundObjects;
 import ivorius.reccomplex.gui.table.datasource.TableDataSource;
@@ -59,7 +58,7 @@ public class MazeRuleConnect extends MazeRule
     }
 
     @Override
-    public ReachabilityStrategy<Connector> build(WorldScriptMazeGenerator script, Set<Connector> blockedConnections, ConnectorFactory connectorFactory, Collection<? extends MazeComponent<Connector>> components, ConnectionStrategy<Connector> connectionStrategy)
+    public ReachabilityStrategy<Connector> build(WorldScriptMazeGenerator script, Set<Connector> blockedConnections, ConnectorFactory connectorFactory, MazeCatalog.Selection components, ConnectionStrategy<Connector> connectionStrategy)
     {
         if (start.size() > 0 && end.size() > 0)
         {
@@ -67,7 +66,7 @@ public class MazeRuleConnect extends MazeRule
             LimitAABBStrategy<Object> confiner = new LimitAABBStrategy<>(script.mazeComponent.boundsSize());
 
             return preventConnection ? ReachabilityStrategy.preventConnection(points, confiner, connectionStrategy)
-                    :  ReachabilityStrategy.connect(points, confiner, ReachabilityStrategy.compileAbilities(components), connectionStrategy);
+                    :  ReachabilityStrategy.connect(points, confiner, components.abilities(), connectionStrategy);
         }
         else
             return null;
@@ -53,7 +53,7 @@ public class MazeRuleConnectAll extends MazeRule
     }
 
     @Override
-    public MazePredicate<Connector> build(WorldScriptMazeGenerator script, Set<Connector> blockedConnections, ConnectorFactory connectorFactory, Collection<? extends MazeComponent<Connector>> components, ConnectionStrategy<Connector> connectionStrategy)
+    public MazePredicate<Connector> build(WorldScriptMazeGenerator script, Set<Connector> blockedConnections, ConnectorFactory connectorFactory, MazeCatalog.Selection components, ConnectionStrategy<Connector> connectionStrategy)
     {
         List<SavedMazePath> paths = additive ? exits : getPaths(exits, script.mazeComponent.exitPaths, blockedConnections, connectorFactory).collect(Collectors.toList());
 
@@ -63,7 +63,7 @@ public class MazeRuleConnectAll extends MazeRule
             Predicate<MazeRoom> confiner = new LimitAABBStrategy<>(script.mazeComponent.boundsSize());
 
             return preventConnection ? ReachabilityStrategy.preventConnection(points, confiner, connectionStrategy)
-                    : ReachabilityStrategy.connect(points, confiner, ReachabilityStrategy.compileAbilities(components), connectionStrategy
+                    : ReachabilityStrategy.connect(points, confiner, components.abilities(), connectionStrategy
             );
         }
         else
@@ -0,0 +1,206 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature.structure.generic.placement;
+
+import gnu.trove.list.array.TIntArrayList;
+import gnu.trove.map.TLongObjectMap;
+import gnu.trove.map.hash.TLongObjectHashMap;
+import net.minecraft.util.math.BlockPos;
+
+import java.util.Arrays;
+import java.util.function.Predicate;
+
+/**
+ * Positions grouped into world columns, so that a positioned matcher can be evaluated once per (column, y) rather than
+ * once per (position, offset) when scanning offsets.
+ */
+public class ColumnSources
+{
+    public final int[] xs;
+    public final int[] zs;
+    /**
+     * Per column, sorted and distinct.
+     */
+    public final int[][] ys;
+    /**
+     * Per column, contiguous runs of ys as {start0, end0, start1, end1, ...}, both inclusive.
+     */
+    public final int[][] runs;
+
+    public final int size;
+    public final int minY, maxY;
+
+    protected ColumnSources(int[] xs, int[] zs, int[][] ys)
+    {
+        this.xs = xs;
+        this.zs = zs;
+        this.ys = ys;
+        this.runs = new int[ys.length][];
+
+        int size = 0, minY = Integer.MAX_VALUE, maxY = Integer.MIN_VALUE;
+        for (int c = 0; c < ys.length; c++)
+        {
+            int[] colYs = ys[c];
+            size += colYs.length;
+            minY = Math.min(minY, colYs[0]);
+            maxY = Math.max(maxY, colYs[colYs.length - 1]);
+
+            TIntArrayList colRuns = new TIntArrayList();
+            int start = colYs[0];
+            for (int i = 1; i <= colYs.length; i++)
+            {
+                if (i == colYs.length || colYs[i] != colYs[i - 1] + 1)
+                {
+                    colRuns.add(start);
+                    colRuns.add(colYs[i - 1]);
+                    if (i < colYs.length) start = colYs[i];
+                }
+            }
+            runs[c] = colRuns.toArray();
+        }
+
+        this.size = size;
+        this.minY = minY;
+        this.maxY = maxY;
+    }
+
+    public static ColumnSources of(Iterable<? extends BlockPos> positions)
+    {
+        TLongObjectMap<TIntArrayList> columns = new TLongObjectHashMap<>();
+        for (BlockPos pos : positions)
+        {
+            long key = ((long) pos.getX() << 32) | (pos.getZ() & 0xFFFFFFFFL);
+            TIntArrayList colYs = columns.get(key);
+            if (colYs == null)
+                columns.put(key, colYs = new TIntArrayList());
+            colYs.add(pos.getY());
+        }
+
+        int[] xs = new int[columns.size()], zs = new int[columns.size()];
+        int[][] ys = new int[columns.size()][];
+        int[] c = {0};
+        columns.forEachEntry((key, colYs) ->
+        {
+            xs[c[0]] = (int) (key >> 32);
+            zs[c[0]] = (int) key;
+
+            colYs.sort();
+            int[] sorted = colYs.toArray();
+            int distinct = 0;
+            for (int i = 0; i < sorted.length; i++)
+                if (i == 0 || sorted[i] != sorted[distinct - 1])
+                    sorted[distinct++] = sorted[i];
+            ys[c[0]] = distinct == sorted.length ? sorted : Arrays.copyOf(sorted, distinct);
+
+            c[0]++;
+            return true;
+        });
+
+        return new ColumnSources(xs, zs, ys);
+    }
+
+    public int columns()
+    {
+        return xs.length;
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    /**
+     * Evaluates the predicate once per column and world y needed to shift all sources by any offset in
+     * [minOffset, maxOffset].
+     *
+     * @return Per column, prefix sums of matches starting at world y = minY + minOffset of the column.
+     */
+    public Prefix prefix(int minOffset, int maxOffset, Predicate<BlockPos> predicate)
+    {
+        int[][] sums = new int[columns()][];
+        int[] bases = new int[columns()];
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+        for (int c = 0; c < columns(); c++)
+        {
+            int[] colYs = ys[c];
+            int base = colYs[0] + minOffset;
+            int top = colYs[colYs.length - 1] + maxOffset;
+
+            int[] sum = new int[top - base + 2];
+            for (int y = base; y <= top; y++)
+                sum[y - base + 1] = sum[y - base] + (predicate.test(pos.setPos(xs[c], y, zs[c])) ? 1 : 0);
+
+            sums[c] = sum;
+            bases[c] = base;
+        }
+
+        return new Prefix(sums, bases);
+    }
+
+    public class Prefix
+    {
+        protected final int[][] sums;
+        protected final int[] bases;
+
+        protected Prefix(int[][] sums, int[] bases)
+        {
+            this.sums = sums;
+            this.bases = bases;
+        }
+
+        /**
+         * @return How many sources match when shifted by the offset. Costs one step per contiguous run.
+         */
+        public int count(int offset)
+        {
+            int count = 0;
+            for (int c = 0; c < sums.length; c++)
+            {
+                int[] sum = sums[c], colRuns = runs[c];
+                int shift = offset - bases[c];
+                for (int r = 0; r < colRuns.length; r += 2)
+                    count += sum[colRuns[r + 1] + shift + 1] - sum[colRuns[r] + shift];
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Lazily evaluates and remembers the predicate per (column, world y), for scans that may stop early.
+     */
+    public class Memo
+    {
+        protected final Predicate<BlockPos> predicate;
+        protected final int minWorldY, height;
+        protected final byte[][] memo;
+        protected final BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+
+        public Memo(Predicate<BlockPos> predicate, int minWorldY, int height)
+        {
+            this.predicate = predicate;
+            this.minWorldY = minWorldY;
+            this.height = height;
+            this.memo = new byte[columns()][];
+        }
+
+        public boolean test(int column, int worldY)
+        {
+            int index = worldY - minWorldY;
+            if (index < 0 || index >= height)
+                return predicate.test(pos.setPos(xs[column], worldY, zs[column]));
+
+            byte[] colMemo = memo[column];
+            if (colMemo == null)
+                colMemo = memo[column] = new byte[height];
+
+            if (colMemo[index] == 0)
+                colMemo[index] = (byte) (predicate.test(pos.setPos(xs[column], worldY, zs[column])) ? 1 : 2);
+
+            return colMemo[index] == 1;
+        }
+    }
+}
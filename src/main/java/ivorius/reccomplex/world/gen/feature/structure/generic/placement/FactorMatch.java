@@ -23,7 +23,6 @@ import ivorius.reccomplex.utils.IntegerRanges;
 import ivorius.reccomplex.utils.algebra.ExpressionCache;
 import ivorius.reccomplex.utils.expression.BlockExpression;
 import ivorius.reccomplex.utils.expression.PositionedBlockExpression;
-import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -54,26 +53,16 @@ public class FactorMatch extends GenericPlacer.Factor
     public FactorMatch(float priority, String sourceExpression, String destExpression, float requiredConformity)
     {
         super(priority);
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), sourceExpression);
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), sourceExpression);
         this.destMatcher = ExpressionCache.of(new PositionedBlockExpression(RecurrentComplex.specialRegistry), destExpression);
 
         this.requiredConformity = requiredConformity;
     }
 
-    protected float weight(WorldCache cache, Set<? extends BlockPos> sources, float needed)
+    protected static float weight(int matched, int total, float needed)
     {
-        int failChances = (int) (sources.size() * (1f - needed));
-        int matched = 0;
-
-        for (BlockPos pos : sources)
-        {
-            if (destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(cache, pos)))
-                matched++;
-            else if (--failChances < 0)
-                break;  // Already lost
-        }
-
-        return failChances >= 0 ? (float) matched / sources.size() : 0;
+        int failChances = (int) (total * (1f - needed));
+        return total - matched <= failChances ? (float) matched / total : 0;
     }
 
     @SideOnly(Side.CLIENT)
@@ -93,10 +82,10 @@ public class FactorMatch extends GenericPlacer.Factor
 
         int[] size = StructureBoundingBoxes.size(context.boundingBox);
         BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
-        Set<BlockPos.MutableBlockPos> sources = BlockAreas.streamMutablePositions(blockCollection.area())
-                .filter(p -> sourceMatcher.evaluate(() -> blockCollection.getBlockState(p)))
-                .map(p -> new BlockPos.MutableBlockPos(context.transform.apply(p, size).add(lowerCoord.getX(), 0, lowerCoord.getZ())))
-                .collect(Collectors.toSet());
+        ColumnSources sources = ColumnSources.of(BlockAreas.streamMutablePositions(blockCollection.area())
+                .filter(p -> sourceMatcher.test(blockCollection.getBlockState(p)))
+                .map(p -> context.transform.apply(p, size).add(lowerCoord.getX(), 0, lowerCoord.getZ()))
+                .collect(Collectors.toList()));
 
         for (IntegerRange range : (Iterable<IntegerRange>) considerable.streamSections(null, true)::iterator)
         {
@@ -104,14 +93,13 @@ public class FactorMatch extends GenericPlacer.Factor
             int lastY = range.getMax();
             int end = range.getMin();
 
+            // Evaluate every (column, y) once, then slide over the prefix sums
+            ColumnSources.Prefix matches = sources.isEmpty() ? null
+                    : sources.prefix(end, lastY, pos -> destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(cache, pos)));
+
             for (int y = lastY; y >= end; y--)
             {
-                int finalY = y;
-                sources.forEach(p -> p.move(EnumFacing.UP, finalY));
-
-                float conformity = weight(cache, sources, requiredConformity);
-
-                sources.forEach(p -> p.move(EnumFacing.DOWN, finalY));
+                float conformity = weight(matches != null ? matches.count(y) : 0, sources.size, requiredConformity);
 
                 if (curConformity == null)
                 {
@@ -44,14 +44,14 @@ public class SelectivePlacer implements Placer
     {
         placer.setPreset("surface");
         baseline = 0;
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), "!(air | reccomplex:generic_space)");
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), "!(air | reccomplex:generic_space)");
     }
 
     public SelectivePlacer(GenericPlacer placer, int baseline)
     {
         this.placer.setContents(placer);
         this.baseline = baseline;
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), "");
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), "");
     }
 
     public static Gson createGson()
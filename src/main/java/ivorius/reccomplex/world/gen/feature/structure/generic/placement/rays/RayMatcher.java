@@ -8,7 +8,6 @@ package ivorius.reccomplex.world.gen.feature.structure.generic.placement.rays;
 import com.google.gson.*;
 import ivorius.ivtoolkit.blocks.IvBlockCollection;
 import ivorius.ivtoolkit.tools.IvTranslations;
-import ivorius.ivtoolkit.util.IvStreams;
 import ivorius.ivtoolkit.world.WorldCache;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.gui.TableDataSourceExpression;
@@ -22,6 +21,7 @@ import ivorius.reccomplex.gui.table.datasource.TableDataSourceSegmented;
 import ivorius.reccomplex.gui.table.datasource.TableDataSourceSupplied;
 import ivorius.reccomplex.json.JsonUtils;
 import ivorius.reccomplex.utils.expression.PositionedBlockExpression;
+import ivorius.reccomplex.world.gen.feature.structure.generic.placement.ColumnSources;
 import ivorius.reccomplex.world.gen.feature.structure.generic.placement.FactorLimit;
 import ivorius.reccomplex.world.gen.feature.structure.generic.placement.StructurePlaceContext;
 import net.minecraft.util.math.BlockPos;
@@ -56,37 +56,46 @@ public class RayMatcher extends FactorLimit.Ray
         this.destMatcher.setExpression(destExpression);
     }
 
-    protected boolean matches(WorldCache cache, Set<BlockPos> surface, int y, float needed)
+    protected static boolean matches(ColumnSources sources, ColumnSources.Memo matches, int y, float needed)
     {
-        int[] chances = new int[]{surface.size()};
+        int need = (int) (sources.size * needed);
+        int chances = sources.size - need;
 
-        int[] need = new int[]{(int) (chances[0] * needed)};
-        chances[0] -= need[0];
-        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        if (need <= 0)
+            return true;
 
-        IvStreams.visit(surface.stream(), surfacePos ->
+        for (int c = 0; c < sources.columns(); c++)
         {
-            pos.setPos(surfacePos.getX(), surfacePos.getY() + y, surfacePos.getZ());
-            if (destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(cache, pos)))
-                return --need[0] > 0;
-            else
-                return --chances[0] > 0; // Already lost
-        });
-
-        return need[0] <= 0;
+            for (int sourceY : sources.ys[c])
+            {
+                if (matches.test(c, sourceY + y))
+                {
+                    if (--need <= 0)
+                        return true;
+                }
+                else if (--chances <= 0)
+                    return false; // Already lost
+            }
+        }
+
+        return false;
     }
 
     @Override
     public OptionalInt cast(WorldCache cache, StructurePlaceContext context, IvBlockCollection collection, Set<BlockPos> surface, int y)
     {
-        Set<BlockPos> shiftedSurface = RayAverageMatcher.shifted(context, collection, surface);
+        ColumnSources sources = ColumnSources.of(RayAverageMatcher.shifted(context, collection, surface));
 
         int height = cache.world.getHeight();
+        // Every (column, y) is evaluated at most once across the whole scan
+        ColumnSources.Memo matches = sources.new Memo(pos -> destMatcher.evaluate(() -> PositionedBlockExpression.Argument.at(cache, pos)),
+                sources.minY, sources.isEmpty() ? 0 : height + sources.maxY - sources.minY);
+
         while (true) {
             if (y < 0 || y >= height) // Found none
                 return OptionalInt.empty();
 
-            if (matches(cache, shiftedSurface, y, requiredRatio))
+            if (matches(sources, matches, y, requiredRatio))
                 break;
 
             y += up ? 1 : -1;
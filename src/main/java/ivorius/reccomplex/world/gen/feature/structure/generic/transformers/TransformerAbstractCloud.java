@@ -5,10 +5,10 @@
 
 package ivorius.reccomplex.world.gen.feature.structure.generic.transformers;
 
-import com.google.common.collect.Sets;
-import gnu.trove.map.TObjectDoubleMap;
-import gnu.trove.map.hash.TObjectDoubleHashMap;
-import ivorius.ivtoolkit.blocks.BlockAreas;
+import gnu.trove.iterator.TLongIterator;
+import gnu.trove.map.TLongDoubleMap;
+import gnu.trove.map.hash.TLongDoubleHashMap;
+import gnu.trove.set.hash.TLongHashSet;
 import ivorius.ivtoolkit.blocks.BlockPositions;
 import ivorius.ivtoolkit.blocks.IvBlockCollection;
 import ivorius.ivtoolkit.blocks.IvMutableBlockPos;
@@ -17,6 +17,7 @@ import ivorius.ivtoolkit.tools.IvWorldData;
 import ivorius.ivtoolkit.tools.NBTTagLists;
 import ivorius.ivtoolkit.world.chunk.gen.StructureBoundingBoxes;
 import ivorius.reccomplex.nbt.NBTStorable;
+import ivorius.reccomplex.utils.RCBlockPositions;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLiveContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareContext;
@@ -27,6 +28,7 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
+import net.minecraftforge.common.util.Constants;
 
 import javax.annotation.Nonnull;
 import java.util.*;
@@ -71,14 +73,14 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
         return matches(instanceData, state);
     }
 
-    public TObjectDoubleMap<BlockPos> buildCloud(S instanceData, IvWorldData worldData, StructurePrepareContext context, TransformerMulti transformer, TransformerMulti.InstanceData transformerInstanceData)
+    public TLongDoubleMap buildCloud(S instanceData, IvWorldData worldData, StructurePrepareContext context, TransformerMulti transformer, TransformerMulti.InstanceData transformerInstanceData)
     {
         Random random = context.random;
         Environment environment = context.environment;
         BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
-        int[] strucSize = new int[]{worldData.blockCollection.width, worldData.blockCollection.height, worldData.blockCollection.length};
+        IvBlockCollection blockCollection = worldData.blockCollection;
+        int[] strucSize = new int[]{blockCollection.width, blockCollection.height, blockCollection.length};
 
-        TObjectDoubleMap<BlockPos> cloud = new TObjectDoubleHashMap<>();
         BlurredValueField blurredValueField = new BlurredValueField(strucSize);
 
         int gridCoords = 1;
@@ -88,59 +90,87 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
         for (int i = 0; i < values; i++)
             blurredValueField.addValue(1 + (random.nextFloat() - random.nextFloat()) * (float) cloudExpansionRandomization() / 100f, random);
 
-        BlockAreas.mutablePositions(worldData.blockCollection.area()).forEach(pos ->
-        {
-            IBlockState state = worldData.blockCollection.getBlockState(pos);
-            BlockPos worldCoord = context.transform.apply(pos, strucSize).add(lowerCoord);
-            if (matches(instanceData, state) && canPenetrate(environment, worldData, worldCoord, 1, transformer, transformerInstanceData))
-                cloud.put(pos.toImmutable(), 1);
-        });
+        // Keys are RCBlockPositions-packed source positions; the cloud may leave the structure's bounds
+        TLongDoubleMap cloud = new TLongDoubleHashMap(Math.max(gridCoords / 4, gnu.trove.impl.Constants.DEFAULT_CAPACITY));
+        TLongHashSet changed = new TLongHashSet();
+
+        BlockPos.MutableBlockPos pos = new BlockPos.MutableBlockPos();
+        BlockPos.MutableBlockPos worldCoord = new BlockPos.MutableBlockPos();
+        for (int x = 0; x < strucSize[0]; x++)
+            for (int y = 0; y < strucSize[1]; y++)
+                for (int z = 0; z < strucSize[2]; z++)
+                {
+                    IBlockState state = blockCollection.getBlockState(pos.setPos(x, y, z));
+                    if (!matches(instanceData, state))
+                        continue;
+
+                    IvMutableBlockPos.add(context.transform.applyOn(pos, worldCoord, strucSize), lowerCoord);
+                    if (canPenetrate(environment, worldData, worldCoord, 1, transformer, transformerInstanceData))
+                    {
+                        long packed = RCBlockPositions.pack(x, y, z);
+                        cloud.put(packed, 1);
+                        changed.add(packed);
+                    }
+                }
 
         double expansionDistance = cloudExpansionDistance();
-        BlockPos.MutableBlockPos sidePos = new BlockPos.MutableBlockPos();
-        BlockPos.MutableBlockPos sideWorldCoord = new BlockPos.MutableBlockPos();
 
         if (expansionDistance > 0.000001)
         {
             // The code below will be called _often_, so let's cache the divisions
-            double[] sideFalloffs = new double[6];
-            List<EnumFacing> checkSides = new ArrayList<>();
+            List<EnumFacing> checkSidesList = new ArrayList<>();
             for (EnumFacing side : EnumFacing.values())
             {
                 double sideExpansionDistance = cloudExpansionDistance(side);
-                double sideFalloff = sideExpansionDistance > 0.000001 ? 1.0f / sideExpansionDistance / expansionDistance : 0;
-                if (sideFalloff > 0)
-                {
-                    checkSides.add(side);
-                    sideFalloffs[side.getIndex()] = sideFalloff;
-                }
+                if (sideExpansionDistance > 0.000001)
+                    checkSidesList.add(side);
             }
 
-            visitRecursively(Sets.newHashSet(cloud.keySet()), (changed, pos) ->
-            {
-                double density = cloud.get(pos);
-
-                for (EnumFacing side : checkSides)
-                {
-                    double sideFalloff = sideFalloffs[side.getIndex()];
+            EnumFacing[] checkSides = checkSidesList.toArray(new EnumFacing[0]);
+            double[] sideFalloffs = new double[checkSides.length];
+            for (int i = 0; i < checkSides.length; i++)
+                sideFalloffs[i] = 1.0f / cloudExpansionDistance(checkSides[i]) / expansionDistance;
 
-                    IvMutableBlockPos.offset(pos, sidePos, side);
+            BlockPos.MutableBlockPos sidePos = new BlockPos.MutableBlockPos();
+            BlockPos.MutableBlockPos sideWorldCoord = new BlockPos.MutableBlockPos();
 
-                    double sideDensity = density - sideFalloff * blurredValueField.getValue(sidePos.getX(), sidePos.getY(), sidePos.getZ());
-                    if (sideDensity <= 0 || cloud.get(sidePos) >= sideDensity - 0.00001)
-                        continue;
-
-                    IvMutableBlockPos.add(context.transform.applyOn(sidePos, sideWorldCoord, strucSize), lowerCoord);
-                    if (!canPenetrate(environment, worldData, sideWorldCoord, sideDensity, transformer, transformerInstanceData))
-                        continue;
-
-                    BlockPos immutableSidePos = sidePos.toImmutable();
-
-                    cloud.put(immutableSidePos, sideDensity);
-                    changed.add(immutableSidePos);
+            TLongHashSet next = new TLongHashSet();
+            while (!changed.isEmpty())
+            {
+                TLongIterator iterator = changed.iterator();
+                while (iterator.hasNext())
+                {
+                    long packed = iterator.next();
+                    double density = cloud.get(packed);
+                    int x = RCBlockPositions.x(packed), y = RCBlockPositions.y(packed), z = RCBlockPositions.z(packed);
+
+                    for (int i = 0; i < checkSides.length; i++)
+                    {
+                        EnumFacing side = checkSides[i];
+                        int sideX = x + side.getFrontOffsetX(), sideY = y + side.getFrontOffsetY(), sideZ = z + side.getFrontOffsetZ();
+
+                        double sideDensity = density - sideFalloffs[i] * blurredValueField.getValue(sideX, sideY, sideZ);
+                        if (sideDensity <= 0)
+                            continue;
+
+                        long sidePacked = RCBlockPositions.pack(sideX, sideY, sideZ);
+                        if (cloud.get(sidePacked) >= sideDensity - 0.00001) // No entry value is 0
+                            continue;
+
+                        IvMutableBlockPos.add(context.transform.applyOn(sidePos.setPos(sideX, sideY, sideZ), sideWorldCoord, strucSize), lowerCoord);
+                        if (!canPenetrate(environment, worldData, sideWorldCoord, sideDensity, transformer, transformerInstanceData))
+                            continue;
+
+                        cloud.put(sidePacked, sideDensity);
+                        next.add(sidePacked);
+                    }
                 }
-                return true;
-            });
+
+                TLongHashSet swap = changed;
+                changed = next;
+                next = swap;
+                next.clear();
+            }
         }
 
         return cloud;
@@ -171,9 +201,11 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
             int[] areaSize = new int[]{blockCollection.width, blockCollection.height, blockCollection.length};
             BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
 
+            BlockPos.MutableBlockPos sourcePos = new BlockPos.MutableBlockPos();
             BlockPos.MutableBlockPos worldCoord = new BlockPos.MutableBlockPos();
-            instanceData.cloud.forEachEntry((sourcePos, density) ->
+            instanceData.cloud.forEachEntry((packed, density) ->
             {
+                RCBlockPositions.unpack(packed, sourcePos);
                 IvMutableBlockPos.add(context.transform.applyOn(sourcePos, worldCoord, areaSize), lowerCoord);
                 transformBlock(instanceData, phase, context, sourcePos, worldCoord, worldData.blockCollection.getBlockState(sourcePos), density);
                 return true;
@@ -189,17 +221,73 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
 
     public static class InstanceData implements NBTStorable
     {
-        public TObjectDoubleMap<BlockPos> cloud = new TObjectDoubleHashMap<>();
+        public static final String KEY_LEGACY_CLOUD = "cloud";
+
+        public static final String KEY_MIN = "cloudMin";
+        public static final String KEY_SIZE = "cloudSize";
+        public static final String KEY_MASK = "cloudMask";
+        public static final String KEY_INDICES = "cloudIndices";
+        public static final String KEY_DENSITIES = "cloudDensities";
+        public static final String KEY_DENSITY_SCALE = "cloudDensityScale";
+
+        // Keyed by RCBlockPositions.pack of the source position
+        public TLongDoubleMap cloud = new TLongDoubleHashMap();
+
+        public boolean contains(BlockPos pos)
+        {
+            return cloud.containsKey(RCBlockPositions.pack(pos));
+        }
 
         public void readFromNBT(NBTBase base)
         {
             NBTTagCompound compound = base instanceof NBTTagCompound ? (NBTTagCompound) base : new NBTTagCompound();
-            NBTTagLists.compoundsFrom(compound, "cloud").forEach(cloudCompound ->
+
+            if (compound.hasKey(KEY_DENSITIES, Constants.NBT.TAG_BYTE_ARRAY))
+                readCompact(compound);
+            else // Legacy
             {
-                BlockPos pos = BlockPositions.readFromNBT("particle", cloudCompound);
-                if (pos != null)
-                    cloud.put(pos, cloudCompound.getDouble("density"));
-            });
+                NBTTagLists.compoundsFrom(compound, KEY_LEGACY_CLOUD).forEach(cloudCompound ->
+                {
+                    BlockPos pos = BlockPositions.readFromNBT("particle", cloudCompound);
+                    if (pos != null)
+                        cloud.put(RCBlockPositions.pack(pos), cloudCompound.getDouble("density"));
+                });
+            }
+        }
+
+        protected void readCompact(NBTTagCompound compound)
+        {
+            int[] min = compound.getIntArray(KEY_MIN);
+            int[] size = compound.getIntArray(KEY_SIZE);
+            byte[] densities = compound.getByteArray(KEY_DENSITIES);
+            double scale = compound.getDouble(KEY_DENSITY_SCALE);
+
+            if (min.length != 3 || size.length != 3)
+                return;
+
+            int[] indices = compound.hasKey(KEY_MASK, Constants.NBT.TAG_BYTE_ARRAY)
+                    ? indicesFromMask(compound.getByteArray(KEY_MASK), densities.length)
+                    : compound.getIntArray(KEY_INDICES);
+
+            int yz = size[1] * size[2];
+            for (int i = 0; i < indices.length && i < densities.length; i++)
+            {
+                int index = indices[i];
+                cloud.put(RCBlockPositions.pack(min[0] + index / yz, min[1] + (index / size[2]) % size[1], min[2] + index % size[2]),
+                        (densities[i] & 0xFF) * scale / 255);
+            }
+        }
+
+        protected static int[] indicesFromMask(byte[] mask, int count)
+        {
+            int[] indices = new int[count];
+            int found = 0;
+            for (int i = 0; i < mask.length * 8 && found < count; i++)
+            {
+                if ((mask[i >> 3] & (1 << (i & 7))) != 0)
+                    indices[found++] = i;
+            }
+            return found == count ? indices : Arrays.copyOf(indices, found);
         }
 
         @Override
@@ -207,16 +295,92 @@ public abstract class TransformerAbstractCloud<S extends TransformerAbstractClou
         {
             NBTTagCompound compound = new NBTTagCompound();
 
+            if (cloud.isEmpty())
+                return compound;
+
+            // Store indices relative to the cloud's bounds, in ascending order, with densities quantized to a byte
+            int[] min = {Integer.MAX_VALUE, Integer.MAX_VALUE, Integer.MAX_VALUE};
+            int[] max = {Integer.MIN_VALUE, Integer.MIN_VALUE, Integer.MIN_VALUE};
+            double[] maxDensity = {0};
+            cloud.forEachEntry((pos, density) ->
+            {
+                int x = RCBlockPositions.x(pos), y = RCBlockPositions.y(pos), z = RCBlockPositions.z(pos);
+                min[0] = Math.min(min[0], x);
+                min[1] = Math.min(min[1], y);
+                min[2] = Math.min(min[2], z);
+                max[0] = Math.max(max[0], x);
+                max[1] = Math.max(max[1], y);
+                max[2] = Math.max(max[2], z);
+                maxDensity[0] = Math.max(maxDensity[0], density);
+                return true;
+            });
+
+            int[] size = {max[0] - min[0] + 1, max[1] - min[1] + 1, max[2] - min[2] + 1};
+            long volume = (long) size[0] * size[1] * size[2];
+
+            if (volume > Integer.MAX_VALUE)
+                return writeLegacy(compound);
+
+            double scale = maxDensity[0] > 0 ? maxDensity[0] : 1;
+
+            long[] entries = new long[cloud.size()];
+            int[] count = {0};
+            cloud.forEachEntry((pos, density) ->
+            {
+                long index = ((long) (RCBlockPositions.x(pos) - min[0]) * size[1] + (RCBlockPositions.y(pos) - min[1])) * size[2] + (RCBlockPositions.z(pos) - min[2]);
+                int quantized = MathHelper.clamp((int) Math.round(density / scale * 255), 1, 255);
+                entries[count[0]++] = (index << 8) | quantized;
+                return true;
+            });
+            Arrays.sort(entries);
+
+            byte[] densities = new byte[entries.length];
+            for (int i = 0; i < entries.length; i++)
+                densities[i] = (byte) entries[i];
+
+            compound.setIntArray(KEY_MIN, min);
+            compound.setIntArray(KEY_SIZE, size);
+
+            // A bit mask is smaller once more than 1 in 32 blocks is part of the cloud
+            if (volume / 8 < (long) entries.length * 4)
+            {
+                byte[] mask = new byte[(int) ((volume + 7) / 8)];
+                for (long entry : entries)
+                {
+                    int index = (int) (entry >>> 8);
+                    mask[index >> 3] |= 1 << (index & 7);
+                }
+                compound.setByteArray(KEY_MASK, mask);
+            }
+            else
+            {
+                int[] indices = new int[entries.length];
+                for (int i = 0; i < entries.length; i++)
+                    indices[i] = (int) (entries[i] >>> 8);
+                compound.setIntArray(KEY_INDICES, indices);
+            }
+
+            compound.setByteArray(KEY_DENSITIES, densities);
+            compound.setDouble(KEY_DENSITY_SCALE, scale);
+
+            return compound;
+        }
+
+        /**
+         * Writes the cloud as one compound per block, like before it was packed.
+         */
+        public NBTTagCompound writeLegacy(NBTTagCompound compound)
+        {
             List<NBTTagCompound> cloudCompounds = new ArrayList<>();
             cloud.forEachEntry((pos, density) ->
             {
                 NBTTagCompound cloudCompound = new NBTTagCompound();
-                BlockPositions.writeToNBT("particle", pos, cloudCompound);
+                BlockPositions.writeToNBT("particle", RCBlockPositions.unpack(pos), cloudCompound);
                 cloudCompound.setDouble("density", density);
                 cloudCompounds.add(cloudCompound);
                 return true;
             });
-            NBTTagLists.writeTo(compound, "cloud", cloudCompounds);
+            NBTTagLists.writeTo(compound, KEY_LEGACY_CLOUD, cloudCompounds);
 
             return compound;
         }
@@ -48,7 +48,7 @@ public class TransformerEnsureBlocks extends Transformer<NBTNone>
     public TransformerEnsureBlocks(@Nullable String id, String sourceExpression, String destExpression)
     {
         super(id != null ? id : randomID(TransformerEnsureBlocks.class));
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), sourceExpression);
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), sourceExpression);
         this.destMatcher = ExpressionCache.of(new PositionedBlockExpression(RecurrentComplex.specialRegistry), destExpression);
     }
 
@@ -6,11 +6,9 @@
 package ivorius.reccomplex.world.gen.feature.structure.generic.transformers;
 
 import ivorius.ivtoolkit.blocks.BlockPositions;
-import ivorius.ivtoolkit.blocks.IvBlockCollection;
 import ivorius.ivtoolkit.blocks.IvTileEntityHelper;
 import ivorius.ivtoolkit.tools.IvWorldData;
 import ivorius.ivtoolkit.tools.NBTTagLists;
-import ivorius.ivtoolkit.world.chunk.gen.StructureBoundingBoxes;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.block.GeneratingTileEntity;
 import ivorius.reccomplex.gui.table.TableDelegate;
@@ -20,6 +18,7 @@ import ivorius.reccomplex.nbt.NBTStorable;
 import ivorius.reccomplex.temp.RCMover;
 import ivorius.reccomplex.temp.RCPosTransformer;
 import ivorius.reccomplex.utils.UnstableBlock;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
 import ivorius.reccomplex.world.gen.feature.structure.context.*;
 import ivorius.reccomplex.world.gen.feature.structure.generic.GenericStructure;
 import net.minecraft.block.state.IBlockState;
@@ -29,12 +28,12 @@ import net.minecraft.tileentity.TileEntity;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.world.World;
 import net.minecraft.world.WorldServer;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+import net.minecraftforge.common.util.Constants;
 
 import javax.annotation.Nonnull;
-import java.util.HashMap;
-import java.util.HashSet;
-import java.util.Map;
-import java.util.Set;
+import javax.annotation.Nullable;
+import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.stream.Collectors;
 
@@ -77,9 +76,17 @@ public class TransformerGenerationBehavior extends Transformer<TransformerGenera
             return;
         }
 
+        // When complementing, only children that reach into the chunk need to be loaded
+        Set<BlockPos> visited = !context.generateMaturity.isFirstTime() && context.generationBB != null
+                ? instanceData.childrenIntersecting(context.generationBB)
+                : null;
+
         for (NBTTagCompound tileEntityCompound : worldData.tileEntities) {
+            if (visited != null && !visited.contains(RCMover.getTileEntityPos(tileEntityCompound)))
+                continue;
+
             asGeneratingTileEntity(context, world, areaSize, origin, tileEntityCompound, (blockPos, tileEntity) -> {
-                NBTStorable teData = instanceData.tileEntities.get(blockPos);
+                NBTStorable teData = instanceData.tileEntityData(blockPos, tileEntity);
                 if (teData != null) // Otherwise it was added after prepare, or doesn't want to generate
                     //noinspection unchecked
                     tileEntity.generate(context, transformer, teData);
@@ -122,9 +129,12 @@ public class TransformerGenerationBehavior extends Transformer<TransformerGenera
                 if (tileEntityInstanceData != null) // Otherwise, don't generate
                 {
                     instanceData.tileEntities.put(src, tileEntityInstanceData);
+                    //noinspection unchecked
+                    instanceData.setChildBounds(src, tileEntity.generationBounds(context, tileEntityInstanceData));
 
                     //noinspection unchecked
-                    if (tileEntity.shouldPlaceInWorld(context, tileEntityInstanceData)) {
+                    if (tileEntity.shouldPlaceInWorld(context, tileEntityInstanceData))
+                    {
                         instanceData.allowedGTECoords.add(src);
                     }
                 }
@@ -143,10 +153,22 @@ public class TransformerGenerationBehavior extends Transformer<TransformerGenera
     public static class InstanceData implements NBTStorable
     {
         public static final String KEY_TILE_ENTITIES = "tileEntities";
+        public static final String KEY_CHILD_BOUNDS = "childBounds";
+        public static final String KEY_CHILDREN_BOUNDS = "childrenBounds";
 
         public final Map<BlockPos, NBTStorable> tileEntities = new HashMap<>();
         public final Set<BlockPos> allowedGTECoords = new HashSet<>();
 
+        // What each generating tile entity generates, in world coordinates; null if unknown
+        protected final Map<BlockPos, StructureBoundingBox> childBounds = new HashMap<>();
+        // False for data saved before the bounds were, so all tile entities need to be visited
+        protected boolean childBoundsKnown = true;
+
+        // Tile entity data is loaded once a tile entity is visited
+        @Nullable
+        protected StructureLoadContext loadContext;
+        protected NBTTagCompound unloaded = new NBTTagCompound();
+
         protected static NBTBase getTileEntityTag(NBTTagCompound tileEntityCompound, BlockPos coord)
         {
             return tileEntityCompound.getTag(getTileEntityKey(coord));
@@ -157,23 +179,86 @@ public class TransformerGenerationBehavior extends Transformer<TransformerGenera
             return String.format("%d,%d,%d", coord.getX(), coord.getY(), coord.getZ());
         }
 
-        public void readFromNBT(StructureLoadContext context, NBTBase nbt, IvWorldData worldData)
+        public void setChildBounds(BlockPos src, @Nullable StructureBoundingBox bounds)
         {
-            IvBlockCollection blockCollection = worldData.blockCollection;
-            NBTTagCompound compound = nbt instanceof NBTTagCompound ? (NBTTagCompound) nbt : new NBTTagCompound();
+            childBounds.put(src, bounds);
+        }
 
-            int[] areaSize = new int[]{blockCollection.width, blockCollection.height, blockCollection.length};
-            BlockPos origin = StructureBoundingBoxes.min(context.boundingBox);
+        /**
+         * @return The tile entities that may generate something in the area, or null if all of them need to be visited.
+         */
+        @Nullable
+        public Set<BlockPos> childrenIntersecting(StructureBoundingBox area)
+        {
+            if (!childBoundsKnown)
+                return null;
 
-            NBTTagCompound tileEntitiesCompound = compound.getCompoundTag(KEY_TILE_ENTITIES);
-            worldData.tileEntities.forEach(tileEntityCompound ->
+            // Instance data is loaded anew for every complemented chunk, so anything built up front wouldn't pay off
+            Set<BlockPos> children = new HashSet<>();
+            childBounds.forEach((src, bounds) ->
             {
-                asGeneratingTileEntity(context, IvTileEntityHelper.getAnyWorld(), areaSize, origin, tileEntityCompound, (src, tileEntity) ->
-                {
-                    tileEntities.put(src, (NBTStorable) (tileEntity.loadInstanceData(context, getTileEntityTag(tileEntitiesCompound, src))));
-                });
+                if (bounds == null || bounds.intersectsWith(area))
+                    children.add(src);
             });
 
+            RCWorldgenMonitor.onComplementChildren(children.size(), childBounds.size() - children.size());
+
+            return children;
+        }
+
+        @Nullable
+        public NBTStorable tileEntityData(BlockPos src, GeneratingTileEntity<?> tileEntity)
+        {
+            if (loadContext != null && !tileEntities.containsKey(src))
+                tileEntities.put(src, (NBTStorable) tileEntity.loadInstanceData(loadContext, getTileEntityTag(unloaded, src)));
+
+            return tileEntities.get(src);
+        }
+
+        /**
+         * @return The box enclosing the structure's and everything its children generate, or null if that isn't known.
+         */
+        @Nullable
+        public StructureBoundingBox generationBounds(StructureBoundingBox boundingBox)
+        {
+            if (!childBoundsKnown || childBounds.containsValue(null))
+                return null;
+
+            StructureBoundingBox generationBounds = new StructureBoundingBox(boundingBox);
+            childBounds.values().forEach(generationBounds::expandTo);
+            return generationBounds;
+        }
+
+        /**
+         * @return See {@link #generationBounds(StructureBoundingBox)}, read from saved instance data.
+         */
+        @Nullable
+        public static StructureBoundingBox generationBounds(StructureBoundingBox boundingBox, NBTBase nbt)
+        {
+            if (!(nbt instanceof NBTTagCompound) || !((NBTTagCompound) nbt).hasKey(KEY_CHILDREN_BOUNDS, Constants.NBT.TAG_INT_ARRAY))
+                return null;
+
+            int[] childrenBounds = ((NBTTagCompound) nbt).getIntArray(KEY_CHILDREN_BOUNDS);
+
+            StructureBoundingBox generationBounds = new StructureBoundingBox(boundingBox);
+            if (childrenBounds.length == 6) // Otherwise there are no children
+                generationBounds.expandTo(new StructureBoundingBox(childrenBounds));
+            return generationBounds;
+        }
+
+        public void readFromNBT(StructureLoadContext context, NBTBase nbt)
+        {
+            NBTTagCompound compound = nbt instanceof NBTTagCompound ? (NBTTagCompound) nbt : new NBTTagCompound();
+
+            loadContext = context;
+            unloaded = compound.getCompoundTag(KEY_TILE_ENTITIES);
+
+            childBounds.clear();
+            childBoundsKnown = compound.hasKey(KEY_CHILD_BOUNDS, Constants.NBT.TAG_LIST);
+            for (int[] bounds : NBTTagLists.intArraysFrom(compound, KEY_CHILD_BOUNDS))
+                setChildBounds(new BlockPos(bounds[0], bounds[1], bounds[2]),
+                        bounds.length == 9 ? new StructureBoundingBox(Arrays.copyOfRange(bounds, 3, 9)) : null);
+
             allowedGTECoords.clear();
             allowedGTECoords.addAll(NBTTagLists.intArraysFrom(compound, "allowedCoords").stream()
                     .map(BlockPositions::fromIntArray)
@@ -185,11 +270,30 @@ public class TransformerGenerationBehavior extends Transformer<TransformerGenera
         {
             NBTTagCompound compound = new NBTTagCompound();
 
-            NBTTagCompound tileEntityCompound = new NBTTagCompound();
+            NBTTagCompound tileEntityCompound = unloaded.copy();
             for (Map.Entry<BlockPos, NBTStorable> entry : tileEntities.entrySet())
                 tileEntityCompound.setTag(getTileEntityKey(entry.getKey()), entry.getValue().writeToNBT());
             compound.setTag(KEY_TILE_ENTITIES, tileEntityCompound);
 
+            if (childBoundsKnown)
+            {
+                NBTTagLists.writeIntArraysTo(compound, KEY_CHILD_BOUNDS, childBounds.entrySet().stream()
+                        .map(entry -> entry.getValue() != null
+                                ? new int[]{entry.getKey().getX(), entry.getKey().getY(), entry.getKey().getZ(),
+                                entry.getValue().minX, entry.getValue().minY, entry.getValue().minZ,
+                                entry.getValue().maxX, entry.getValue().maxY, entry.getValue().maxZ}
+                                : BlockPositions.toIntArray(entry.getKey()))
+                        .collect(Collectors.toList()));
+
+                if (!childBounds.containsValue(null))
+                {
+                    StructureBoundingBox childrenBounds = StructureBoundingBox.getNewBoundingBox();
+                    childBounds.values().forEach(childrenBounds::expandTo);
+                    compound.setIntArray(KEY_CHILDREN_BOUNDS, childBounds.isEmpty() ? new int[0]
+                            : childrenBounds.toNBTTagIntArray().getIntArray());
+                }
+            }
+
             NBTTagLists.writeIntArraysTo(compound, "allowedGTECoords", allowedGTECoords.stream()
                     .map(BlockPositions::toIntArray)
                     .collect(Collectors.toList()));
@@ -172,9 +172,17 @@ public class TransformerMulti extends Transformer<TransformerMulti.InstanceData>
     @Override
     public boolean skipGeneration(InstanceData instanceData, StructureLiveContext context, BlockPos pos, IBlockState state, IvWorldData worldData, BlockPos sourcePos)
     {
-        //noinspection unchecked
-        return !instanceData.deactivated && instanceData.pairedTransformers.stream()
-                .anyMatch(input -> input.getLeft().skipGeneration(input.getRight(), context, pos, state, worldData, sourcePos));
+        if (instanceData.deactivated)
+            return false;
+
+        for (Pair<Transformer, NBTStorable> pair : instanceData.pairedTransformers)
+        {
+            //noinspection unchecked
+            if (pair.getLeft().skipGeneration(pair.getRight(), context, pos, state, worldData, sourcePos))
+                return true;
+        }
+
+        return false;
     }
 
     @Override
@@ -59,7 +59,7 @@ public class TransformerNatural extends TransformerAbstractCloud<TransformerNatu
     public TransformerNatural(@Nullable String id, String sourceMatcherExpression, double naturalExpansionDistance, double naturalExpansionRandomization)
     {
         super(id != null ? id : randomID(TransformerNatural.class));
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), sourceMatcherExpression);
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), sourceMatcherExpression);
         this.destMatcher = ExpressionCache.of(new PositionedBlockExpression(RecurrentComplex.specialRegistry), "");
         this.naturalExpansionDistance = naturalExpansionDistance;
         this.naturalExpansionRandomization = naturalExpansionRandomization;
@@ -101,7 +101,7 @@ public class TransformerNatural extends TransformerAbstractCloud<TransformerNatu
         IBlockState mainBlock = Blocks.STONE.getDefaultState();
 
         boolean useStoneBlock = pos.getY() < world.getSeaLevel() - 3;
-        IBlockState setBlock = useStoneBlock ? mainBlock : (instanceData.cloud.containsKey(sourcePos.up()) ? fillerBlock : topBlock);
+        IBlockState setBlock = useStoneBlock ? mainBlock : (instanceData.contains(sourcePos.up()) ? fillerBlock : topBlock);
 
         if (world.provider.getDimension() == -1)
             setBlock = Blocks.NETHERRACK.getDefaultState();
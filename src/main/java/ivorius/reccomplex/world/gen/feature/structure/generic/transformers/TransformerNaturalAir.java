@@ -27,11 +27,11 @@ import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareCo
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
 import ivorius.reccomplex.utils.expression.BlockExpression;
 import ivorius.reccomplex.utils.RCBlockLogic;
+import ivorius.reccomplex.utils.RCBlockPositions;
 import net.minecraft.block.state.IBlockState;
 import net.minecraft.init.Blocks;
 import net.minecraft.nbt.NBTBase;
 import net.minecraft.util.math.BlockPos;
-import net.minecraft.util.math.Vec3i;
 import net.minecraft.world.WorldServer;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -40,7 +40,6 @@ import javax.annotation.Nullable;
 import java.lang.reflect.Type;
 import java.util.HashSet;
 import java.util.Set;
-import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 /**
@@ -66,7 +65,7 @@ public class TransformerNaturalAir extends TransformerAbstractCloud<TransformerN
     public TransformerNaturalAir(@Nullable String id, String sourceMatcherExpression, double naturalExpansionDistance, double naturalExpansionRandomization)
     {
         super(id != null ? id : randomID(TransformerNaturalAir.class));
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), sourceMatcherExpression);
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), sourceMatcherExpression);
         this.destMatcher = ExpressionCache.of(new PositionedBlockExpression(RecurrentComplex.specialRegistry), "");
         this.naturalExpansionDistance = naturalExpansionDistance;
         this.naturalExpansionRandomization = naturalExpansionRandomization;
@@ -108,11 +107,20 @@ public class TransformerNaturalAir extends TransformerAbstractCloud<TransformerN
             BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
 
             // Remove dying foliage
-            HashSet<BlockPos> check = instanceData.cloud.keySet().stream()
-                    .flatMap(pos -> new BlockArea(pos.subtract(new Vec3i(2, 2, 2)), pos.add(new Vec3i(2, 2, 2))).stream())
-                    .filter(pos -> !instanceData.cloud.containsKey(pos))
-                    .map(pos -> context.transform.apply(pos, areaSize).add(lowerCoord))
-                    .collect(Collectors.toCollection(HashSet::new));
+            HashSet<BlockPos> check = new HashSet<>();
+            BlockPos.MutableBlockPos sourcePos = new BlockPos.MutableBlockPos();
+            instanceData.cloud.forEachKey(packed ->
+            {
+                int x = RCBlockPositions.x(packed), y = RCBlockPositions.y(packed), z = RCBlockPositions.z(packed);
+                for (int nX = x - 2; nX <= x + 2; nX++)
+                    for (int nY = y - 2; nY <= y + 2; nY++)
+                        for (int nZ = z - 2; nZ <= z + 2; nZ++)
+                        {
+                            if (!instanceData.cloud.containsKey(RCBlockPositions.pack(nX, nY, nZ)))
+                                check.add(context.transform.apply(sourcePos.setPos(nX, nY, nZ), areaSize).add(lowerCoord));
+                        }
+                return true;
+            });
 
             Set<BlockPos> remove = new HashSet<>();
             HashSet<BlockPos> start = new HashSet<>();
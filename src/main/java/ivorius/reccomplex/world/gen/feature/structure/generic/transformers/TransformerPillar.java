@@ -53,7 +53,7 @@ public class TransformerPillar extends TransformerSingleBlock<NBTNone>
     public TransformerPillar(@Nullable String id, String sourceExpression, IBlockState destState)
     {
         super(id != null ? id : randomID(TransformerPillar.class));
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), sourceExpression);
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), sourceExpression);
         this.destState = destState;
     }
 
@@ -54,7 +54,7 @@ public class TransformerProperty extends TransformerSingleBlock<NBTNone>
     public TransformerProperty(@Nullable String id, String sourceExpression, String propertyName, String propertyValue)
     {
         super(id != null ? id : randomID(TransformerProperty.class));
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), sourceExpression);
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), sourceExpression);
         this.propertyName = propertyName;
         this.propertyValue = propertyValue;
     }
@@ -67,7 +67,7 @@ public class TransformerReplace extends TransformerSingleBlock<TransformerReplac
     public TransformerReplace(@Nullable String id, String sourceExpression)
     {
         super(id != null ? id : randomID(TransformerReplace.class));
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), sourceExpression);
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), sourceExpression);
     }
 
     public static void setBlock(StructureSpawnContext context, int[] areaSize, BlockPos pos, WeightedBlockState entry, Supplier<NBTTagCompound> tileEntity)
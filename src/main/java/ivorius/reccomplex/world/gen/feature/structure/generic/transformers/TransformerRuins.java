@@ -5,8 +5,6 @@
 
 package ivorius.reccomplex.world.gen.feature.structure.generic.transformers;
 
-import com.google.common.collect.ImmutableList;
-import com.google.common.collect.Sets;
 import com.google.gson.*;
 import gnu.trove.map.TObjectDoubleMap;
 import gnu.trove.map.hash.TObjectDoubleHashMap;
@@ -24,6 +22,7 @@ import ivorius.reccomplex.gui.table.TableNavigator;
 import ivorius.reccomplex.gui.table.datasource.TableDataSource;
 import ivorius.reccomplex.json.JsonUtils;
 import ivorius.reccomplex.nbt.NBTStorable;
+import ivorius.reccomplex.world.gen.feature.RCWorldgenMonitor;
 import ivorius.reccomplex.world.gen.feature.structure.Structures;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLiveContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLoadContext;
@@ -59,23 +58,10 @@ import java.util.stream.Collectors;
  */
 public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
 {
-    private static final List<BlockPos> neighbors;
     public static final TObjectDoubleMap<Material> stability = new TObjectDoubleHashMap<>(gnu.trove.impl.Constants.DEFAULT_CAPACITY, gnu.trove.impl.Constants.DEFAULT_LOAD_FACTOR, 1);
 
     static
     {
-        ImmutableList.Builder<BlockPos> builder = ImmutableList.builder();
-
-        for (int x = -1; x <= 1; x++)
-            for (int y = -1; y <= 1; y++)
-                for (int z = -1; z <= 1; z++)
-                {
-                    if (x != 0 || y != 0 || z != 0)
-                        builder.add(new BlockPos(x, y, z));
-                }
-
-        neighbors = builder.build();
-
         stability.put(Material.GLASS, 0.1);
         stability.put(Material.LAVA, 2);
         stability.put(Material.CIRCUITS, 0.2);
@@ -407,68 +393,101 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
     {
         if (gravity)
         {
-            IvBlockCollection blockCollection = worldData.blockCollection;
-            int[] areaSize = new int[]{blockCollection.width, blockCollection.height, blockCollection.length};
-            BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
-
-            BlockPos.MutableBlockPos dest = new BlockPos.MutableBlockPos(lowerCoord);
-
-            for (BlockPos sourcePos : BlockAreas.mutablePositions(blockCollection.area()))
+            RCWorldgenMonitor.start(RCWorldgenMonitor.Phase.RUINS);
+            try
             {
-                IBlockState state = blockCollection.getBlockState(sourcePos);
-                IvMutableBlockPos.add(context.transform.applyOn(sourcePos, dest, areaSize), lowerCoord);
-
-                if (transformer.transformer.skipGeneration(transformer.instanceData, context, dest, state, worldData, sourcePos))
-                    continue;
-
-                if (!canFall(context, worldData, transformer, dest, sourcePos, state))
-                    continue;
-
-                double stability = getStability(worldData, sourcePos);
-                double decay = getDecay(instanceData, sourcePos, state);
-                double stabilitySQ = stability * stability;
-                if (!(stability < decay) && stabilitySQ * stabilitySQ < decay) // Almost decay
-                    instanceData.fallingBlocks.add(sourcePos.toImmutable());
+                findFallingBlocks(instanceData, context, worldData, transformer);
+            }
+            finally
+            {
+                RCWorldgenMonitor.stop();
             }
+        }
+    }
 
-            Set<BlockPos> complete = new HashSet<>(product(areaSize));
+    protected void findFallingBlocks(InstanceData instanceData, StructurePrepareContext context, IvWorldData worldData, RunTransformer transformer)
+    {
+        IvBlockCollection blockCollection = worldData.blockCollection;
+        int width = blockCollection.width, height = blockCollection.height, length = blockCollection.length;
+        int[] areaSize = new int[]{width, height, length};
+        BlockPos lowerCoord = StructureBoundingBoxes.min(context.boundingBox);
 
-            HashSet<BlockPos> connected = new HashSet<>();
-            boolean[] hasFloor = new boolean[1];
+        instanceData.fillDecayCache();
 
-            for (BlockPos startPos : BlockAreas.positions(blockCollection.area()))
-            {
-                if (complete.contains(startPos))
-                    continue;
+        // Indexed as ((x * height) + y) * length + z
+        BitSet solid = new BitSet(product(areaSize));
+        BitSet floor = new BitSet();
+        BitSet visited = new BitSet(product(areaSize));
 
-                hasFloor[0] = false;
-                connected.clear();
+        BlockPos.MutableBlockPos dest = new BlockPos.MutableBlockPos(lowerCoord);
+        BlockPos.MutableBlockPos sourcePos = new BlockPos.MutableBlockPos();
 
-                // Try to fall
-                TransformerAbstractCloud.visitRecursively(Sets.newHashSet(startPos), (changed, sourcePos) ->
+        int index = 0;
+        for (int x = 0; x < width; x++)
+            for (int y = 0; y < height; y++)
+                for (int z = 0; z < length; z++, index++)
                 {
-                    if (!complete.add(sourcePos) || instanceData.fallingBlocks.contains(sourcePos))
-                        return true;
-
+                    IBlockState state = blockCollection.getBlockState(sourcePos.setPos(x, y, z));
                     IvMutableBlockPos.add(context.transform.applyOn(sourcePos, dest, areaSize), lowerCoord);
 
-                    IBlockState state = blockCollection.getBlockState(sourcePos);
+                    if (!canFall(context, worldData, transformer, dest, sourcePos, state))
+                        continue;
 
-                    if (canFall(context, worldData, transformer, dest, sourcePos, state))
-                    {
-                        if (state.getBlock() == RCBlocks.genericSolid
-                                && state.getValue(BlockGenericSolid.TYPE) == 0)
-                            hasFloor[0] = true; // TODO Make configurable?
+                    solid.set(index);
+                    if (state.getBlock() == RCBlocks.genericSolid
+                            && state.getValue(BlockGenericSolid.TYPE) == 0)
+                        floor.set(index); // TODO Make configurable?
 
-                        connected.add(sourcePos);
-                        neighbors.stream().map(sourcePos::add).forEach(changed::add);
+                    double stability = getStability(worldData, sourcePos);
+                    double decay = getDecay(instanceData, sourcePos, state);
+                    double stabilitySQ = stability * stability;
+                    if (!(stability < decay) && stabilitySQ * stabilitySQ < decay) // Almost decay
+                    {
+                        instanceData.fallingBlocks.add(sourcePos.toImmutable());
+                        visited.set(index);
                     }
+                }
+
+        // Find groups of connected blocks, and let them fall if they're small and have no floor
+        int[] component = new int[Math.max(1, solid.cardinality())];
+
+        for (int start = solid.nextSetBit(0); start >= 0; start = solid.nextSetBit(start + 1))
+        {
+            if (visited.get(start))
+                continue;
+
+            visited.set(start);
+            component[0] = start;
+            int size = 1;
+            boolean hasFloor = false;
 
-                    return true;
-                });
+            for (int head = 0; head < size; head++)
+            {
+                int current = component[head];
+                hasFloor |= floor.get(current);
+
+                int x = current / (height * length), y = (current / length) % height, z = current % length;
+
+                for (int nx = Math.max(0, x - 1); nx <= Math.min(width - 1, x + 1); nx++)
+                    for (int ny = Math.max(0, y - 1); ny <= Math.min(height - 1, y + 1); ny++)
+                        for (int nz = Math.max(0, z - 1); nz <= Math.min(length - 1, z + 1); nz++)
+                        {
+                            int neighbor = (nx * height + ny) * length + nz;
+                            if (solid.get(neighbor) && !visited.get(neighbor))
+                            {
+                                visited.set(neighbor);
+                                component[size++] = neighbor;
+                            }
+                        }
+            }
 
-                if (connected.size() > 0 && connected.size() < 200 && !hasFloor[0]) // Now we fall
-                    instanceData.fallingBlocks.addAll(connected);
+            if (size < 200 && !hasFloor) // Now we fall
+            {
+                for (int i = 0; i < size; i++)
+                {
+                    int fallen = component[i];
+                    instanceData.fallingBlocks.add(new BlockPos(fallen / (height * length), (fallen / length) % height, fallen % length));
+                }
             }
         }
     }
@@ -499,7 +518,7 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
         public BlurredValueField volumeField;
         public final Set<BlockPos> fallingBlocks = new HashSet<>();
 
-        public Double[] decayCache;
+        public double[] decayCache;
         public int[] decayCacheSize;
 
         public InstanceData()
@@ -533,14 +552,14 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
             return compound;
         }
 
-        private Integer getIndex(BlockPos pos)
+        private int getIndex(BlockPos pos)
         {
             if (decayCacheSize == null)
-                return null;
+                return -1;
 
             if (pos.getX() < 0 || pos.getY() < 0 || pos.getZ() < 0
                     || pos.getX() >= decayCacheSize[0] || pos.getY() >= decayCacheSize[1] || pos.getZ() >= decayCacheSize[2])
-                return null;
+                return -1;
 
             return ((pos.getX() * decayCacheSize[1])
                     + pos.getY()) * decayCacheSize[2]
@@ -552,11 +571,11 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
             if (!hasDecay())
                 return 0;
 
-            Integer index = getIndex(pos);
-            if (index != null)
+            int index = getIndex(pos);
+            if (index >= 0)
             {
-                Double decay = decayCache[index];
-                return decay != null ? decay : (decayCache[index] = calculateDecay(pos));
+                double decay = decayCache[index];
+                return !Double.isNaN(decay) ? decay : (decayCache[index] = calculateDecay(pos));
             }
             else
                 return calculateDecay(pos);
@@ -567,16 +586,56 @@ public class TransformerRuins extends Transformer<TransformerRuins.InstanceData>
             if (volumeField != null)
             {
                 decayCacheSize = volumeField.getSize();
-                decayCache = new Double[product(decayCacheSize)];
+                decayCache = new double[product(decayCacheSize)];
+                Arrays.fill(decayCache, Double.NaN); // Not calculated yet
             }
             else
             {
                 decayCacheSize = null;
                 decayCache = null;
             }
+        }
+
+        /**
+         * Calculates the whole decay cache at once. Same as {@link #calculateDecay(BlockPos)}, but the surface field
+         * is only evaluated once per surface position rather than for every block.
+         */
+        public void fillDecayCache()
+        {
+            if (decayCache == null)
+                return;
+
+            int[] size = decayCacheSize;
+            double base = this.baseDecay != null ? this.baseDecay : 0;
+
+            // Positions are clamped to the surface size, so beyond that values repeat
+            int[] surfaceSize = this.surfaceField != null ? this.surfaceField.getSize() : null;
+            int[] clamp = surfaceSize != null
+                    ? new int[]{Math.min(size[0], surfaceSize[0] + 1), Math.min(size[1], surfaceSize[1] + 1), Math.min(size[2], surfaceSize[2] + 1)}
+                    : null;
+            double[] surface = null;
+            if (clamp != null)
+            {
+                surface = new double[product(clamp)];
+                for (int x = 0; x < clamp[0]; x++)
+                    for (int y = 0; y < clamp[1]; y++)
+                        for (int z = 0; z < clamp[2]; z++)
+                            surface[(x * clamp[1] + y) * clamp[2] + z] = this.surfaceField.getValue(x, y, z);
+            }
 
-//            for (BlockPos pos : new BlockArea(BlockPos.ORIGIN, new BlockPos(decayCacheSize[0] - 1, decayCacheSize[1] - 1, decayCacheSize[2] - 1)))
-//                decayCache[getIndex(pos)] = calculateDecay(pos);
+            int index = 0;
+            for (int x = 0; x < size[0]; x++)
+                for (int y = 0; y < size[1]; y++)
+                    for (int z = 0; z < size[2]; z++, index++)
+                    {
+                        if (!Double.isNaN(decayCache[index]))
+                            continue;
+
+                        double surfaceDecay = surface != null
+                                ? surface[(Math.min(x, clamp[0] - 1) * clamp[1] + Math.min(y, clamp[1] - 1)) * clamp[2] + Math.min(z, clamp[2] - 1)]
+                                : 0;
+                        decayCache[index] = base + surfaceDecay + this.volumeField.getValue(x, y, z);
+                    }
         }
 
         protected boolean hasDecay()
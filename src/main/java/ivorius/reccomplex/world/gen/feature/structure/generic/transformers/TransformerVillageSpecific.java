@@ -53,7 +53,7 @@ public class TransformerVillageSpecific extends TransformerSingleBlock<NBTNone>
     public TransformerVillageSpecific(@Nullable String id, String sourceExpression)
     {
         super(id != null ? id : randomID(TransformerVillageSpecific.class));
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), sourceExpression);
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), sourceExpression);
     }
 
     @Override
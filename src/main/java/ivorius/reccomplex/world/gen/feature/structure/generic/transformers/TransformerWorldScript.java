@@ -54,7 +54,7 @@ public class TransformerWorldScript extends TransformerSingleBlock<TransformerWo
     {
         super(id != null ? id : randomID(TransformerWorldScript.class));
         this.script = script;
-        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry), sourceExpression);
+        this.sourceMatcher = ExpressionCache.of(new BlockExpression(RecurrentComplex.specialRegistry).compiling(), sourceExpression);
     }
 
     @Override
@@ -10,6 +10,7 @@ import com.google.common.collect.HashBiMap;
 import ivorius.ivtoolkit.tools.MCRegistry;
 import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.utils.FMLRemapper;
+import ivorius.reccomplex.utils.expression.BlockExpression;
 import net.minecraft.block.Block;
 import net.minecraft.init.Items;
 import net.minecraft.item.Item;
@@ -55,6 +56,7 @@ public class MCRegistrySpecial implements MCRegistry
     public void register(ResourceLocation id, Block block)
     {
         blockMap.put(id, block);
+        BlockExpression.invalidateCompiledStates();
     }
 
     public void register(ResourceLocation id, Class<? extends TileEntity> tileEntity)
@@ -16,9 +16,12 @@ import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareCo
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
 import ivorius.reccomplex.nbt.NBTStorable;
 import net.minecraft.nbt.NBTBase;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
+import javax.annotation.Nullable;
+
 /**
  * Created by lukas on 13.09.15.
  */
@@ -30,6 +33,15 @@ public interface WorldScript<S extends NBTStorable> extends NBTCompoundObject
 
     void generate(StructureSpawnContext context, RunTransformer transformer, S instanceData, BlockPos pos);
 
+    /**
+     * @return The box enclosing everything generate may touch, in world coordinates, or null if unknown.
+     */
+    @Nullable
+    default StructureBoundingBox generationBounds(StructurePrepareContext context, S instanceData, BlockPos pos)
+    {
+        return null;
+    }
+
     String getDisplayString();
 
     @SideOnly(Side.CLIENT)
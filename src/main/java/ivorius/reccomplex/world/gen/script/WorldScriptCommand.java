@@ -29,6 +29,7 @@ import net.minecraft.server.MinecraftServer;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.Vec3d;
 import net.minecraft.world.World;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
@@ -166,6 +167,12 @@ public class WorldScriptCommand implements WorldScript<NBTNone>
         }
     }
 
+    @Override
+    public StructureBoundingBox generationBounds(StructurePrepareContext context, NBTNone instanceData, BlockPos pos)
+    {
+        return new StructureBoundingBox(pos, pos);
+    }
+
     @Override
     public String getDisplayString()
     {
@@ -24,12 +24,10 @@ import ivorius.reccomplex.nbt.NBTStorable;
 import ivorius.reccomplex.utils.IntAreas;
 import ivorius.reccomplex.world.gen.feature.StructureGenerator;
 import ivorius.reccomplex.world.gen.feature.structure.Environment;
-import ivorius.reccomplex.world.gen.feature.structure.StructureRegistry;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureLoadContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructurePrepareContext;
 import ivorius.reccomplex.world.gen.feature.structure.context.StructureSpawnContext;
 import ivorius.reccomplex.world.gen.feature.structure.generic.Selection;
-import ivorius.reccomplex.world.gen.feature.structure.generic.generation.MazeGeneration;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.*;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.BlockedConnectorStrategy;
 import ivorius.reccomplex.world.gen.feature.structure.generic.maze.rules.LimitAABBStrategy;
@@ -41,12 +39,13 @@ import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 
+import javax.annotation.Nullable;
 import java.util.*;
-import java.util.concurrent.*;
 import java.util.stream.Collectors;
 
 /**
@@ -105,6 +104,23 @@ public class WorldScriptMazeGenerator implements WorldScript<WorldScriptMazeGene
             WorldGenMaze.generate(context, placedComponent, pos);
     }
 
+    @Nullable
+    @Override
+    public StructureBoundingBox generationBounds(StructurePrepareContext context, InstanceData instanceData, BlockPos pos)
+    {
+        StructureBoundingBox bounds = new StructureBoundingBox(pos, pos);
+
+        for (PlacedStructure placedComponent : instanceData.placedStructures)
+        {
+            StructureBoundingBox componentBounds = WorldGenMaze.generationBounds(placedComponent, pos, context.transform);
+            if (componentBounds == null)
+                return null;
+            bounds.expandTo(componentBounds);
+        }
+
+        return bounds;
+    }
+
     @Override
     public String getDisplayString()
     {
@@ -230,11 +246,18 @@ public class WorldScriptMazeGenerator implements WorldScript<WorldScriptMazeGene
         if (mazeComponent.rooms.isEmpty())
             return null;
 
-        ConnectorFactory factory = new ConnectorFactory();
+        // Solve with a seed of our own, so the same inputs can reuse the solution
+        long seed = random.nextLong();
+        MazeSolver.Key key = new MazeSolver.Key(this, mazeID, seed, transform, environment);
+        List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>> cached = MazeSolver.cached(key);
+        if (cached != null)
+            return cached;
+
+        MazeCatalog catalog = MazeCatalog.get(mazeID);
+        ConnectorFactory factory = catalog.factory;
 
-        Connector wallConnector = factory.get(ConnectorStrategy.DEFAULT_WALL);
         Connector defaultConnector = mazeComponent.defaultConnector.toConnector(factory);
-        Set<Connector> blockedConnections = Collections.singleton(wallConnector); // TODO Make configurable
+        Set<Connector> blockedConnections = catalog.blockedConnections;
 
         int[] boundsHigher = mazeComponent.rooms.boundsHigher();
         int[] boundsLower = mazeComponent.rooms.boundsLower();
@@ -245,11 +268,7 @@ public class WorldScriptMazeGenerator implements WorldScript<WorldScriptMazeGene
         final int[] outsideBoundsHigher = IvVecMathHelper.add(boundsHigher, oneArray);
         final int[] outsideBoundsLower = IvVecMathHelper.sub(boundsLower, oneArray);
 
-        List<MazeComponentStructure<Connector>> transformedComponents = MazeGeneration.structures(StructureRegistry.INSTANCE, mazeID)
-                .flatMap(pair -> pair.getLeft().declaredVariables().omega(environment, true)
-                        .flatMap(domain -> WorldGenMaze.transforms(pair.getLeft(), pair.getRight(), transform, factory, environment.copy(domain), blockedConnections))
-                )
-                .collect(Collectors.toList());
+        MazeCatalog.Selection transformedComponents = catalog.select(transform, environment);
 
         MorphingMazeComponent<Connector> maze = new SetMazeComponent<>();
 
@@ -271,31 +290,9 @@ public class WorldScriptMazeGenerator implements WorldScript<WorldScriptMazeGene
 
         int totalRooms = mazeComponent.rooms.compile(true).size();
 
-        final ExecutorService executor = Executors.newSingleThreadExecutor();
-        Future<List<PlacedMazeComponent<MazeComponentStructure<Connector>, Connector>>> future = executor.submit(() -> MazeComponentConnector.connect(maze,
-                transformedComponents, connectorStrategy,
-                new MazePredicateMany<>(predicates),
-                random,
+        return MazeSolver.solve(key, maze, transformedComponents.components, connectorStrategy, predicates, new Random(seed),
                 RCConfig.mazePlacementReversesPerRoom >= 0 ? MathHelper.floor(totalRooms * RCConfig.mazePlacementReversesPerRoom + 0.5f) : MazeComponentConnector.INFINITE_REVERSES
-        ));
-        executor.shutdown();
-
-        try
-        {
-            return future.get(RCConfig.mazeTimeout, TimeUnit.MILLISECONDS);
-        }
-        catch (TimeoutException e)
-        {
-            future.cancel(true);
-            throw new GenerationException("Maze generation timed out: " + mazeID);
-        }
-        catch (ExecutionException | InterruptedException e)
-        {
-            Throwable t = e.getCause();
-
-            if (t instanceof Error) throw (Error) t;
-            else throw new GenerationException("Error generating maze; " + mazeID, t);
-        }
+        );
     }
 
     public static class InstanceData implements NBTStorable
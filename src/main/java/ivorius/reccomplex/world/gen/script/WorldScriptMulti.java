@@ -21,10 +21,12 @@ import net.minecraft.nbt.NBTBase;
 import net.minecraft.nbt.NBTTagCompound;
 import net.minecraft.nbt.NBTTagList;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import org.apache.commons.lang3.tuple.Pair;
 
+import javax.annotation.Nullable;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -70,6 +72,27 @@ public class WorldScriptMulti implements WorldScript<WorldScriptMulti.InstanceDa
         }
     }
 
+    @Nullable
+    @Override
+    public StructureBoundingBox generationBounds(StructurePrepareContext context, InstanceData instanceData, BlockPos pos)
+    {
+        StructureBoundingBox bounds = new StructureBoundingBox(pos, pos);
+
+        if (!instanceData.deactivated)
+        {
+            for (Pair<WorldScript, NBTStorable> paired : instanceData.pairedScripts)
+            {
+                //noinspection unchecked
+                StructureBoundingBox scriptBounds = paired.getLeft().generationBounds(context, paired.getRight(), pos);
+                if (scriptBounds == null)
+                    return null;
+                bounds.expandTo(scriptBounds);
+            }
+        }
+
+        return bounds;
+    }
+
     @Override
     public String getDisplayString()
     {
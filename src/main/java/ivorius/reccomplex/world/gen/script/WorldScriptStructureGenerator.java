@@ -33,12 +33,14 @@ import net.minecraft.nbt.NBTTagList;
 import net.minecraft.nbt.NBTTagString;
 import net.minecraft.util.EnumFacing;
 import net.minecraft.util.math.BlockPos;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
 import net.minecraftforge.common.util.Constants;
 import net.minecraftforge.fml.relauncher.Side;
 import net.minecraftforge.fml.relauncher.SideOnly;
 import org.apache.commons.lang3.tuple.Pair;
 
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
 import java.util.*;
 import java.util.stream.Collectors;
 
@@ -278,6 +280,19 @@ public class WorldScriptStructureGenerator implements WorldScript<WorldScriptStr
         return generator.generate();
     }
 
+    @Nullable
+    @Override
+    public StructureBoundingBox generationBounds(StructurePrepareContext context, InstanceData instanceData, BlockPos pos)
+    {
+        Structure<?> structure = StructureRegistry.INSTANCE.get(instanceData.structureID);
+
+        if (structure == null || !instanceData.structureData.exists())
+            return new StructureBoundingBox(pos, pos); // Won't generate anything
+
+        return new StructureGenerator<>(structure).lowerCoord(instanceData.lowerCoord).transform(instanceData.structureTransform)
+                .boundingBox().map(instanceData.structureData::generationBounds).orElse(null);
+    }
+
     @Override
     public String getDisplayString()
     {
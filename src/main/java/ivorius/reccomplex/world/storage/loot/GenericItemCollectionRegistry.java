@@ -82,6 +82,7 @@ public class GenericItemCollectionRegistry extends SimpleLeveledRegistry<Generic
             {
                 GenericLootTable collection = registerGetGenericItemCollection(component.tableID, status(key).getDomain());
                 collection.components.add(component);
+                collection.invalidateCache();
             }
         }
     }
@@ -14,13 +14,16 @@ import ivorius.reccomplex.RecurrentComplex;
 import ivorius.reccomplex.json.ItemStackSerializer;
 import ivorius.reccomplex.json.JsonUtils;
 import ivorius.reccomplex.json.NBTToJson;
+import ivorius.reccomplex.utils.AliasTable;
 import ivorius.reccomplex.utils.expression.DependencyExpression;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.WeightedRandom;
 import net.minecraft.world.WorldServer;
 
+import javax.annotation.Nullable;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.List;
 import java.util.Random;
 
@@ -35,6 +38,9 @@ public class GenericLootTable implements LootTable
 
     public final List<Component> components = new ArrayList<>();
 
+    @Nullable
+    protected AliasTable componentTable;
+
     public static Gson createGson()
     {
         GsonBuilder builder = new GsonBuilder();
@@ -51,17 +57,50 @@ public class GenericLootTable implements LootTable
     @Override
     public ItemStack getRandomItemStack(WorldServer server, Random random)
     {
-        int max = 0;
-        for (Component component : components)
+        return getRandomItemStack(componentTable(), random);
+    }
+
+    @Override
+    public void generateItemStacks(WorldServer server, Random random, int amount, Collection<ItemStack> stacks)
+    {
+        AliasTable componentTable = componentTable();
+        for (int i = 0; i < amount; i++)
+            stacks.add(getRandomItemStack(componentTable, random));
+    }
+
+    protected ItemStack getRandomItemStack(AliasTable componentTable, Random random)
+    {
+        if (componentTable.isEmpty())
+            return ItemStack.EMPTY;
+
+        return components.get(componentTable.sample(random)).getRandomItemStack(random);
+    }
+
+    /**
+     * Components are weighted by how many items they have.
+     */
+    protected AliasTable componentTable()
+    {
+        AliasTable componentTable = this.componentTable;
+
+        if (componentTable == null || componentTable.size() != components.size())
         {
-            component.updateWeightCache();
-            max += component.itemWeight;
+            for (Component component : components)
+                component.updateWeightCache();
+
+            this.componentTable = componentTable = new AliasTable(components.stream().mapToDouble(c -> c.itemWeight).toArray());
         }
 
-        if (max > 0)
-            return WeightedRandom.getRandomItem(random, components, max).getRandomItemStack(random);
+        return componentTable;
+    }
+
+    public void invalidateCache()
+    {
+        componentTable = null;
 
-        return ItemStack.EMPTY;
+        // Item weights may change without the number of items changing
+        for (Component component : components)
+            component.invalidateCache();
     }
 
     @Override
@@ -76,6 +115,9 @@ public class GenericLootTable implements LootTable
         public final DependencyExpression dependencies = new DependencyExpression();
         public String tableID;
 
+        @Nullable
+        protected AliasTable itemTable;
+
         public Component()
         {
             super(0);
@@ -100,10 +142,27 @@ public class GenericLootTable implements LootTable
             if (items.size() == 0)
                 return null;
 
-            RandomizedItemStack item = WeightedSelector.selectItem(random, items);
+            AliasTable itemTable = itemTable();
+            RandomizedItemStack item = itemTable.isEmpty()
+                    ? WeightedSelector.selectItem(random, items) // No weights to go by
+                    : items.get(itemTable.sample(random));
 
             return item.generateStack(random);
+        }
 
+        protected AliasTable itemTable()
+        {
+            AliasTable itemTable = this.itemTable;
+
+            if (itemTable == null || itemTable.size() != items.size())
+                this.itemTable = itemTable = new AliasTable(items.stream().mapToDouble(RandomizedItemStack::getWeight).toArray());
+
+            return itemTable;
+        }
+
+        public void invalidateCache()
+        {
+            itemTable = null;
         }
 
         public boolean areDependenciesResolved()
@@ -0,0 +1,54 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.storage.loot;
+
+import net.minecraft.item.ItemStack;
+import net.minecraft.world.WorldServer;
+
+import java.util.*;
+
+/**
+ * Draws the loot for one inventory. Tables generate in batches, and what they generate too much is kept for the
+ * next draw from the same table.
+ */
+public class LootBatch
+{
+    public final WorldServer server;
+    public final Random random;
+
+    protected final Map<LootTable, Deque<ItemStack>> surplus = new IdentityHashMap<>();
+
+    public LootBatch(WorldServer server, Random random)
+    {
+        this.server = server;
+        this.random = random;
+    }
+
+    /**
+     * @return The stacks; null where the table didn't generate anything.
+     */
+    public List<ItemStack> draw(LootTable table, int amount)
+    {
+        Deque<ItemStack> surplus = this.surplus.computeIfAbsent(table, t -> new ArrayDeque<>());
+
+        if (surplus.size() < amount)
+        {
+            List<ItemStack> generated = new ArrayList<>();
+            table.generateItemStacks(server, random, amount - surplus.size(), generated);
+            generated.stream().filter(Objects::nonNull).forEach(surplus::add);
+        }
+
+        List<ItemStack> drawn = new ArrayList<>(amount);
+        for (int i = 0; i < amount; i++)
+            drawn.add(surplus.poll());
+        return drawn;
+    }
+
+    public ItemStack draw(LootTable table)
+    {
+        return draw(table, 1).get(0);
+    }
+}
@@ -16,59 +16,121 @@ import net.minecraftforge.items.IItemHandlerModifiable;
 import org.apache.commons.lang3.tuple.Triple;
 
 import javax.annotation.Nonnull;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Random;
+import java.util.*;
 
 /**
  * Created by lukas on 05.01.15.
  */
 public class LootGenerationHandler
 {
+    public static final int MAX_TAGS = 1000;
+
     public static void generateAllTags(WorldServer server, IItemHandlerModifiable inventory, MCRegistrySpecial.ItemHidingRegistry registry, Random random)
     {
-        List<Triple<ItemStack, GeneratingItem, Integer>> foundTags = new ArrayList<>();
-        boolean didChange = true;
-        int cycles = 0;
+        generateAllTags(new LootBatch(server, random), inventory, registry);
+    }
 
-        do
-        {
-            if (didChange)
-            {
-                for (int i = 0; i < inventory.getSlots(); i++)
-                {
-                    ItemStack stack = inventory.getStackInSlot(i);
-
-                    if (!stack.isEmpty())
-                    {
-                        Item item = registry.containedItem(stack);
-                        if (item instanceof GeneratingItem)
-                        {
-                            foundTags.add(Triple.of(stack, (GeneratingItem) item, i));
-                            inventory.setStackInSlot(i, ItemStack.EMPTY);
-                        }
-                    }
-                }
-
-                didChange = false;
-            }
+    /**
+     * Generates the tags in the inventory, and the tags they generate. The inventory is scanned once; after that, only
+     * the slots a tag changed are looked at again.
+     */
+    public static void generateAllTags(LootBatch batch, IItemHandlerModifiable inventory, MCRegistrySpecial.ItemHidingRegistry registry)
+    {
+        Deque<Triple<ItemStack, GeneratingItem, Integer>> foundTags = new ArrayDeque<>();
+        for (int i = 0; i < inventory.getSlots(); i++)
+            takeTag(inventory, registry, i, foundTags);
 
-            if (foundTags.size() > 0)
-            {
-                Triple<ItemStack, GeneratingItem, Integer> pair = foundTags.get(0);
-                pair.getMiddle().generateInInventory(server, inventory, random, pair.getLeft(), pair.getRight());
+        ChangeTrackingInventory tracking = new ChangeTrackingInventory(inventory);
+        int tags = 0;
 
-                foundTags.remove(0);
-                didChange = true;
-            }
+        while (!foundTags.isEmpty() && tags++ < MAX_TAGS)
+        {
+            Triple<ItemStack, GeneratingItem, Integer> tag = foundTags.poll();
 
-            cycles++;
+            tracking.changed.clear();
+            tag.getMiddle().generateInInventory(batch, tracking, tag.getLeft(), tag.getRight());
+
+            for (int slot = tracking.changed.nextSetBit(0); slot >= 0; slot = tracking.changed.nextSetBit(slot + 1))
+                takeTag(inventory, registry, slot, foundTags);
         }
-        while ((foundTags.size() > 0 || didChange) && cycles < 1000);
     }
 
     public static void generateAllTags(@Nonnull StructureSpawnContext context, IItemHandlerModifiable inventory)
     {
         generateAllTags(context.environment.world, inventory, RecurrentComplex.specialRegistry.itemHidingMode(), context.random);
     }
+
+    protected static void takeTag(IItemHandlerModifiable inventory, MCRegistrySpecial.ItemHidingRegistry registry, int slot, Collection<Triple<ItemStack, GeneratingItem, Integer>> foundTags)
+    {
+        ItemStack stack = inventory.getStackInSlot(slot);
+
+        if (!stack.isEmpty())
+        {
+            Item item = registry.containedItem(stack);
+            if (item instanceof GeneratingItem)
+            {
+                foundTags.add(Triple.of(stack, (GeneratingItem) item, slot));
+                inventory.setStackInSlot(slot, ItemStack.EMPTY);
+            }
+        }
+    }
+
+    protected static class ChangeTrackingInventory implements IItemHandlerModifiable
+    {
+        public final IItemHandlerModifiable inventory;
+        public final BitSet changed = new BitSet();
+
+        public ChangeTrackingInventory(IItemHandlerModifiable inventory)
+        {
+            this.inventory = inventory;
+        }
+
+        @Override
+        public void setStackInSlot(int slot, @Nonnull ItemStack stack)
+        {
+            inventory.setStackInSlot(slot, stack);
+            changed.set(slot);
+        }
+
+        @Override
+        public int getSlots()
+        {
+            return inventory.getSlots();
+        }
+
+        @Nonnull
+        @Override
+        public ItemStack getStackInSlot(int slot)
+        {
+            return inventory.getStackInSlot(slot);
+        }
+
+        @Nonnull
+        @Override
+        public ItemStack insertItem(int slot, @Nonnull ItemStack stack, boolean simulate)
+        {
+            if (!simulate)
+                changed.set(slot);
+            return inventory.insertItem(slot, stack, simulate);
+        }
+
+        @Nonnull
+        @Override
+        public ItemStack extractItem(int slot, int amount, boolean simulate)
+        {
+            return inventory.extractItem(slot, amount, simulate);
+        }
+
+        @Override
+        public int getSlotLimit(int slot)
+        {
+            return inventory.getSlotLimit(slot);
+        }
+
+        @Override
+        public boolean isItemValid(int slot, @Nonnull ItemStack stack)
+        {
+            return inventory.isItemValid(slot, stack);
+        }
+    }
 }
@@ -8,6 +8,7 @@ package ivorius.reccomplex.world.storage.loot;
 import net.minecraft.item.ItemStack;
 import net.minecraft.world.WorldServer;
 
+import java.util.Collection;
 import java.util.Random;
 
 /**
@@ -17,5 +18,15 @@ public interface LootTable
 {
     ItemStack getRandomItemStack(WorldServer server, Random random);
 
+    /**
+     * Generates the amount of stacks, as far as the table can. Tables that naturally generate several stacks at once
+     * may add more, for the caller to distribute.
+     */
+    default void generateItemStacks(WorldServer server, Random random, int amount, Collection<ItemStack> stacks)
+    {
+        for (int i = 0; i < amount; i++)
+            stacks.add(getRandomItemStack(server, random));
+    }
+
     String getDescriptor();
 }
@@ -12,6 +12,7 @@ import net.minecraft.util.ResourceLocation;
 import net.minecraft.world.WorldServer;
 import net.minecraft.world.storage.loot.LootContext;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Random;
 
@@ -46,6 +47,34 @@ public class VanillaLootTable implements LootTable
         return ItemStack.EMPTY;
     }
 
+    @Override
+    public void generateItemStacks(WorldServer server, Random random, int amount, Collection<ItemStack> stacks)
+    {
+        try
+        {
+            net.minecraft.world.storage.loot.LootTable loottable = server.getLootTableManager().getLootTableFromLocation(this.vanillaKey);
+            LootContext context = new LootContext.Builder(server).build();
+
+            // Every roll fills a whole chest's worth; use all of it before rolling again
+            int generated = 0;
+            for (int rolls = 0; generated < amount && rolls < amount; rolls++)
+            {
+                for (ItemStack stack : loottable.generateLootForPools(random, context))
+                {
+                    if (!stack.isEmpty())
+                    {
+                        stacks.add(stack);
+                        generated++;
+                    }
+                }
+            }
+        }
+        catch (Exception e)
+        {
+            RecurrentComplex.logger.error("Error generating vanilla loot", e);
+        }
+    }
+
     @Override
     public String getDescriptor()
     {
@@ -0,0 +1,221 @@
+/*
+ *  Copyright (c) 2014, Lukas Tenbrink.
+ *  * http://ivorius.net
+ */
+
+package ivorius.reccomplex.world.gen.feature;
+
+import ivorius.ivtoolkit.math.AxisAlignedTransform2D;
+import net.minecraft.util.math.ChunkPos;
+import net.minecraft.world.gen.structure.StructureBoundingBox;
+import org.junit.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Hammers the atomic operations of {@link WorldStructureGenerationData} from many threads, without any region locks,
+ * and checks the guarantees that decoration relies on.
+ */
+public class WorldStructureGenerationDataStressTest
+{
+    public static final int THREADS = 16;
+    public static final int AREA = 48; // Chunks per side
+    public static final int RUNS = 5;
+
+    @Test
+    public void checkAndAddReportEveryChunkOnce() throws InterruptedException, ExecutionException
+    {
+        for (int run = 0; run < RUNS; run++)
+        {
+            WorldStructureGenerationData data = new WorldStructureGenerationData();
+            Queue<ChunkPos> chunks = new ConcurrentLinkedQueue<>(shuffledChunks(run));
+
+            // (entry, chunk) -> how often the entry was reported for the chunk
+            Map<String, AtomicInteger> reported = new ConcurrentHashMap<>();
+            List<WorldStructureGenerationData.StructureEntry> added = Collections.synchronizedList(new ArrayList<>());
+
+            runConcurrently(run, random ->
+            {
+                ChunkPos chunkPos;
+                while ((chunkPos = chunks.poll()) != null)
+                {
+                    for (WorldStructureGenerationData.StructureEntry entry : data.checkChunkForComplement(chunkPos, true))
+                        count(reported, entry, chunkPos);
+
+                    if (random.nextInt(3) == 0)
+                    {
+                        WorldStructureGenerationData.StructureEntry entry = entry("structure" + chunkPos, randomBox(chunkPos, random));
+                        for (ChunkPos checked : data.addEntry(entry))
+                            count(reported, entry, checked);
+                        added.add(entry);
+                    }
+                }
+            });
+
+            assertFalse("Nothing was added", added.isEmpty());
+
+            for (WorldStructureGenerationData.StructureEntry entry : added)
+            {
+                for (ChunkPos chunkPos : chunks(entry.getBoundingBox()))
+                {
+                    AtomicInteger count = reported.get(key(entry, chunkPos));
+                    int times = count != null ? count.get() : 0;
+
+                    if (chunkPos.x < AREA && chunkPos.z < AREA)
+                        assertEquals(String.format("%s in %s", entry.getStructureID(), chunkPos), 1, times);
+                    else
+                        assertEquals(String.format("%s outside the area in %s", entry.getStructureID(), chunkPos), 0, times);
+                }
+            }
+        }
+    }
+
+    @Test
+    public void reservationsNeverOverlap() throws InterruptedException, ExecutionException
+    {
+        for (int run = 0; run < RUNS; run++)
+        {
+            WorldStructureGenerationData data = new WorldStructureGenerationData();
+            Queue<ChunkPos> chunks = new ConcurrentLinkedQueue<>(shuffledChunks(run));
+
+            Set<StructureBoundingBox> held = ConcurrentHashMap.newKeySet();
+            List<WorldStructureGenerationData.StructureEntry> added = Collections.synchronizedList(new ArrayList<>());
+
+            runConcurrently(run, random ->
+            {
+                ChunkPos chunkPos;
+                while ((chunkPos = chunks.poll()) != null)
+                {
+                    StructureBoundingBox boundingBox = randomBox(chunkPos, random);
+                    WorldStructureGenerationData.Reservation reservation = data.reserve(boundingBox, true);
+                    if (reservation == null)
+                        continue;
+
+                    try
+                    {
+                        held.add(boundingBox);
+                        for (StructureBoundingBox other : held)
+                            assertTrue(String.format("%s reserved while %s is", boundingBox, other), other == boundingBox || !other.intersectsWith(boundingBox));
+
+                        // Let others try to reserve on top of us meanwhile
+                        Thread.yield();
+
+                        WorldStructureGenerationData.StructureEntry entry = entry("structure" + chunkPos, boundingBox);
+                        data.addEntry(entry);
+                        added.add(entry);
+                    }
+                    finally
+                    {
+                        held.remove(boundingBox);
+                        data.release(reservation);
+                    }
+                }
+            });
+
+            assertFalse("Nothing was added", added.isEmpty());
+
+            for (int i = 0; i < added.size(); i++)
+                for (int j = i + 1; j < added.size(); j++)
+                    assertFalse(String.format("%s overlaps %s", added.get(i).getStructureID(), added.get(j).getStructureID()),
+                            added.get(i).getBoundingBox().intersectsWith(added.get(j).getBoundingBox()));
+        }
+    }
+
+    @Test
+    public void markGeneratedOnce() throws InterruptedException, ExecutionException
+    {
+        WorldStructureGenerationData data = new WorldStructureGenerationData();
+        WorldStructureGenerationData.StructureEntry entry = WorldStructureGenerationData.StructureEntry.complete(
+                "structure", null, new StructureBoundingBox(0, 64, 0, 15, 79, 15), AxisAlignedTransform2D.ORIGINAL, false);
+        assertTrue(data.isFirstTime(entry));
+
+        AtomicInteger marked = new AtomicInteger();
+        runConcurrently(0, random ->
+        {
+            if (data.markGenerated(entry))
+                marked.incrementAndGet();
+        });
+
+        assertEquals(1, marked.get());
+        assertFalse(data.isFirstTime(entry));
+    }
+
+    protected static void runConcurrently(long seed, ThreadBody body) throws InterruptedException, ExecutionException
+    {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++)
+        {
+            long threadSeed = seed * THREADS + i;
+            futures.add(executor.submit(() ->
+            {
+                start.await();
+                body.run(new Random(threadSeed));
+                return null;
+            }));
+        }
+        start.countDown();
+
+        try
+        {
+            for (Future<?> future : futures)
+                future.get();
+        }
+        finally
+        {
+            executor.shutdown();
+        }
+    }
+
+    protected static List<ChunkPos> shuffledChunks(long seed)
+    {
+        List<ChunkPos> chunks = new ArrayList<>();
+        for (int x = 0; x < AREA; x++)
+            for (int z = 0; z < AREA; z++)
+                chunks.add(new ChunkPos(x, z));
+        Collections.shuffle(chunks, new Random(seed));
+        return chunks;
+    }
+
+    protected static StructureBoundingBox randomBox(ChunkPos chunkPos, Random random)
+    {
+        int minX = chunkPos.x * 16 + 8 + random.nextInt(16), minZ = chunkPos.z * 16 + 8 + random.nextInt(16);
+        return new StructureBoundingBox(minX, 64, minZ,
+                minX + random.nextInt(48), 64 + random.nextInt(16), minZ + random.nextInt(48));
+    }
+
+    protected static WorldStructureGenerationData.StructureEntry entry(String structureID, StructureBoundingBox boundingBox)
+    {
+        // Blocking by default
+        return WorldStructureGenerationData.StructureEntry.complete(structureID, null, boundingBox, AxisAlignedTransform2D.ORIGINAL, false);
+    }
+
+    protected static void count(Map<String, AtomicInteger> reported, WorldStructureGenerationData.StructureEntry entry, ChunkPos chunkPos)
+    {
+        reported.computeIfAbsent(key(entry, chunkPos), k -> new AtomicInteger()).incrementAndGet();
+    }
+
+    protected static String key(WorldStructureGenerationData.StructureEntry entry, ChunkPos chunkPos)
+    {
+        return entry.getUuid() + "@" + chunkPos;
+    }
+
+    protected static List<ChunkPos> chunks(StructureBoundingBox bb)
+    {
+        List<ChunkPos> chunks = new ArrayList<>();
+        for (int x = (bb.minX - 8) >> 4; x <= (bb.maxX - 8) >> 4; x++)
+            for (int z = (bb.minZ - 8) >> 4; z <= (bb.maxZ - 8) >> 4; z++)
+                chunks.add(new ChunkPos(x, z));
+        return chunks;
+    }
+
+    protected interface ThreadBody
+    {
+        void run(Random random) throws Exception;
+    }
+}